@@ -0,0 +1,221 @@
+import java.io.PrintStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Проверка объёма памяти, выделяемой горячими командами.
+ * <p>
+ * Каждая операция выполняется через {@link CommandManager#handleLine(String, InputManager, CommandContext)}
+ * (как команда консоли) над коллекцией из {@value #SMALL} и {@value #LARGE} городов,
+ * а выделенная за вызов память измеряется по
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}. Для каждой
+ * операции задан бюджет: средний объём на вызов не должен превышать его, а на большой
+ * коллекции не должен быть больше, чем на малой, более чем на {@value #SCALE_TOLERANCE}
+ * байт — иначе операция выделяет память пропорционально размеру коллекции.
+ * </p>
+ *
+ * <p>Перед измерением операция выполняется {@value #WARMUP} раз (просматривающие всю
+ * коллекцию — {@value #SCAN_WARMUP} раз), чтобы код был скомпилирован JIT так же,
+ * как в работающем сервере. Подготовка к вызову (например,
+ * изменение коллекции, чтобы info не брал результат из кэша) в измерение не входит.</p>
+ *
+ * <p>При превышении бюджета программа завершается с кодом 1; в сборке модуля она
+ * запускается на фазе verify (пропуск: {@code -Dallocation.skip=true}).</p>
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar AllocationBudgets [plain|partitioned ...]
+ * </pre>
+ */
+public class AllocationBudgets {
+    private static final int SMALL = 1_000;
+    private static final int LARGE = 100_000;
+    private static final int WARMUP = 10_000;
+    private static final int MEASURED = 2_000;
+
+    /**
+     * Количество вызовов для операций, время которых растёт с размером коллекции.
+     */
+    private static final int SCAN_WARMUP = 2_000;
+    private static final int SCAN_MEASURED = 500;
+    private static final long SCALE_TOLERANCE = 256;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Измеряемая операция.
+     */
+    private static final class Operation {
+        final String name;
+        final long budget;
+        final Step setup;
+        final Step action;
+        final int warmup;
+        final int measured;
+
+        Operation(String name, long budget, Step setup, Step action) {
+            this(name, budget, setup, action, WARMUP, MEASURED);
+        }
+
+        Operation(String name, long budget, Step setup, Step action, int warmup, int measured) {
+            this.name = name;
+            this.budget = budget;
+            this.setup = setup;
+            this.action = action;
+            this.warmup = warmup;
+            this.measured = measured;
+        }
+    }
+
+    /**
+     * Шаг операции над подготовленной коллекцией; {@code i} — номер вызова.
+     */
+    private interface Step {
+        void run(Fixture f, int i);
+    }
+
+    /**
+     * Коллекция с менеджером команд и бесконечным вводом полей города.
+     */
+    private static final class Fixture {
+        final CollectionManager cm;
+        final CommandManager manager;
+        final CommandContext ctx;
+        final InputManager input = new InputManager(new Scanner(new CityInput()), false);
+        final long[] ids;
+        final City first;
+        City removed;
+
+        Fixture(String engine, int count) {
+            cm = engine.equals("partitioned")
+                    ? new PartitionedCollectionManager(Runtime.getRuntime().availableProcessors())
+                    : new CollectionManager();
+            DatasetGenerator generator = new DatasetGenerator(42);
+            ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                City city = generator.next();
+                city.setId(i + 1);
+                cm.addLoaded(city);
+                ids[i] = city.getId();
+            }
+            cm.syncNextIdFromLoadedData();
+            first = cm.pageAfter(0, 1).get(0);
+            manager = new CommandManager(cm, new XmlIO("allocation-budgets.xml"));
+            ctx = manager.newSession(new PrintStream(PrintStream.nullOutputStream()));
+        }
+
+        long id(int i) {
+            return ids[i % ids.length];
+        }
+
+        void line(String line) {
+            manager.handleLine(line, input, ctx);
+        }
+    }
+
+    /**
+     * Бесконечно повторяющиеся значения полей города для add и update
+     * (в порядке запроса {@link InputManager}).
+     */
+    private static final class CityInput extends Reader {
+        private static final char[] CITY = ("Allocation\n10\n20\n30.5\n1000\n100\n"
+                + Climate.values()[0] + "\n" + Government.values()[0] + "\n\nn\n").toCharArray();
+        private int position;
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[offset + i] = CITY[position];
+                position = (position + 1) % CITY.length;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final Step NONE = (f, i) -> { };
+
+    /**
+     * Изменяет коллекцию (заменяет первый город им же), чтобы следующий вызов читающей
+     * команды не взял результат из кэша.
+     */
+    private static final Step INVALIDATE_CACHE = (f, i) -> f.cm.update(f.first.getId(), f.first);
+
+    private static List<Operation> operations() {
+        List<Operation> ops = new ArrayList<>();
+        ops.add(new Operation("containsId", 64, NONE, (f, i) -> f.cm.containsId(f.id(i))));
+        ops.add(new Operation("update", 24 * 1024, NONE, (f, i) -> f.line("update " + f.id(i))));
+        ops.add(new Operation("add", 24 * 1024, NONE, (f, i) -> f.line("add")));
+        ops.add(new Operation("remove_by_id", 4 * 1024,
+                (f, i) -> {
+                    if (f.removed != null) {
+                        f.cm.addLoaded(f.removed);
+                    }
+                    f.removed = f.cm.pageAfter(f.id(i) - 1, 1).get(0);
+                },
+                (f, i) -> f.line("remove_by_id " + f.removed.getId())));
+        ops.add(new Operation("info", 16 * 1024, INVALIDATE_CACHE, (f, i) -> f.line("info")));
+        ops.add(new Operation("info (cached)", 4 * 1024, NONE, (f, i) -> f.line("info")));
+        ops.add(new Operation("min_by_climate", 8 * 1024, INVALIDATE_CACHE, (f, i) -> f.line("min_by_climate"),
+                SCAN_WARMUP, SCAN_MEASURED));
+        ops.add(new Operation("history", 4 * 1024, NONE, (f, i) -> f.line("history")));
+        return ops;
+    }
+
+    /**
+     * Возвращает среднюю память, выделенную за один вызов операции.
+     */
+    private static long measure(Operation op, Fixture f) {
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < op.warmup; i++) {
+            op.setup.run(f, i);
+            op.action.run(f, i);
+        }
+        long total = 0;
+        for (int i = 0; i < op.measured; i++) {
+            op.setup.run(f, i);
+            long before = THREADS.getThreadAllocatedBytes(thread);
+            op.action.run(f, i);
+            total += THREADS.getThreadAllocatedBytes(thread) - before;
+        }
+        return total / op.measured;
+    }
+
+    public static void main(String[] args) {
+        String[] engines = args.length > 0 ? args : new String[]{"plain", "partitioned"};
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("JVM не поддерживает измерение выделенной памяти.");
+            System.exit(1);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        int failures = 0;
+        System.out.printf("%-12s %-16s %10s %10s %10s%n", "engine", "operation", "small, B", "large, B", "budget, B");
+        for (String engine : engines) {
+            for (Operation op : operations()) {
+                long small = measure(op, new Fixture(engine, SMALL));
+                long large = measure(op, new Fixture(engine, LARGE));
+                String verdict = "";
+                if (large > op.budget) {
+                    verdict = "  ПРЕВЫШЕН БЮДЖЕТ";
+                } else if (large - small > SCALE_TOLERANCE) {
+                    verdict = "  РАСТЁТ С РАЗМЕРОМ КОЛЛЕКЦИИ";
+                }
+                if (!verdict.isEmpty()) {
+                    failures++;
+                }
+                System.out.printf("%-12s %-16s %10d %10d %10d%s%n", engine, op.name, small, large, op.budget, verdict);
+            }
+        }
+        if (failures > 0) {
+            System.err.println("Бюджет выделения памяти нарушен: " + failures + " операций.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import bench.ShowCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link ShowCodec} поверх {@link ShowCommand} и {@link ProtocolEncoder}.
+ * <p>
+ * Находится в пакете по умолчанию, чтобы обращаться к классам city-collection.
+ * </p>
+ */
+public class BenchShowCodec implements ShowCodec {
+    private final List<City> cities;
+
+    /**
+     * Создаёт набор сгенерированных городов.
+     *
+     * @param count количество городов
+     * @param seed зерно генератора
+     */
+    public BenchShowCodec(int count, long seed) {
+        DatasetGenerator generator = new DatasetGenerator(seed);
+        cities = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            City city = generator.next();
+            city.setId(i);
+            cities.add(city);
+        }
+    }
+
+    @Override
+    public byte[] encodeText() {
+        return ShowCommand.render(cities).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decodeText(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encodeBinary() {
+        return ProtocolEncoder.encodeResponse(ProtocolResponse.cities(cities));
+    }
+
+    @Override
+    public Object decodeBinary(byte[] bytes) throws IOException {
+        return ProtocolDecoder.decodeResponse(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,167 @@
+import bench.CollectionTarget;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Реализация {@link CollectionTarget} поверх {@link CollectionManager} и {@link XmlIO}.
+ * <p>
+ * Находится в пакете по умолчанию, чтобы обращаться к классам city-collection.
+ * </p>
+ */
+public class BenchTarget implements CollectionTarget {
+    private static final int GOVERNORS = 100;
+    private static final int NAME_RANGE = 10_000_000;
+
+    private final String engine;
+    private final List<City> cities;
+    private final Human[] governors = new Human[GOVERNORS];
+    private final Random random;
+    private final Map<String, XmlIO> files = new HashMap<>();
+    private final City pivot;
+    private CollectionManager cm;
+
+    /**
+     * Создаёт коллекцию со сгенерированными городами.
+     *
+     * @param engine {@code plain} или {@code partitioned}
+     * @param count количество городов
+     * @param seed зерно генератора
+     */
+    public BenchTarget(String engine, int count, long seed) {
+        this.engine = engine;
+        this.random = new Random(seed);
+        for (int i = 0; i < GOVERNORS; i++) {
+            Human human = new Human();
+            human.setName("governor" + i);
+            human.setHeight(150f + i);
+            governors[i] = human;
+        }
+        cities = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            City city = newCity();
+            city.setId(i);
+            cities.add(city);
+        }
+        pivot = newCity();
+        pivot.setName(String.format("city%07d", NAME_RANGE / 10));
+        pivot.setId(Long.MAX_VALUE);
+        reset();
+    }
+
+    private City newCity() {
+        City city = new City();
+        city.setName(String.format("city%07d", random.nextInt(NAME_RANGE)));
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(random.nextInt(1000) - 287);
+        coordinates.setY(random.nextInt(882));
+        city.setCoordinates(coordinates);
+        city.setCreationDate(LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(random.nextInt(100_000_000)));
+        city.setArea(1 + random.nextDouble() * 10_000);
+        city.setPopulation(1L + random.nextInt(10_000_000));
+        city.setMetersAboveSeaLevel(random.nextInt(5000));
+        city.setClimate(Climate.values()[random.nextInt(Climate.values().length)]);
+        city.setGovernment(Government.values()[random.nextInt(Government.values().length)]);
+        city.setStandardOfLiving(StandardOfLiving.values()[random.nextInt(StandardOfLiving.values().length)]);
+        city.setGovernor(random.nextInt(10) == 0 ? null : governors[random.nextInt(GOVERNORS)]);
+        return city;
+    }
+
+    @Override
+    public void reset() {
+        cm = engine.equals("partitioned")
+                ? new PartitionedCollectionManager(Runtime.getRuntime().availableProcessors())
+                : new CollectionManager();
+        for (City city : cities) {
+            cm.addLoaded(city);
+        }
+        cm.syncNextIdFromLoadedData();
+    }
+
+    @Override
+    public void shuffle(long seed) {
+        // у секционированной коллекции порядок задаётся режимом вывода, а не позициями,
+        // поэтому перемешивать нечего; бенчмарки порядка выполняются только для plain
+        if (!cm.supportsConcurrentWrites()) {
+            Collections.shuffle(cm.getAll(), new Random(seed));
+        }
+    }
+
+    @Override
+    public int size() {
+        return cm.size();
+    }
+
+    @Override
+    public long[] ids() {
+        return cities.stream().mapToLong(City::getId).toArray();
+    }
+
+    @Override
+    public long add() {
+        City city = newCity();
+        cm.add(city);
+        return city.getId();
+    }
+
+    @Override
+    public boolean containsId(long id) {
+        return cm.containsId(id);
+    }
+
+    @Override
+    public boolean update(long id) {
+        return cm.update(id, newCity());
+    }
+
+    @Override
+    public boolean removeById(long id) {
+        return cm.removeById(id);
+    }
+
+    @Override
+    public void restore(long id) {
+        cm.addLoaded(cities.get((int) id - 1));
+    }
+
+    @Override
+    public int removeLower() {
+        return cm.removeLower(pivot);
+    }
+
+    @Override
+    public int removeAllByGovernor() {
+        return cm.removeAllByGovernor(governors[random.nextInt(GOVERNORS)]);
+    }
+
+    @Override
+    public Object minByClimate() {
+        return cm.minByClimate();
+    }
+
+    @Override
+    public void sortDefault() {
+        cm.sortDefault();
+    }
+
+    @Override
+    public void reorder() {
+        cm.reorder();
+    }
+
+    @Override
+    public void save(String path) throws Exception {
+        files.computeIfAbsent(path, XmlIO::new).saveFrom(cm);
+    }
+
+    @Override
+    public int load(String path) throws Exception {
+        files.computeIfAbsent(path, XmlIO::new).loadInto(cm);
+        return cm.size();
+    }
+}
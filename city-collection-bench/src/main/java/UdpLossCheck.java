@@ -0,0 +1,188 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Проверка UDP-транспорта через localhost с потерей датаграмм.
+ * <p>
+ * Запускает {@link UdpServer} на свободном порту с {@link LossSimulator}, теряющим
+ * {@value #LOSS} исходящих датаграмм, и обращается к нему через {@link UdpClient} с той же
+ * вероятностью потерь. Проверяется, что:
+ * </p>
+ * <ul>
+ *     <li>ответ show из многих фрагментов собирается целиком (через NACK) и совпадает
+ *     с коллекцией сервера;</li>
+ *     <li>каждый add выполняется ровно один раз, хотя запросы повторяются;</li>
+ *     <li>повреждённые датаграммы (мусор, недопустимый NACK, add с недопустимым значением
+ *     климата) не останавливают сервер, а на повреждённый запрос приходит ответ с ошибкой.</li>
+ * </ul>
+ *
+ * <p>Вероятностная часть проверки воспроизводима в том смысле, что при указанной доле
+ * потерь повторы должны всегда доводить запросы до конца; при ошибке программа
+ * завершается с кодом 1. В сборке модуля она запускается на фазе verify
+ * (пропуск: {@code -Dudp.skip=true}).</p>
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar UdpLossCheck [вероятность потери]
+ * </pre>
+ */
+public class UdpLossCheck {
+    private static final double LOSS = 0.2;
+    private static final int CITIES = 2_000;
+    private static final int SHOWS = 5;
+    private static final int ADDS = 200;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        double loss = args.length > 0 ? Double.parseDouble(args[0]) : LOSS;
+
+        CollectionManager cm = new CollectionManager();
+        DatasetGenerator generator = new DatasetGenerator(42);
+        for (int i = 0; i < CITIES; i++) {
+            cm.addLoaded(generator.next());
+        }
+        cm.syncNextIdFromLoadedData();
+        Path file = Files.createTempFile("udp-loss-check", ".xml");
+        file.toFile().deleteOnExit();
+        CommandManager manager = new CommandManager(cm, new XmlIO(file.toString()));
+
+        int port;
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Thread server = new Thread(() -> {
+            try {
+                new UdpServer(manager, InetAddress.getLoopbackAddress(), port, new LossSimulator(loss)).run();
+            } catch (IOException e) {
+                System.err.println("Ошибка сервера: " + e.getMessage());
+            }
+        }, "udp-server");
+        server.setDaemon(true);
+        server.start();
+
+        try (UdpClient client = new UdpClient(InetAddress.getLoopbackAddress().getHostAddress(), port, new LossSimulator(loss))) {
+            client.setRetransmission(50, 40);
+
+            for (int i = 0; i < SHOWS; i++) {
+                ProtocolResponse show = client.execute(ProtocolRequest.of(Opcode.SHOW));
+                List<City> expected = cm.snapshot();
+                check("show " + (i + 1) + ": " + show.cities.size() + " городов",
+                        show.ok && sameIds(show.cities, expected));
+            }
+
+            int before = cm.size();
+            for (int i = 0; i < ADDS; i++) {
+                ProtocolResponse added = client.execute(new ProtocolRequest(Opcode.ADD, 0, generator.next(), null, null));
+                if (!added.ok) {
+                    check("add " + (i + 1) + ": " + added.text, false);
+                }
+            }
+            check("add x" + ADDS + ": размер " + before + " -> " + cm.size(), cm.size() == before + ADDS);
+
+            try (DatagramChannel raw = DatagramChannel.open()) {
+                raw.connect(new InetSocketAddress("localhost", port));
+                ByteBuffer out = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+
+                out.put(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22});
+                out.flip();
+                raw.write(out);
+
+                UdpProtocol.nack(out, 1, 1, new int[]{-1, Integer.MAX_VALUE}, 0, 2);
+                raw.write(out);
+
+                byte[] hostile = addWithClimate(generator.next(), 200);
+                ProtocolResponse reply = request(raw, out, hostile);
+                check("add с климатом 200: " + (reply == null ? "нет ответа" : reply.text),
+                        reply != null && !reply.ok);
+            }
+
+            ProtocolResponse info = client.execute(ProtocolRequest.of(Opcode.INFO));
+            check("сервер отвечает после повреждённых датаграмм", info.ok);
+        }
+
+        if (failures > 0) {
+            System.err.println("Проверка UDP не пройдена: " + failures + " ошибок.");
+            System.exit(1);
+        }
+        System.out.println("Проверка UDP пройдена (потери " + loss + ").");
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "OK    " : "ОШИБКА ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+
+    private static boolean sameIds(List<City> actual, List<City> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            if (actual.get(i).getId() != expected.get(i).getId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Кодирует запрос add и заменяет в нём порядковый номер климата.
+     */
+    private static byte[] addWithClimate(City city, int climate) throws IOException {
+        city.setClimate(Climate.values()[0]);
+        city.setGovernment(null);
+        city.setStandardOfLiving(null);
+        city.setGovernor(null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(Opcode.ADD.code());
+        ProtocolEncoder.writeCity(data, city);
+        byte[] message = bytes.toByteArray();
+        // без правителя, правительства и уровня жизни климат — последний байт города
+        message[message.length - 1] = (byte) climate;
+        return message;
+    }
+
+    /**
+     * Отправляет однофрагментный запрос и ждёт однофрагментный ответ, повторяя запрос,
+     * пока ответ теряется.
+     *
+     * @return ответ или {@code null}, если его не удалось получить
+     */
+    private static ProtocolResponse request(DatagramChannel raw, ByteBuffer out, byte[] message)
+            throws IOException, InterruptedException {
+        ByteBuffer in = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+        raw.configureBlocking(false);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            UdpProtocol.data(out, 2, message, 0);
+            raw.write(out);
+            for (int wait = 0; wait < 20; wait++) {
+                in.clear();
+                if (raw.receive(in) == null) {
+                    Thread.sleep(10);
+                    continue;
+                }
+                in.flip();
+                UdpProtocol.Header header = UdpProtocol.parse(in);
+                if (header.type == UdpProtocol.DATA && header.messageId == 2 && header.count == 1) {
+                    byte[] body = new byte[in.remaining()];
+                    in.get(body);
+                    return ProtocolDecoder.decodeResponse(new DataInputStream(new ByteArrayInputStream(body)));
+                }
+            }
+        }
+        return null;
+    }
+}
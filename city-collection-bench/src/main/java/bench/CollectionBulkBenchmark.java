@@ -0,0 +1,65 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовые удаления из коллекции.
+ * <p>
+ * Каждый вызов меняет коллекцию так, что повторный вызов измерял бы другую работу
+ * (удалённых элементов уже нет), поэтому перед каждым вызовом коллекция заполняется
+ * заново и перемешивается. Подготовка не входит в измеренное время. Объём работы
+ * удаления от порядка не зависит: перемешивание лишь делает расположение элементов
+ * {@code plain} в памяти не совпадающим с порядком обхода, а у {@code partitioned}
+ * порядка хранения нет. Сортировка и разворот — в {@link CollectionOrderBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionBulkBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int cities;
+
+    @Param({"plain", "partitioned"})
+    public String engine;
+
+    private CollectionTarget target;
+    private long shuffleSeed;
+
+    @Setup(Level.Trial)
+    public void create() {
+        target = CollectionTarget.create(engine, cities, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        target.reset();
+        target.shuffle(shuffleSeed++);
+    }
+
+    @Benchmark
+    public int removeLower() {
+        return target.removeLower();
+    }
+
+    @Benchmark
+    public int removeAllByGovernor() {
+        return target.removeAllByGovernor();
+    }
+}
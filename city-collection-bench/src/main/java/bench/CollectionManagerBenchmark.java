@@ -0,0 +1,92 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции с отдельными элементами и операции, не меняющие состав коллекции.
+ * <p>
+ * Перед каждой итерацией коллекция заполняется заново, чтобы добавленные
+ * и заменённые города не накапливались. Идентификаторы перебираются с большим
+ * шагом, чтобы обращения не шли подряд по порядку хранения.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionManagerBenchmark {
+    private static final int STRIDE = 7919;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int cities;
+
+    @Param({"plain", "partitioned"})
+    public String engine;
+
+    private CollectionTarget target;
+    private long[] ids;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void create() {
+        target = CollectionTarget.create(engine, cities, 42);
+        ids = target.ids();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        target.reset();
+    }
+
+    private long nextId() {
+        cursor = (cursor + STRIDE) % ids.length;
+        return ids[cursor];
+    }
+
+    @Benchmark
+    public long add() {
+        return target.add();
+    }
+
+    @Benchmark
+    public boolean containsId() {
+        return target.containsId(nextId());
+    }
+
+    @Benchmark
+    public boolean update() {
+        return target.update(nextId());
+    }
+
+    /**
+     * Удаление с последующим возвратом того же города, чтобы размер коллекции
+     * не менялся в течение итерации.
+     */
+    @Benchmark
+    public boolean removeById() {
+        long id = nextId();
+        boolean removed = target.removeById(id);
+        target.restore(id);
+        return removed;
+    }
+
+    @Benchmark
+    public Object minByClimate() {
+        return target.minByClimate();
+    }
+}
@@ -0,0 +1,89 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции, меняющие порядок элементов: сортировка и разворот.
+ * <p>
+ * Выполняются только для {@code plain}: у {@code CollectionManager} порядок хранится
+ * позициями в {@code Vector} и эти операции переставляют элементы, а у
+ * {@code PartitionedCollectionManager} они лишь переключают режим вывода, и
+ * сортировка выполняется при чтении. Сравнение двух реализаций здесь измеряло бы
+ * разную работу.
+ * </p>
+ *
+ * <p>Отсортированная коллекция сортируется быстрее, поэтому перед каждым вызовом
+ * sortDefault коллекция заполняется заново и перемешивается (подготовка не входит
+ * в измеренное время). Разворот от порядка не зависит, и для него коллекция
+ * заполняется один раз на итерацию.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionOrderBenchmark {
+    @State(Scope.Benchmark)
+    public static class Shuffled {
+        @Param({"10000", "1000000", "10000000"})
+        public int cities;
+
+        CollectionTarget target;
+        private long shuffleSeed;
+
+        @Setup(Level.Trial)
+        public void create() {
+            target = CollectionTarget.create("plain", cities, 42);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            target.reset();
+            target.shuffle(shuffleSeed++);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filled {
+        @Param({"10000", "1000000", "10000000"})
+        public int cities;
+
+        CollectionTarget target;
+
+        @Setup(Level.Trial)
+        public void create() {
+            target = CollectionTarget.create("plain", cities, 42);
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            target.reset();
+        }
+    }
+
+    @Benchmark
+    public int sortDefault(Shuffled state) {
+        state.target.sortDefault();
+        return state.target.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int reorder(Filled state) {
+        state.target.reorder();
+        return state.target.size();
+    }
+}
@@ -0,0 +1,120 @@
+package bench;
+
+/**
+ * Коллекция городов, над которой выполняются бенчмарки.
+ * <p>
+ * Классы city-collection находятся в пакете по умолчанию, а JMH не допускает
+ * бенчмарки в пакете по умолчанию и код пакета не может на них ссылаться. Поэтому
+ * бенчмарки обращаются к коллекции через этот интерфейс, а реализующий его класс
+ * {@code BenchTarget} из пакета по умолчанию загружается по имени.
+ * </p>
+ *
+ * <p>Города генерируются один раз при создании по заданному зерну, поэтому
+ * прогоны с одинаковыми параметрами работают с одинаковыми данными.</p>
+ */
+public interface CollectionTarget {
+    /**
+     * Создаёт коллекцию.
+     *
+     * @param engine реализация: {@code plain} — {@code CollectionManager},
+     *               {@code partitioned} — {@code PartitionedCollectionManager}
+     * @param cities количество городов
+     * @param seed зерно генератора
+     * @return коллекция, заполненная сгенерированными городами
+     */
+    static CollectionTarget create(String engine, int cities, long seed) {
+        try {
+            return (CollectionTarget) Class.forName("BenchTarget")
+                    .getConstructor(String.class, int.class, long.class)
+                    .newInstance(engine, cities, seed);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать коллекцию для бенчмарка: " + e, e);
+        }
+    }
+
+    /**
+     * Заново заполняет коллекцию исходными сгенерированными городами.
+     */
+    void reset();
+
+    /**
+     * Перемешивает порядок элементов коллекции. У {@code partitioned} порядок
+     * хранения не задаётся позициями, и метод ничего не делает.
+     *
+     * @param seed зерно перемешивания
+     */
+    void shuffle(long seed);
+
+    int size();
+
+    /**
+     * Возвращает идентификаторы исходных городов.
+     *
+     * @return массив id
+     */
+    long[] ids();
+
+    /**
+     * Добавляет новый сгенерированный город.
+     *
+     * @return id добавленного города
+     */
+    long add();
+
+    boolean containsId(long id);
+
+    /**
+     * Заменяет город с указанным id новым сгенерированным городом.
+     *
+     * @param id идентификатор
+     * @return {@code true}, если город найден
+     */
+    boolean update(long id);
+
+    boolean removeById(long id);
+
+    /**
+     * Возвращает в коллекцию исходный город с указанным id.
+     *
+     * @param id идентификатор удалённого города
+     */
+    void restore(long id);
+
+    /**
+     * Удаляет города, меньшие опорного; опорный город выбран так, чтобы удалялась
+     * примерно десятая часть коллекции.
+     *
+     * @return количество удалённых городов
+     */
+    int removeLower();
+
+    /**
+     * Удаляет города одного из губернаторов (примерно сотую часть коллекции).
+     *
+     * @return количество удалённых городов
+     */
+    int removeAllByGovernor();
+
+    Object minByClimate();
+
+    void sortDefault();
+
+    void reorder();
+
+    /**
+     * Сохраняет коллекцию в XML-файл.
+     *
+     * @param path путь к файлу
+     * @throws Exception если произошла ошибка записи
+     */
+    void save(String path) throws Exception;
+
+    /**
+     * Загружает коллекцию из XML-файла вместо текущего содержимого.
+     *
+     * @param path путь к файлу
+     * @return количество загруженных городов
+     * @throws Exception если произошла ошибка чтения
+     */
+    int load(String path) throws Exception;
+}
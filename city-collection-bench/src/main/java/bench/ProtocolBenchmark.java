@@ -0,0 +1,68 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение текстового и двоичного протоколов на ответе show.
+ * <p>
+ * Измеряется кодирование ответа на сервере и декодирование на клиенте для обоих
+ * форматов. Размеры ответов выводятся при подготовке каждого прогона (строка
+ * {@code show: ...} в выводе JMH), так как JMH измеряет только время и выделение памяти.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+    @Param({"100", "10000"})
+    public int cities;
+
+    private ShowCodec codec;
+    private byte[] text;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void create() {
+        codec = ShowCodec.create(cities, 42);
+        text = codec.encodeText();
+        binary = codec.encodeBinary();
+        System.out.printf("show: %d городов, текст %d байт, двоичный %d байт (%.0f%% от текста)%n",
+                cities, text.length, binary.length, 100.0 * binary.length / text.length);
+    }
+
+    @Benchmark
+    public byte[] encodeText() {
+        return codec.encodeText();
+    }
+
+    @Benchmark
+    public Object decodeText() {
+        return codec.decodeText(text);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encodeBinary();
+    }
+
+    @Benchmark
+    public Object decodeBinary() throws Exception {
+        return codec.decodeBinary(binary);
+    }
+}
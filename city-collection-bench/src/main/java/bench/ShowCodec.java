@@ -0,0 +1,58 @@
+package bench;
+
+/**
+ * Ответ на show в текстовом и двоичном протоколах.
+ * <p>
+ * Как и {@link CollectionTarget}, реализуется классом {@code BenchShowCodec}
+ * из пакета по умолчанию, который загружается по имени.
+ * </p>
+ */
+public interface ShowCodec {
+    /**
+     * Создаёт набор городов для ответа.
+     *
+     * @param cities количество городов
+     * @param seed зерно генератора
+     * @return кодек со сгенерированными городами
+     */
+    static ShowCodec create(int cities, long seed) {
+        try {
+            return (ShowCodec) Class.forName("BenchShowCodec")
+                    .getConstructor(int.class, long.class)
+                    .newInstance(cities, seed);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать кодек для бенчмарка: " + e, e);
+        }
+    }
+
+    /**
+     * Кодирует ответ так, как его отправляет текстовый сервер: вывод show в UTF-8.
+     *
+     * @return байты ответа
+     */
+    byte[] encodeText();
+
+    /**
+     * Декодирует текстовый ответ так, как его читает клиент.
+     *
+     * @param bytes байты ответа
+     * @return текст
+     */
+    String decodeText(byte[] bytes);
+
+    /**
+     * Кодирует ответ двоичного протокола (тело кадра со списком городов).
+     *
+     * @return байты ответа
+     */
+    byte[] encodeBinary();
+
+    /**
+     * Декодирует ответ двоичного протокола.
+     *
+     * @param bytes байты ответа
+     * @return ответ
+     * @throws Exception если ответ повреждён
+     */
+    Object decodeBinary(byte[] bytes) throws Exception;
+}
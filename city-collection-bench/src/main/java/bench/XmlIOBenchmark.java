@@ -0,0 +1,95 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка и сохранение коллекции в XML-файл.
+ * <p>
+ * Загрузка читает весь файл в одну строку, длина которой ограничена 2^31 символами,
+ * поэтому файл на 10 000 000 городов (около 5,5 ГБ) загрузить нельзя и загрузка
+ * измеряется только до 1 000 000 городов. Сохранение пишет файл потоком и измеряется
+ * на всех размерах; начиная со второго вызова XML-фрагменты неизменённых городов
+ * берутся из кэша {@code XmlIO}, как и при повторных сохранениях в работающем процессе.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XmlIOBenchmark {
+
+    /**
+     * Файл с коллекцией для загрузки.
+     */
+    @State(Scope.Benchmark)
+    public static class LoadState {
+        @Param({"10000", "1000000"})
+        public int cities;
+
+        CollectionTarget target;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void create() throws Exception {
+            target = CollectionTarget.create("plain", cities, 42);
+            file = Files.createTempFile("cities-load", ".xml");
+            target.save(file.toString());
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Коллекция для сохранения.
+     */
+    @State(Scope.Benchmark)
+    public static class SaveState {
+        @Param({"10000", "1000000", "10000000"})
+        public int cities;
+
+        CollectionTarget target;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException {
+            target = CollectionTarget.create("plain", cities, 42);
+            file = Files.createTempFile("cities-save", ".xml");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public int loadInto(LoadState state) throws Exception {
+        return state.target.load(state.file.toString());
+    }
+
+    @Benchmark
+    public void saveFrom(SaveState state) throws Exception {
+        state.target.save(state.file.toString());
+    }
+}
@@ -13,7 +13,7 @@ public class AddCommand implements Command {
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         City city = input.readCityForAdd(ctx.cm);
         ctx.cm.add(city);
-        System.out.println("Элемент добавлен. id=" + city.getId());
+        ctx.out.println("Элемент добавлен. id=" + city.getId());
         return true;
     }
 }
\ No newline at end of file
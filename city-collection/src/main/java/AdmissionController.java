@@ -0,0 +1,210 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Допуск команд к выполнению.
+ * <p>
+ * Перед выполнением каждая команда проходит три проверки:
+ * </p>
+ * <ol>
+ *     <li>ограничение частоты для сеанса ({@link TokenBucket}), если оно задано;</li>
+ *     <li>ограничение числа одновременно выполняемых команд: отдельно для тяжёлых
+ *     ({@link Command#heavy()}, обход всей коллекции) и лёгких команд, чтобы тяжёлые
+ *     команды одного клиента не занимали все потоки;</li>
+ *     <li>если свободного места нет, команда ждёт в очереди ограниченной длины
+ *     не дольше заданного времени; при переполнении очереди или истечении времени
+ *     команда отклоняется, а не увеличивает задержку остальных.</li>
+ * </ol>
+ * <p>
+ * Отклонённая команда завершается {@link RejectedExecutionException}. Команды,
+ * вызванные из уже допущенной команды (например, из скрипта), не проверяются повторно.
+ * </p>
+ */
+public class AdmissionController {
+    private final double rate;
+    private final int heavyLimit;
+    private final int lightLimit;
+    private final int maxQueue;
+    private final long maxWaitMs;
+
+    private final Semaphore heavy;
+    private final Semaphore light;
+    private final Map<CommandContext, TokenBucket> buckets = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ThreadLocal<Boolean> admitted = new ThreadLocal<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder rejectedRate = new LongAdder();
+    private final LongAdder rejectedQueue = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Создаёт контроллер.
+     *
+     * @param rate допустимая частота команд одного сеанса в секунду (ёмкость ведра
+     *             равна частоте, но не меньше одной команды, чтобы дробная частота,
+     *             например 0.5, пропускала команду раз в две секунды); 0 — без ограничения
+     * @param heavyLimit число одновременно выполняемых тяжёлых команд
+     * @param lightLimit число одновременно выполняемых лёгких команд
+     * @param maxQueue максимальное число команд, ожидающих выполнения
+     * @param maxWaitMs максимальное время ожидания в очереди, мс
+     */
+    public AdmissionController(double rate, int heavyLimit, int lightLimit, int maxQueue, long maxWaitMs) {
+        if (rate < 0 || heavyLimit <= 0 || lightLimit <= 0 || maxQueue < 0 || maxWaitMs < 0) {
+            throw new IllegalArgumentException("Недопустимые параметры допуска команд.");
+        }
+        this.rate = rate;
+        this.heavyLimit = heavyLimit;
+        this.lightLimit = lightLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitMs = maxWaitMs;
+        this.heavy = new Semaphore(heavyLimit, true);
+        this.light = new Semaphore(lightLimit, true);
+    }
+
+    /**
+     * Создаёт контроллер с ограничениями по умолчанию: без ограничения частоты,
+     * тяжёлых команд — половина процессоров, лёгких — вчетверо больше процессоров,
+     * очередь на 1000 команд и ожидание до 5 секунд.
+     *
+     * @param rate допустимая частота команд одного сеанса в секунду; 0 — без ограничения
+     * @param maxQueue максимальное число команд, ожидающих выполнения
+     * @return контроллер
+     */
+    public static AdmissionController withDefaults(double rate, int maxQueue) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return new AdmissionController(rate, Math.max(1, cpus / 2), cpus * 4, maxQueue, 5000);
+    }
+
+    /**
+     * Допускает команду к выполнению. Полученное разрешение нужно вернуть
+     * через {@link #release(Semaphore)} после выполнения.
+     *
+     * @param command команда
+     * @param ctx контекст сеанса
+     * @return разрешение или {@code null}, если команда вложенная
+     * @throws RejectedExecutionException если команда отклонена
+     */
+    public Semaphore admit(Command command, CommandContext ctx) {
+        if (admitted.get() != null) {
+            return null;
+        }
+        if (rate > 0 && !buckets.computeIfAbsent(ctx, c -> new TokenBucket(rate, Math.max(1, rate))).tryAcquire()) {
+            rejectedRate.increment();
+            throw new RejectedExecutionException("Превышена допустимая частота команд (" + rate + " в секунду).");
+        }
+
+        Semaphore permits = command.heavy() ? heavy : light;
+        if (!permits.tryAcquire()) {
+            waitFor(permits);
+        }
+        admitted.set(Boolean.TRUE);
+        executed.increment();
+        return permits;
+    }
+
+    /**
+     * Возвращает разрешение, полученное в {@link #admit(Command, CommandContext)}.
+     *
+     * @param permit разрешение или {@code null}
+     */
+    public void release(Semaphore permit) {
+        if (permit != null) {
+            admitted.remove();
+            permit.release();
+        }
+    }
+
+    private void waitFor(Semaphore permits) {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            rejectedQueue.increment();
+            throw new RejectedExecutionException("Сервер перегружен: очередь команд заполнена.");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queued.decrementAndGet();
+        }
+        long wait = System.nanoTime() - start;
+        waited.increment();
+        waitNanos.add(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        if (!acquired) {
+            rejectedTimeout.increment();
+            throw new RejectedExecutionException("Сервер перегружен: время ожидания в очереди истекло.");
+        }
+    }
+
+    public long executed() {
+        return executed.sum();
+    }
+
+    public long rejectedByRate() {
+        return rejectedRate.sum();
+    }
+
+    public long rejectedByQueue() {
+        return rejectedQueue.sum();
+    }
+
+    public long rejectedByTimeout() {
+        return rejectedTimeout.sum();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    /**
+     * Возвращает суммарное время ожидания в очереди.
+     *
+     * @return время, нс
+     */
+    public long queueTimeNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * Возвращает число команд, ожидавших в очереди.
+     *
+     * @return число команд
+     */
+    public long queuedTotal() {
+        return waited.sum();
+    }
+
+    /**
+     * Возвращает сведения о допуске команд для команды info.
+     *
+     * @return строка со счётчиками
+     */
+    public String info() {
+        long n = waited.sum();
+        return "Допуск команд: выполнено " + executed.sum()
+                + ", отклонено: по частоте " + rejectedRate.sum()
+                + ", очередь заполнена " + rejectedQueue.sum()
+                + ", истекло ожидание " + rejectedTimeout.sum()
+                + "; в очереди " + queued.get() + " из " + maxQueue
+                + ", ожидали " + n
+                + " (в среднем " + (n == 0 ? 0 : waitNanos.sum() / n / 1_000_000) + " мс"
+                + ", максимум " + maxWaitNanos.get() / 1_000_000 + " мс)"
+                + "; тяжёлых выполняется " + (heavyLimit - heavy.availablePermits()) + " из " + heavyLimit
+                + ", лёгких " + (lightLimit - light.availablePermits()) + " из " + lightLimit;
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновое автосохранение коллекции.
+ * <p>
+ * Сервис периодически сравнивает текущую версию коллекции с сохранённой
+ * ({@link CollectionManager#version()}, {@link CollectionManager#savedVersion()}).
+ * Если изменений нет, проверка ничего не делает. Если изменения есть, снимок коллекции
+ * записывается в файл, когда накопилось заданное число изменений или когда с момента
+ * первого несохранённого изменения прошёл заданный интервал. Так серия изменений
+ * объединяется в одну запись.
+ * </p>
+ *
+ * <p>Запись выполняется в отдельном потоке, поэтому команды не ждут ввода-вывода.
+ * Поток фоновый и не удерживает процесс, поэтому при завершении процесса нужно вызвать
+ * {@link #shutdown(long)}: он дожидается текущей записи и сохраняет оставшиеся изменения.</p>
+ */
+public class AutosaveService {
+    /**
+     * Период проверки версии коллекции в миллисекундах.
+     */
+    private static final long CHECK_PERIOD_MS = 100;
+
+    private final CollectionManager cm;
+    private final XmlIO io;
+    private final long intervalMs;
+    private final long changeThreshold;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Время первого несохранённого изменения (мс) или 0, если изменений нет.
+     */
+    private volatile long dirtySince;
+
+    /**
+     * Длительность последнего сохранения в миллисекундах, -1 если сохранений не было.
+     */
+    private volatile long lastDurationMs = -1;
+
+    /**
+     * Ошибка последнего сохранения или {@code null}.
+     */
+    private volatile String lastError;
+
+    /**
+     * Создаёт сервис автосохранения.
+     *
+     * @param cm менеджер коллекции
+     * @param io объект для записи XML-файла
+     * @param intervalMs максимальное время, которое изменение может оставаться несохранённым
+     * @param changeThreshold количество изменений, после которого сохранение выполняется сразу
+     */
+    public AutosaveService(CollectionManager cm, XmlIO io, long intervalMs, long changeThreshold) {
+        this.cm = cm;
+        this.io = io;
+        this.intervalMs = intervalMs;
+        this.changeThreshold = changeThreshold;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "autosave");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Запускает периодическую проверку изменений.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::check, CHECK_PERIOD_MS, CHECK_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает автосохранение.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Останавливает автосохранение при завершении процесса: новые сохранения не начинаются,
+     * текущее дописывается, затем несохранённые изменения записываются в вызывающем потоке.
+     *
+     * @param timeoutMs сколько ждать завершения текущего сохранения, мс
+     */
+    public void shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("Автосохранение не завершилось за " + timeoutMs + " мс.");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (cm.isLoaded() && cm.isDirty()) {
+            save();
+        }
+    }
+
+    /**
+     * Запрашивает немедленное сохранение в фоновом потоке. После {@link #shutdown(long)}
+     * запрос игнорируется: оставшиеся изменения сохраняет сам {@code shutdown}.
+     */
+    public void saveNow() {
+        try {
+            executor.execute(() -> {
+                if (cm.isDirty()) {
+                    save();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // сервис останавливается
+        }
+    }
+
+    /**
+     * Проверяет, пора ли сохранять коллекцию.
+     */
+    private void check() {
+        if (!cm.isLoaded()) {
+            return;
+        }
+
+        long pending = cm.version() - cm.savedVersion();
+        if (pending == 0) {
+            dirtySince = 0;
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (dirtySince == 0) {
+            dirtySince = now;
+        }
+
+        if (pending >= changeThreshold || now - dirtySince >= intervalMs) {
+            save();
+        }
+    }
+
+    /**
+     * Сохраняет снимок коллекции и обновляет статистику.
+     */
+    private void save() {
+        long started = System.nanoTime();
+        try {
+            long version = cm.version();
+            List<City> snapshot = cm.snapshot();
+            io.save(snapshot);
+            cm.markSaved(version);
+            lastError = null;
+            dirtySince = cm.isDirty() ? System.currentTimeMillis() : 0;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            System.err.println("Ошибка автосохранения: " + e.getMessage());
+        }
+        lastDurationMs = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * Возвращает информацию о работе автосохранения.
+     *
+     * @return строка с длительностью последнего сохранения и отставанием от коллекции
+     */
+    public String info() {
+        long since = dirtySince;
+        long lagMs = since == 0 ? 0 : System.currentTimeMillis() - since;
+        return "Автосохранение: последнее "
+                + (lastDurationMs < 0 ? "не выполнялось" : "заняло " + lastDurationMs + " мс")
+                + ", отставание " + lagMs + " мс (" + (cm.version() - cm.savedVersion()) + " изменений)"
+                + (lastError == null ? "" : ", ошибка: " + lastError);
+    }
+}
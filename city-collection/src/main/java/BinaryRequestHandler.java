@@ -0,0 +1,196 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Выполняет запросы двоичного протокола в сеансе одного клиента.
+ * <p>
+ * Операции с типизированным результатом (show, add, update, remove_*, min_by_climate,
+ * print_field_ascending_governor, постраничный show) работают с {@link CollectionManager} напрямую;
+ * остальные выполняют соответствующую команду, а её текстовый вывод возвращается
+ * клиенту. В обоих случаях действие выполняется через
+ * {@link CommandManager#run(Command, CommandContext, java.util.function.Supplier)},
+ * то есть с той же историей, ожиданием загрузки и блокировками, что и текстовые команды.
+ * </p>
+ *
+ * <p>Сеанс создаётся как сеанс сетевого клиента
+ * ({@link CommandManager#newRemoteSession(PrintStream)}): execute_script и import
+ * из файла в нём недоступны.</p>
+ *
+ * <p>Объект не потокобезопасен: на каждое соединение создаётся свой обработчик.</p>
+ */
+public class BinaryRequestHandler {
+    private final CommandManager manager;
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private final CommandContext session;
+
+    /**
+     * Создаёт обработчик нового сеанса.
+     *
+     * @param manager менеджер команд
+     */
+    public BinaryRequestHandler(CommandManager manager) {
+        this.manager = manager;
+        this.session = manager.newRemoteSession(new PrintStream(captured, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Выполняет запрос.
+     *
+     * @param request запрос
+     * @return ответ; ошибки выполнения возвращаются как неуспешный ответ
+     */
+    public ProtocolResponse handle(ProtocolRequest request) {
+        Command command = manager.command(request.op.commandName());
+        CollectionManager cm = session.cm;
+        captured.reset();
+
+        try {
+            return switch (request.op) {
+                case SHOW -> manager.run(command, session, () -> ProtocolResponse.cities(cm.snapshot()));
+                case SHOW_PAGE -> {
+                    int limit = pageLimit(request);
+                    yield manager.run(command, session, () -> page(cm, request.id, limit));
+                }
+                case SHOW_STREAM -> ProtocolResponse.error("Потоковый вывод доступен только по TCP.");
+                case ADD -> {
+                    CityValidator.validate(request.city);
+                    yield manager.run(command, session, () -> {
+                        City city = request.city;
+                        city.setId(cm.generateId());
+                        city.setCreationDate(LocalDateTime.now());
+                        cm.add(city);
+                        return ProtocolResponse.number(city.getId());
+                    });
+                }
+                case UPDATE -> {
+                    CityValidator.validate(request.city);
+                    yield manager.run(command, session, () -> {
+                        if (!cm.containsId(request.id) && !cm.isLoaded()) {
+                            cm.awaitLoaded();
+                        }
+                        request.city.setCreationDate(null);
+                        return ProtocolResponse.number(cm.update(request.id, request.city) ? 1 : 0);
+                    });
+                }
+                case REMOVE_BY_ID -> manager.run(command, session, () -> {
+                    if (!cm.containsId(request.id) && !cm.isLoaded()) {
+                        cm.awaitLoaded();
+                    }
+                    return ProtocolResponse.number(cm.removeById(request.id) ? 1 : 0);
+                });
+                case REMOVE_LOWER -> {
+                    CityValidator.validate(request.city);
+                    yield manager.run(command, session,
+                            () -> ProtocolResponse.number(cm.removeLower(request.city)));
+                }
+                case REMOVE_ALL_BY_GOVERNOR -> {
+                    if (request.governor != null) {
+                        CityValidator.validate(request.governor);
+                    }
+                    yield manager.run(command, session,
+                            () -> ProtocolResponse.number(cm.removeAllByGovernor(request.governor)));
+                }
+                case MIN_BY_CLIMATE -> manager.run(command, session,
+                        () -> ProtocolResponse.city(manager.cache().get("min_by_climate", cm::minByClimate)));
+                case PRINT_FIELD_ASCENDING_GOVERNOR -> manager.run(command, session, () -> ProtocolResponse.humans(
+                        manager.cache().get("print_field_ascending_governor", cm::governorsAscending)));
+                default -> {
+                    String[] args = request.text == null ? new String[0] : new String[]{request.text};
+                    manager.run(command, session, () -> command.execute(args, null, session));
+                    yield ProtocolResponse.text(captured.toString(StandardCharsets.UTF_8));
+                }
+            };
+        } catch (Exception e) {
+            return ProtocolResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Выполняет запрос и кодирует ответ (см. {@link ProtocolEncoder#encodeResponse(ProtocolResponse)}).
+     * <p>
+     * Закодированный ответ на полный show кэшируется до изменения коллекции
+     * (см. {@link ResultCache}), поэтому повторные запросы не сериализуют коллекцию заново.
+     * </p>
+     *
+     * @param request запрос
+     * @return тело ответа
+     */
+    public byte[] handleEncoded(ProtocolRequest request) {
+        if (request.op != Opcode.SHOW) {
+            return ProtocolEncoder.encodeResponse(handle(request));
+        }
+        Command command = manager.command(request.op.commandName());
+        CollectionManager cm = session.cm;
+        try {
+            return manager.run(command, session, () -> manager.cache().get("show:binary",
+                    () -> ProtocolEncoder.encodeResponse(ProtocolResponse.cities(cm.snapshot()))));
+        } catch (Exception e) {
+            return ProtocolEncoder.encodeResponse(ProtocolResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Выполняет потоковый show: отправляет элементы страницами в порядке возрастания id,
+     * пока они не закончатся.
+     * <p>
+     * Следующая страница читается только после того, как предыдущая записана в поток,
+     * поэтому медленный клиент сдерживает сервер через блокирующую запись, а в памяти
+     * одновременно находится не больше одной страницы. Между страницами коллекция не
+     * блокируется; курсор «после id» гарантирует, что элементы, существовавшие всё
+     * время вывода, будут отправлены ровно один раз.
+     * </p>
+     *
+     * <p>Через {@link CommandManager#run(Command, CommandContext, java.util.function.Supplier)}
+     * выполняется только первая страница: запрос один, поэтому допуск, история, статистика
+     * и событие JFR учитываются один раз. Следующие страницы читаются под блокировкой чтения
+     * ({@link CommandManager#locked(boolean, java.util.function.Supplier)}), как и первая,
+     * чтобы не видеть коллекцию посреди изменяющей команды. Разрешение допуска на время
+     * записи страниц не удерживается: медленный клиент не занимает место тяжёлой команды.</p>
+     *
+     * @param request запрос {@link Opcode#SHOW_STREAM}
+     * @param encoder кодировщик ответов соединения
+     * @throws IOException если произошла ошибка записи
+     */
+    public void stream(ProtocolRequest request, ProtocolEncoder encoder) throws IOException {
+        Command command = manager.command(request.op.commandName());
+        CollectionManager cm = session.cm;
+        int limit;
+        ProtocolResponse page;
+        try {
+            limit = pageLimit(request);
+            page = manager.run(command, session, () -> page(cm, request.id, limit));
+        } catch (Exception e) {
+            encoder.writeResponse(ProtocolResponse.error(e.getMessage()));
+            return;
+        }
+
+        while (true) {
+            encoder.writeResponse(page);
+            if (!page.hasMore()) {
+                return;
+            }
+            long afterId = page.cities.get(page.cities.size() - 1).getId();
+            page = manager.locked(false, () -> page(cm, afterId, limit));
+        }
+    }
+
+    private static ProtocolResponse page(CollectionManager cm, long afterId, int limit) {
+        List<City> cities = cm.pageAfter(afterId, limit);
+        return ProtocolResponse.page(cities, hasMore(cm, cities, limit));
+    }
+
+    private static int pageLimit(ProtocolRequest request) {
+        if (request.limit <= 0 || request.limit > Protocol.MAX_PAGE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + Protocol.MAX_PAGE);
+        }
+        return request.limit;
+    }
+
+    private static boolean hasMore(CollectionManager cm, List<City> page, int limit) {
+        return page.size() == limit && cm.hasAfter(page.get(page.size() - 1).getId());
+    }
+}
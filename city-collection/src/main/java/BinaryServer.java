@@ -0,0 +1,114 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Сетевой режим с двоичным протоколом (см. {@link Protocol}).
+ * <p>
+ * Каждое соединение обслуживается в своём потоке, как в {@link ThreadedServer}.
+ * После рукопожатия сервер читает кадры с запросами и отвечает на них строго
+ * в порядке поступления, поэтому клиент может отправлять несколько запросов,
+ * не дожидаясь ответов. На потоковый show ({@link Opcode#SHOW_STREAM}) сервер
+ * отвечает несколькими кадрами-страницами подряд.
+ * </p>
+ *
+ * <p>Сервер слушает только указанный адрес; запросы выполняются в сеансе сетевого
+ * клиента (см. {@link BinaryRequestHandler}).</p>
+ */
+public class BinaryServer {
+    private final CommandManager manager;
+    private final InetAddress bind;
+    private final int port;
+
+    /**
+     * Создаёт сервер.
+     *
+     * @param manager менеджер команд с общей коллекцией
+     * @param bind адрес, на котором принимаются соединения
+     * @param port TCP-порт
+     */
+    public BinaryServer(CommandManager manager, InetAddress bind, int port) {
+        this.manager = manager;
+        this.bind = bind;
+        this.port = port;
+    }
+
+    /**
+     * Принимает соединения. Метод не возвращает управление,
+     * пока не произойдёт ошибка ввода-вывода.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    public void run() throws IOException {
+        ExecutorService executor = Threads.newPerTaskExecutor("binary-client");
+        try (ServerSocket server = new ServerSocket(port, 0, bind)) {
+            System.out.println("Сервер (двоичный протокол) запущен на " + bind.getHostAddress() + ":" + port + ".");
+            while (true) {
+                Socket socket = server.accept();
+                executor.execute(() -> serve(socket));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Обслуживает одно соединение.
+     *
+     * @param socket сокет клиента
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            if (!Protocol.serverHandshake(in, out)) {
+                return;
+            }
+
+            ProtocolDecoder decoder = new ProtocolDecoder(in);
+            ProtocolEncoder encoder = new ProtocolEncoder(out);
+            BinaryRequestHandler handler = new BinaryRequestHandler(manager);
+
+            ProtocolRequest request;
+            while ((request = readRequest(decoder, encoder)) != null) {
+                if (request.op == Opcode.SHOW_STREAM) {
+                    handler.stream(request, encoder);
+                    continue;
+                }
+                encoder.writeEncoded(handler.handleEncoded(request));
+                if (request.op == Opcode.EXIT) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // клиент отключился или прислал кадр недопустимой длины
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка обработки запроса: " + e);
+        }
+    }
+
+    /**
+     * Читает следующий запрос; на кадры с повреждённым телом отвечает ошибкой
+     * и продолжает чтение.
+     *
+     * @return запрос или {@code null}, если клиент закрыл соединение
+     */
+    private static ProtocolRequest readRequest(ProtocolDecoder decoder, ProtocolEncoder encoder) throws IOException {
+        while (true) {
+            try {
+                return decoder.readRequest();
+            } catch (ProtocolException e) {
+                encoder.writeEncoded(ProtocolEncoder.encodeResponse(
+                        ProtocolResponse.error("Повреждённый запрос: " + e.getMessage())));
+            }
+        }
+    }
+}
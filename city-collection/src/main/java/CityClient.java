@@ -0,0 +1,340 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Клиент коллекции городов для сервера с двоичным протоколом ({@link BinaryServer}).
+ * <p>
+ * Клиент держит пул соединений. Каждый запрос отправляется по наименее загруженному
+ * соединению и не ждёт ответов на предыдущие запросы, поэтому пакетная загрузка
+ * ограничена пропускной способностью, а не задержкой сети. Все методы возвращают
+ * {@link CompletableFuture}; ошибка сервера завершает future исключением
+ * {@link IllegalStateException} с текстом ошибки.
+ * </p>
+ *
+ * <p>Соединение, закрытое сервером или сетью, пересоздаётся при следующем запросе.
+ * История команд ({@link #history()}) ведётся сервером отдельно для каждого соединения.</p>
+ */
+public class CityClient implements AutoCloseable {
+    private final String host;
+    private final int port;
+    private final ClientConnection[] pool;
+    private volatile boolean closed;
+
+    /**
+     * Подключается к серверу.
+     *
+     * @param host адрес сервера
+     * @param port порт сервера
+     * @param poolSize количество соединений
+     * @throws IOException если не удалось установить соединения
+     */
+    public CityClient(String host, int port, int poolSize) throws IOException {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть > 0");
+        }
+        this.host = host;
+        this.port = port;
+        this.pool = new ClientConnection[poolSize];
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                pool[i] = new ClientConnection(host, port);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Подключается к серверу одним соединением.
+     *
+     * @param host адрес сервера
+     * @param port порт сервера
+     * @throws IOException если не удалось установить соединение
+     */
+    public CityClient(String host, int port) throws IOException {
+        this(host, port, 1);
+    }
+
+    public CompletableFuture<String> help() {
+        return text(ProtocolRequest.of(Opcode.HELP));
+    }
+
+    public CompletableFuture<String> info() {
+        return text(ProtocolRequest.of(Opcode.INFO));
+    }
+
+    /**
+     * Возвращает все элементы коллекции.
+     *
+     * @return future со списком городов
+     */
+    public CompletableFuture<List<City>> show() {
+        return call(ProtocolRequest.of(Opcode.SHOW), r -> r.cities);
+    }
+
+    /**
+     * Возвращает страницу элементов в порядке возрастания id.
+     * Чтобы получить следующую страницу, передайте id последнего элемента как {@code afterId}.
+     *
+     * @param afterId id, после которого начинается страница ({@code 0} — с начала)
+     * @param limit размер страницы
+     * @return future со страницей
+     */
+    public CompletableFuture<List<City>> showPage(long afterId, int limit) {
+        return call(ProtocolRequest.page(Opcode.SHOW_PAGE, afterId, limit), r -> r.cities);
+    }
+
+    /**
+     * Получает элементы коллекции потоком страниц в порядке возрастания id.
+     * <p>
+     * Обработчик вызывается для каждой страницы в потоке чтения соединения;
+     * пока он работает, сервер не отправляет следующие страницы.
+     * </p>
+     *
+     * @param afterId id, после которого начинается вывод ({@code 0} — с начала)
+     * @param batchSize размер страницы
+     * @param consumer обработчик страниц
+     * @return future, завершающееся после последней страницы
+     */
+    public CompletableFuture<Void> showStream(long afterId, int batchSize, Consumer<List<City>> consumer) {
+        ClientConnection connection;
+        try {
+            connection = acquire();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return connection.send(ProtocolRequest.page(Opcode.SHOW_STREAM, afterId, batchSize),
+                page -> consumer.accept(page.cities)).thenAccept(last -> {
+            if (!last.ok) {
+                throw new IllegalStateException(last.text);
+            }
+            if (!last.cities.isEmpty()) {
+                consumer.accept(last.cities);
+            }
+        });
+    }
+
+    /**
+     * Добавляет город. Id и дата создания назначаются сервером.
+     *
+     * @param city город
+     * @return future с id нового элемента
+     */
+    public CompletableFuture<Long> add(City city) {
+        return validated(city, () -> call(new ProtocolRequest(Opcode.ADD, 0, city, null, null),
+                r -> r.number));
+    }
+
+    /**
+     * Обновляет элемент с указанным id.
+     *
+     * @param id id элемента
+     * @param city новые значения полей
+     * @return future с {@code true}, если элемент найден и обновлён
+     */
+    public CompletableFuture<Boolean> update(long id, City city) {
+        return validated(city, () -> call(new ProtocolRequest(Opcode.UPDATE, id, city, null, null),
+                r -> r.number != 0));
+    }
+
+    /**
+     * Удаляет элемент по id.
+     *
+     * @param id id элемента
+     * @return future с {@code true}, если элемент был удалён
+     */
+    public CompletableFuture<Boolean> removeById(long id) {
+        return call(new ProtocolRequest(Opcode.REMOVE_BY_ID, id, null, null, null), r -> r.number != 0);
+    }
+
+    public CompletableFuture<String> clear() {
+        return text(ProtocolRequest.of(Opcode.CLEAR));
+    }
+
+    public CompletableFuture<String> save() {
+        return text(ProtocolRequest.of(Opcode.SAVE));
+    }
+
+    /**
+     * Выполняет скрипт на стороне сервера.
+     *
+     * @param fileName имя файла скрипта на сервере
+     * @return future с выводом скрипта
+     */
+    public CompletableFuture<String> executeScript(String fileName) {
+        return text(new ProtocolRequest(Opcode.EXECUTE_SCRIPT, 0, null, null, fileName));
+    }
+
+    /**
+     * Удаляет все элементы, меньшие заданного.
+     *
+     * @param city элемент для сравнения
+     * @return future с количеством удалённых элементов
+     */
+    public CompletableFuture<Integer> removeLower(City city) {
+        return validated(city, () -> call(new ProtocolRequest(Opcode.REMOVE_LOWER, 0, city, null, null),
+                r -> (int) r.number));
+    }
+
+    public CompletableFuture<String> reorder() {
+        return text(ProtocolRequest.of(Opcode.REORDER));
+    }
+
+    public CompletableFuture<String> history() {
+        return text(ProtocolRequest.of(Opcode.HISTORY));
+    }
+
+    /**
+     * Удаляет все элементы с указанным губернатором.
+     *
+     * @param governor губернатор (может быть {@code null})
+     * @return future с количеством удалённых элементов
+     */
+    public CompletableFuture<Integer> removeAllByGovernor(Human governor) {
+        return call(new ProtocolRequest(Opcode.REMOVE_ALL_BY_GOVERNOR, 0, null, governor, null),
+                r -> (int) r.number);
+    }
+
+    /**
+     * Возвращает элемент с минимальным climate.
+     *
+     * @return future с городом или {@code null}, если коллекция пуста
+     */
+    public CompletableFuture<City> minByClimate() {
+        return call(ProtocolRequest.of(Opcode.MIN_BY_CLIMATE), r -> r.city);
+    }
+
+    /**
+     * Возвращает губернаторов всех элементов в порядке возрастания.
+     *
+     * @return future со списком губернаторов
+     */
+    public CompletableFuture<List<Human>> governorsAscending() {
+        return call(ProtocolRequest.of(Opcode.PRINT_FIELD_ASCENDING_GOVERNOR), r -> r.humans);
+    }
+
+    /**
+     * Возвращает количество запросов, ожидающих ответа, по всем соединениям.
+     *
+     * @return количество запросов в конвейере
+     */
+    public int inFlight() {
+        int total = 0;
+        for (ClientConnection connection : pool) {
+            if (connection != null) {
+                total += connection.inFlight();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Проверяет город до отправки, чтобы некорректный элемент не занимал место в конвейере.
+     *
+     * @param city город
+     * @param call отправка запроса
+     * @param <T> тип результата
+     * @return future запроса или future, завершённый {@link IllegalArgumentException}
+     */
+    private static <T> CompletableFuture<T> validated(City city, Supplier<CompletableFuture<T>> call) {
+        try {
+            CityValidator.validate(city);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.get();
+    }
+
+    private CompletableFuture<String> text(ProtocolRequest request) {
+        return call(request, r -> r.text);
+    }
+
+    private <T> CompletableFuture<T> call(ProtocolRequest request, Function<ProtocolResponse, T> result) {
+        ClientConnection connection;
+        try {
+            connection = acquire();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return connection.send(request).thenApply(response -> {
+            if (!response.ok) {
+                throw new IllegalStateException(response.text);
+            }
+            return result.apply(response);
+        });
+    }
+
+    /**
+     * Выбирает соединение с наименьшим числом ожидающих запросов.
+     * Закрытые соединения пересоздаются.
+     *
+     * @return открытое соединение
+     * @throws IOException если клиент закрыт или не удалось переподключиться
+     */
+    private synchronized ClientConnection acquire() throws IOException {
+        if (closed) {
+            throw new IOException("Клиент закрыт.");
+        }
+        ClientConnection best = null;
+        for (int i = 0; i < pool.length; i++) {
+            if (!pool[i].isOpen()) {
+                try {
+                    pool[i] = new ClientConnection(host, port);
+                } catch (IOException e) {
+                    continue;
+                }
+            }
+            if (best == null || pool[i].inFlight() < best.inFlight()) {
+                best = pool[i];
+            }
+        }
+        if (best == null) {
+            throw new IOException("Нет доступных соединений с " + host + ":" + port);
+        }
+        return best;
+    }
+
+    /**
+     * Закрывает все соединения. Незавершённые запросы завершаются исключением.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (ClientConnection connection : pool) {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Ожидает результат и возвращает его, разворачивая исключение выполнения.
+     *
+     * @param future future
+     * @param <T> тип результата
+     * @return результат
+     * @throws IllegalStateException если сервер вернул ошибку
+     * @throws UncheckedIOException если произошла ошибка соединения
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
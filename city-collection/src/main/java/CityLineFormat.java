@@ -0,0 +1,610 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Построчные форматы городов для импорта и генерации наборов: одна запись в строке.
+ * <p>
+ * Записи содержат поля, которые в консоли вводит пользователь; id и дата создания
+ * назначаются при добавлении в коллекцию. Пустое или отсутствующее значение означает
+ * {@code null}, а для обязательных {@code x} и {@code metersAboveSeaLevel} является
+ * ошибкой, как и при вводе в консоли; губернатор задаётся, если указано его имя. Разбор проверяет только
+ * синтаксис и типы значений, ограничения полей проверяет {@link CityValidator}.
+ * </p>
+ *
+ * <ul>
+ *     <li>{@link #CSV} — значения через запятую в порядке {@link #CSV_HEADER}; значение
+ *     с запятой, кавычкой или переводом строки заключается в кавычки, кавычка внутри
+ *     удваивается. Первая строка может быть заголовком.</li>
+ *     <li>{@link #JSONL} — объект JSON в строке:
+ *     {@code {"name":"Omsk","coordinates":{"x":1,"y":2},"area":3.5,"population":4,
+ *     "metersAboveSeaLevel":5,"climate":"STEPPE","government":"IDEOCRACY",
+ *     "standardOfLiving":null,"governor":{"name":"Ivan","height":180.0,"birthday":null}}}.</li>
+ * </ul>
+ */
+public enum CityLineFormat {
+    CSV {
+        @Override
+        public City parse(String line) {
+            String[] v = splitCsv(line);
+            if (v.length != COLUMNS) {
+                throw new IllegalArgumentException("ожидается " + COLUMNS + " значений, получено " + v.length);
+            }
+            City city = new City();
+            city.setName(v[0]);
+            Coordinates coordinates = new Coordinates();
+            coordinates.setX(parseInt("x", v[1]));
+            coordinates.setY(v[2].isEmpty() ? null : parseInt("y", v[2]));
+            city.setCoordinates(coordinates);
+            city.setArea(v[3].isEmpty() ? null : parseDouble("area", v[3]));
+            city.setPopulation(v[4].isEmpty() ? null : parseLong("population", v[4]));
+            if (v[5].isEmpty()) {
+                throw new IllegalArgumentException("metersAboveSeaLevel не должно быть null.");
+            }
+            city.setMetersAboveSeaLevel(parseLong("metersAboveSeaLevel", v[5]));
+            city.setClimate(parseEnum("climate", Climate.class, v[6]));
+            city.setGovernment(parseEnum("government", Government.class, v[7]));
+            city.setStandardOfLiving(parseEnum("standardOfLiving", StandardOfLiving.class, v[8]));
+            if (!v[9].isEmpty()) {
+                Human governor = new Human();
+                governor.setName(v[9]);
+                governor.setHeight(v[10].isEmpty() ? null : (float) parseDouble("governor.height", v[10]));
+                governor.setBirthday(v[11].isEmpty() ? null : parseDateTime("governor.birthday", v[11]));
+                city.setGovernor(governor);
+            }
+            return city;
+        }
+
+        @Override
+        public boolean isHeader(String line) {
+            return line.equals(CSV_HEADER);
+        }
+
+        @Override
+        void format(City city, StringBuilder sb) {
+            csv(sb, city.getName()).append(',');
+            sb.append(city.getCoordinates().getX()).append(',');
+            sb.append(orEmpty(city.getCoordinates().getY())).append(',');
+            sb.append(orEmpty(city.getArea())).append(',');
+            sb.append(orEmpty(city.getPopulation())).append(',');
+            sb.append(city.getMetersAboveSeaLevel()).append(',');
+            sb.append(orEmpty(city.getClimate())).append(',');
+            sb.append(orEmpty(city.getGovernment())).append(',');
+            sb.append(orEmpty(city.getStandardOfLiving())).append(',');
+            Human governor = city.getGovernor();
+            if (governor != null) {
+                csv(sb, governor.getName()).append(',');
+                sb.append(orEmpty(governor.getHeight())).append(',');
+                if (governor.getBirthday() != null) {
+                    DateTimeCodec.format(governor.getBirthday(), sb);
+                }
+            } else {
+                sb.append(",,");
+            }
+        }
+
+        @Override
+        String header() {
+            return CSV_HEADER;
+        }
+    },
+
+    JSONL {
+        @Override
+        public City parse(String line) {
+            Map<String, Object> o = new Json(line).document();
+            City city = new City();
+            city.setName(string(o, "name"));
+            Map<String, Object> c = object(o, "coordinates");
+            if (c == null) {
+                throw new IllegalArgumentException("coordinates не должно быть null.");
+            }
+            Coordinates coordinates = new Coordinates();
+            BigDecimal x = number(c, "x");
+            if (x == null) {
+                throw new IllegalArgumentException("x не должно быть null.");
+            }
+            coordinates.setX(exact("x", x).intValueExact());
+            BigDecimal y = number(c, "y");
+            coordinates.setY(y == null ? null : exact("y", y).intValueExact());
+            city.setCoordinates(coordinates);
+            BigDecimal area = number(o, "area");
+            city.setArea(area == null ? null : area.doubleValue());
+            BigDecimal population = number(o, "population");
+            city.setPopulation(population == null ? null : exact("population", population).longValueExact());
+            BigDecimal masl = number(o, "metersAboveSeaLevel");
+            if (masl == null) {
+                throw new IllegalArgumentException("metersAboveSeaLevel не должно быть null.");
+            }
+            city.setMetersAboveSeaLevel(exact("metersAboveSeaLevel", masl).longValueExact());
+            city.setClimate(parseEnum("climate", Climate.class, orEmpty(string(o, "climate"))));
+            city.setGovernment(parseEnum("government", Government.class, orEmpty(string(o, "government"))));
+            city.setStandardOfLiving(parseEnum("standardOfLiving", StandardOfLiving.class,
+                    orEmpty(string(o, "standardOfLiving"))));
+            Map<String, Object> g = object(o, "governor");
+            if (g != null) {
+                Human governor = new Human();
+                governor.setName(string(g, "name"));
+                BigDecimal height = number(g, "height");
+                governor.setHeight(height == null ? null : height.floatValue());
+                String birthday = string(g, "birthday");
+                governor.setBirthday(birthday == null ? null : parseDateTime("governor.birthday", birthday));
+                city.setGovernor(governor);
+            }
+            return city;
+        }
+
+        @Override
+        void format(City city, StringBuilder sb) {
+            sb.append("{\"name\":");
+            json(sb, city.getName());
+            sb.append(",\"coordinates\":{\"x\":").append(city.getCoordinates().getX())
+                    .append(",\"y\":").append(city.getCoordinates().getY())
+                    .append("},\"area\":").append(city.getArea())
+                    .append(",\"population\":").append(city.getPopulation())
+                    .append(",\"metersAboveSeaLevel\":").append(city.getMetersAboveSeaLevel())
+                    .append(",\"climate\":");
+            json(sb, city.getClimate());
+            sb.append(",\"government\":");
+            json(sb, city.getGovernment());
+            sb.append(",\"standardOfLiving\":");
+            json(sb, city.getStandardOfLiving());
+            sb.append(",\"governor\":");
+            Human governor = city.getGovernor();
+            if (governor == null) {
+                sb.append("null");
+            } else {
+                sb.append("{\"name\":");
+                json(sb, governor.getName());
+                sb.append(",\"height\":").append(governor.getHeight()).append(",\"birthday\":");
+                json(sb, governor.getBirthday() == null ? null : DateTimeCodec.format(governor.getBirthday()));
+                sb.append('}');
+            }
+            sb.append('}');
+        }
+    };
+
+    /**
+     * Заголовок CSV: имена столбцов по порядку.
+     */
+    public static final String CSV_HEADER = "name,x,y,area,population,metersAboveSeaLevel,climate,government,"
+            + "standardOfLiving,governorName,governorHeight,governorBirthday";
+
+    private static final int COLUMNS = 12;
+
+    /**
+     * Разбирает строку с одной записью.
+     *
+     * @param line строка без перевода строки
+     * @return город без id и даты создания
+     * @throws IllegalArgumentException если строка не соответствует формату
+     * @throws java.time.DateTimeException если дата рождения губернатора некорректна
+     */
+    public abstract City parse(String line);
+
+    /**
+     * Проверяет, является ли строка заголовком, который нужно пропустить.
+     *
+     * @param line строка
+     * @return {@code true} для заголовка
+     */
+    public boolean isHeader(String line) {
+        return false;
+    }
+
+    /**
+     * Добавляет запись о городе (без перевода строки).
+     */
+    abstract void format(City city, StringBuilder sb);
+
+    /**
+     * Возвращает первую строку файла или {@code null}, если её нет.
+     */
+    String header() {
+        return null;
+    }
+
+    /**
+     * Определяет формат по имени ({@code csv}, {@code jsonl}).
+     *
+     * @param name имя формата
+     * @return формат
+     * @throws IllegalArgumentException если формат неизвестен
+     */
+    public static CityLineFormat of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "csv" -> CSV;
+            case "jsonl", "ndjson" -> JSONL;
+            default -> throw new IllegalArgumentException("неизвестный формат: " + name);
+        };
+    }
+
+    /**
+     * Определяет формат по расширению файла.
+     *
+     * @param fileName имя файла
+     * @return формат или {@code null}, если расширение не соответствует ни одному формату
+     */
+    public static CityLineFormat forFile(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        try {
+            return dot < 0 ? null : of(fileName.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Открывает последовательную запись городов в этом формате (UTF-8).
+     *
+     * @param out поток вывода; закрывается вместе с записью
+     * @return запись городов
+     * @throws IOException если не удалось записать заголовок
+     */
+    public CityWriter openWriter(OutputStream out) throws IOException {
+        BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        if (header() != null) {
+            w.write(header());
+            w.newLine();
+        }
+        StringBuilder sb = new StringBuilder(256);
+        return new CityWriter() {
+            @Override
+            public void write(City city) throws IOException {
+                sb.setLength(0);
+                format(city, sb);
+                w.append(sb).append('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                w.close();
+            }
+        };
+    }
+
+    private static String[] splitCsv(String line) {
+        String[] values = new String[COLUMNS];
+        int count = 0;
+        int i = 0;
+        int n = line.length();
+        StringBuilder quoted = null;
+        while (true) {
+            String value;
+            if (i < n && line.charAt(i) == '"') {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        throw new IllegalArgumentException("незакрытая кавычка");
+                    }
+                    char ch = line.charAt(i++);
+                    if (ch == '"') {
+                        if (i < n && line.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(ch);
+                    }
+                }
+                if (i < n && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("после закрывающей кавычки ожидается запятая");
+                }
+                value = quoted.toString();
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? n : comma;
+                value = line.substring(i, end).trim();
+                i = end;
+            }
+            if (count == values.length) {
+                String[] grown = new String[count + 1];
+                System.arraycopy(values, 0, grown, 0, count);
+                values = grown;
+            }
+            values[count++] = value;
+            if (i >= n) {
+                break;
+            }
+            i++;
+        }
+        if (count < values.length) {
+            String[] exact = new String[count];
+            System.arraycopy(values, 0, exact, 0, count);
+            return exact;
+        }
+        return values;
+    }
+
+    private static StringBuilder csv(StringBuilder sb, String value) {
+        boolean quote = !value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ');
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            return sb.append(value);
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                sb.append('"');
+            }
+            sb.append(ch);
+        }
+        return sb.append('"');
+    }
+
+    private static void json(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        String s = value.toString();
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static Object orEmpty(Object value) {
+        return value == null ? "" : value;
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static int parseInt(String field, String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": нужно целое число.");
+        }
+    }
+
+    private static long parseLong(String field, String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": нужно целое число (long).");
+        }
+    }
+
+    private static double parseDouble(String field, String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": нужно число.");
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String field, String s) {
+        try {
+            return DateTimeCodec.parse(s);
+        } catch (java.time.DateTimeException e) {
+            throw new IllegalArgumentException(field + ": нужна дата в формате YYYY-MM-DDTHH:MM:SS.");
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(String field, Class<E> enumClass, String s) {
+        if (s.isEmpty()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumClass, s);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + ": нужно одно из значений списка.");
+        }
+    }
+
+    private static BigDecimal exact(String field, BigDecimal value) {
+        if (value.stripTrailingZeros().scale() > 0) {
+            throw new IllegalArgumentException(field + ": нужно целое число.");
+        }
+        return value;
+    }
+
+    private static String string(Map<String, Object> o, String key) {
+        Object value = o.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(key + ": ожидается строка.");
+        }
+        return (String) value;
+    }
+
+    private static BigDecimal number(Map<String, Object> o, String key) {
+        Object value = o.get(key);
+        if (value != null && !(value instanceof BigDecimal)) {
+            throw new IllegalArgumentException(key + ": ожидается число.");
+        }
+        return (BigDecimal) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Map<String, Object> o, String key) {
+        Object value = o.get(key);
+        if (value != null && !(value instanceof Map)) {
+            throw new IllegalArgumentException(key + ": ожидается объект.");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Разбор одного объекта JSON. Значения: строки, числа ({@link BigDecimal}),
+     * вложенные объекты, {@code true}, {@code false} и {@code null}; массивы не поддерживаются.
+     */
+    private static final class Json {
+        private final String s;
+        private int i;
+
+        Json(String s) {
+            this.s = s;
+        }
+
+        Map<String, Object> document() {
+            skipSpaces();
+            Map<String, Object> o = object();
+            skipSpaces();
+            if (i < s.length()) {
+                throw error("лишние символы после объекта");
+            }
+            return o;
+        }
+
+        private Map<String, Object> object() {
+            expect('{');
+            Map<String, Object> o = new HashMap<>();
+            skipSpaces();
+            if (peek() == '}') {
+                i++;
+                return o;
+            }
+            while (true) {
+                skipSpaces();
+                String key = string();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                o.put(key, value());
+                skipSpaces();
+                char ch = next();
+                if (ch == '}') {
+                    return o;
+                }
+                if (ch != ',') {
+                    throw error("ожидается ',' или '}'");
+                }
+            }
+        }
+
+        private Object value() {
+            char ch = peek();
+            if (ch == '{') {
+                return object();
+            }
+            if (ch == '"') {
+                return string();
+            }
+            if (s.startsWith("null", i)) {
+                i += 4;
+                return null;
+            }
+            if (s.startsWith("true", i)) {
+                i += 4;
+                return Boolean.TRUE;
+            }
+            if (s.startsWith("false", i)) {
+                i += 5;
+                return Boolean.FALSE;
+            }
+            int start = i;
+            while (i < s.length() && "+-0123456789.eE".indexOf(s.charAt(i)) >= 0) {
+                i++;
+            }
+            try {
+                return new BigDecimal(s.substring(start, i));
+            } catch (NumberFormatException e) {
+                throw error("некорректное значение");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = null;
+            int start = i;
+            while (true) {
+                char ch = next();
+                if (ch == '"') {
+                    return sb == null ? s.substring(start, i - 1) : sb.toString();
+                }
+                if (ch == '\\') {
+                    if (sb == null) {
+                        sb = new StringBuilder().append(s, start, i - 1);
+                    }
+                    char esc = next();
+                    switch (esc) {
+                        case '"', '\\', '/' -> sb.append(esc);
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'u' -> {
+                            if (i + 4 > s.length()) {
+                                throw error("некорректная escape-последовательность");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                            } catch (NumberFormatException e) {
+                                throw error("некорректная escape-последовательность");
+                            }
+                            i += 4;
+                        }
+                        default -> throw error("некорректная escape-последовательность");
+                    }
+                } else if (sb != null) {
+                    sb.append(ch);
+                }
+            }
+        }
+
+        private void skipSpaces() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+        }
+
+        private char peek() {
+            if (i >= s.length()) {
+                throw error("неожиданный конец строки");
+            }
+            return s.charAt(i);
+        }
+
+        private char next() {
+            char ch = peek();
+            i++;
+            return ch;
+        }
+
+        private void expect(char ch) {
+            if (next() != ch) {
+                throw error("ожидается '" + ch + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON, позиция " + (i + 1) + ": " + message);
+        }
+    }
+}
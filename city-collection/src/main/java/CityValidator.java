@@ -0,0 +1,64 @@
+/**
+ * Проверка ограничений полей города, полученного не через {@link InputManager}
+ * (например, по двоичному протоколу).
+ */
+public final class CityValidator {
+
+    private CityValidator() {
+    }
+
+    /**
+     * Проверяет поля города.
+     *
+     * @param city город
+     * @throws IllegalArgumentException если какое-либо поле нарушает ограничения
+     */
+    public static void validate(City city) {
+        if (city == null) {
+            throw new IllegalArgumentException("Не передан элемент.");
+        }
+        if (city.getName() == null || city.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("name не должно быть пустым.");
+        }
+        Coordinates c = city.getCoordinates();
+        if (c == null) {
+            throw new IllegalArgumentException("coordinates не должно быть null.");
+        }
+        if (c.getX() <= -288) {
+            throw new IllegalArgumentException("x должен быть > -288");
+        }
+        if (c.getY() == null || c.getY() > 882) {
+            throw new IllegalArgumentException("y должен быть <= 882");
+        }
+        if (city.getArea() == null || !(city.getArea() > 0)) {
+            throw new IllegalArgumentException("area должен быть > 0");
+        }
+        if (city.getPopulation() == null || city.getPopulation() <= 0) {
+            throw new IllegalArgumentException("population должен быть > 0");
+        }
+        if (city.getClimate() == null) {
+            throw new IllegalArgumentException("climate не должно быть null.");
+        }
+        if (city.getGovernment() == null) {
+            throw new IllegalArgumentException("government не должно быть null.");
+        }
+        if (city.getGovernor() != null) {
+            validate(city.getGovernor());
+        }
+    }
+
+    /**
+     * Проверяет поля человека.
+     *
+     * @param human человек
+     * @throws IllegalArgumentException если какое-либо поле нарушает ограничения
+     */
+    public static void validate(Human human) {
+        if (human.getName() == null || human.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("governor.name не должно быть пустым.");
+        }
+        if (human.getHeight() == null || !(human.getHeight() > 0)) {
+            throw new IllegalArgumentException("height должен быть > 0");
+        }
+    }
+}
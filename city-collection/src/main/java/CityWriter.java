@@ -0,0 +1,19 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательная запись городов в файл одного из форматов хранения.
+ * <p>
+ * Города записываются по одному и не накапливаются в памяти; документ
+ * завершается при закрытии.
+ * </p>
+ */
+public interface CityWriter extends Closeable {
+    /**
+     * Записывает очередной город.
+     *
+     * @param city город
+     * @throws IOException если произошла ошибка записи
+     */
+    void write(City city) throws IOException;
+}
@@ -12,7 +12,7 @@ public class ClearCommand implements Command {
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         ctx.cm.clear();
-        System.out.println("Коллекция очищена.");
+        ctx.out.println("Коллекция очищена.");
         return true;
     }
 }
\ No newline at end of file
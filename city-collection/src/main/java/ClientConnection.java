@@ -0,0 +1,180 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Одно соединение клиента с {@link BinaryServer}.
+ * <p>
+ * Запросы отправляются сразу, без ожидания ответов на предыдущие (конвейерная обработка).
+ * Сервер отвечает в порядке поступления запросов, поэтому фоновый поток чтения
+ * сопоставляет каждый ответ с самым старым ожидающим future. Страницы потокового
+ * ответа, за которыми следуют другие, передаются обработчику запроса, а future
+ * завершается последней страницей.
+ * </p>
+ */
+public class ClientConnection implements AutoCloseable {
+    private final Socket socket;
+    private final ProtocolEncoder encoder;
+    private final ProtocolDecoder decoder;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * Устанавливает соединение и выполняет рукопожатие.
+     *
+     * @param host адрес сервера
+     * @param port порт сервера
+     * @throws IOException если не удалось подключиться или версия протокола не поддерживается
+     */
+    public ClientConnection(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        try {
+            Protocol.clientHandshake(out, in);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.encoder = new ProtocolEncoder(out);
+        this.decoder = new ProtocolDecoder(in);
+
+        Thread reader = new Thread(this::readLoop, "client-reader-" + socket.getLocalPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Запрос, ожидающий ответа.
+     */
+    private static final class Pending {
+        final CompletableFuture<ProtocolResponse> future = new CompletableFuture<>();
+        final Consumer<ProtocolResponse> pages;
+        RuntimeException pageError;
+
+        Pending(Consumer<ProtocolResponse> pages) {
+            this.pages = pages;
+        }
+    }
+
+    /**
+     * Отправляет запрос.
+     *
+     * @param request запрос
+     * @return future с ответом сервера
+     */
+    public CompletableFuture<ProtocolResponse> send(ProtocolRequest request) {
+        return send(request, null);
+    }
+
+    /**
+     * Отправляет запрос, ответ на который может состоять из нескольких страниц.
+     * <p>
+     * Обработчик страниц вызывается в потоке чтения соединения для каждой страницы,
+     * кроме последней; пока он работает, следующие ответы не читаются, поэтому
+     * медленный обработчик сдерживает сервер.
+     * </p>
+     *
+     * @param request запрос
+     * @param pages обработчик промежуточных страниц или {@code null}
+     * @return future с последним кадром ответа
+     */
+    public CompletableFuture<ProtocolResponse> send(ProtocolRequest request, Consumer<ProtocolResponse> pages) {
+        Pending entry = new Pending(pages);
+        CompletableFuture<ProtocolResponse> future = entry.future;
+        synchronized (encoder) {
+            if (closed) {
+                future.completeExceptionally(new IOException("Соединение закрыто."));
+                return future;
+            }
+            pending.add(entry);
+            try {
+                encoder.writeRequest(request);
+            } catch (IOException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                // кадр не был отправлен, ответа на него не будет
+                pending.remove(entry);
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+        if (closed && pending.remove(entry)) {
+            // соединение закрылось между проверкой и добавлением в очередь
+            future.completeExceptionally(new IOException("Соединение закрыто."));
+        }
+        return future;
+    }
+
+    /**
+     * Возвращает количество запросов, ожидающих ответа.
+     *
+     * @return количество запросов в конвейере
+     */
+    public int inFlight() {
+        return pending.size();
+    }
+
+    /**
+     * Проверяет, открыто ли соединение.
+     *
+     * @return {@code true}, если соединение открыто
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                ProtocolResponse response = decoder.readResponse();
+                Pending head = pending.peek();
+                if (head != null && head.pages != null && response.hasMore()) {
+                    if (head.pageError == null) {
+                        try {
+                            head.pages.accept(response);
+                        } catch (RuntimeException e) {
+                            // остаток ответа нужно дочитать, чтобы не нарушить порядок кадров
+                            head.pageError = e;
+                        }
+                    }
+                    continue;
+                }
+                Pending entry = pending.poll();
+                if (entry != null && entry.pageError != null) {
+                    entry.future.completeExceptionally(entry.pageError);
+                } else if (entry != null) {
+                    entry.future.complete(response);
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // соединение уже закрыто
+        }
+        Pending entry;
+        while ((entry = pending.poll()) != null) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        fail(new IOException("Соединение закрыто."));
+    }
+}
@@ -1,7 +1,18 @@
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Управляет коллекцией объектов {@link City}.
@@ -11,7 +22,27 @@ import java.util.Vector;
  * операций над коллекцией.
  * </p>
  *
- * <p>Коллекция хранится в виде {@code Vector<City>}.</p>
+ * <p>Коллекция хранится в виде {@code Vector<City>}. Дополнительно поддерживается
+ * упорядоченный индекс по идентификатору, чтобы поиск по id не требовал обхода всей
+ * коллекции, а постраничный вывод ({@link #pageAfter(long, int)}) не требовал сортировки.</p>
+ *
+ * <p>Коллекция может загружаться в фоне (см. {@link XmlIO#loadAsync(CollectionManager)}).
+ * Пока загрузка идёт, доступны только уже загруженные элементы; команды, которым нужна
+ * вся коллекция, должны дождаться её окончания через {@link #awaitLoaded()}.</p>
+ *
+ * <p>Каждое изменение коллекции увеличивает счётчик версий ({@link #version()}).
+ * Версия, соответствующая содержимому файла, хранится отдельно
+ * ({@link #savedVersion()}), что позволяет определять несохранённые изменения.
+ * Кроме того, о каждом изменении сообщается {@link MutationListener} (см. {@link ReplicationLog}).</p>
+ *
+ * <p>В пакетном режиме ({@link #beginBatch()}) update и remove_by_id меняют только индекс
+ * по id, а не {@code Vector}, поиск позиции в котором требует обхода; {@code Vector}
+ * приводится в соответствие с индексом одним проходом перед первой операцией, которой
+ * он нужен, и в {@link #endBatch()}. Удалённый и снова добавленный элемент сразу
+ * добавляется в конец {@code Vector}, как и вне пакетного режима, а его прежняя позиция
+ * убирается при согласовании. Согласование выполняет только поток, включивший
+ * пакетный режим; {@link #snapshot()} в других потоках (например, в автосохранении)
+ * строит копию по индексу, не меняя ни {@code Vector}, ни состояние пакетного режима.</p>
  */
 public class CollectionManager {
     /**
@@ -19,6 +50,21 @@ public class CollectionManager {
      */
     private final Vector<City> cities = new Vector<>();
 
+    /**
+     * Индекс элементов коллекции по идентификатору, упорядоченный по возрастанию id.
+     */
+    private final NavigableMap<Long, City> byId = new ConcurrentSkipListMap<>();
+
+    /**
+     * Количество элементов; читается без блокировок (например, для метрик).
+     */
+    private final AtomicInteger elementCount = new AtomicInteger();
+
+    /**
+     * Оценка памяти, занимаемой элементами коллекции.
+     */
+    private final MemoryAccounting memory = new MemoryAccounting();
+
     /**
      * Время инициализации менеджера коллекции.
      */
@@ -29,40 +75,452 @@ public class CollectionManager {
      */
     private long nextId = 1;
 
+    /**
+     * Future текущей загрузки коллекции; завершено, если загрузка не идёт.
+     */
+    private volatile CompletableFuture<?> loading = CompletableFuture.completedFuture(null);
+
+    /**
+     * Количество элементов, которое должно быть загружено.
+     */
+    private volatile int loadTotal;
+
+    /**
+     * Количество уже загруженных элементов.
+     */
+    private volatile int loadedCount;
+
+    /**
+     * Счётчик изменений коллекции.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Версия коллекции, совпадающая с содержимым файла.
+     */
+    private volatile long savedVersion;
+
+    /**
+     * Получатель изменений коллекции или {@code null}.
+     */
+    private volatile MutationListener listener;
+
+    /**
+     * В пакетном режиме — элементы {@code Vector}, которые нужно заменить текущими
+     * элементами индекса или удалить (по id); вне пакетного режима {@code null}.
+     */
+    private volatile Map<Long, City> batchStale;
+
+    /**
+     * В пакетном режиме — удалённые и снова добавленные элементы по id (последнее
+     * добавление); прочие элементы {@code Vector} с этим id убираются при согласовании.
+     */
+    private volatile Map<Long, City> batchReadded;
+
+    /**
+     * Поток, включивший пакетный режим, или {@code null}.
+     */
+    private volatile Thread batchOwner;
+
+    /**
+     * Количество изменений каждого типа.
+     */
+    private final LongAdder[] mutationCounts = new LongAdder[Mutation.Type.values().length];
+
+    {
+        for (int i = 0; i < mutationCounts.length; i++) {
+            mutationCounts[i] = new LongAdder();
+        }
+    }
+
     /**
      * Возвращает все элементы коллекции.
      *
      * @return коллекция городов
      */
     public Vector<City> getAll() {
+        syncBatch();
         return cities;
     }
 
     /**
-     * Возвращает количество элементов в коллекции.
+     * Возвращает копию коллекции, сделанную атомарно относительно изменений {@code Vector}.
+     * <p>
+     * Если пакетный режим включён другим потоком, элементы {@code Vector} заменяются
+     * текущими элементами индекса по id (удалённые и прежние позиции снова добавленных
+     * пропускаются), а сам {@code Vector} не меняется.
+     * </p>
+     *
+     * @return снимок коллекции
+     */
+    public List<City> snapshot() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        List<City> copy;
+        if (batchStale != null && batchOwner != Thread.currentThread()) {
+            copy = resolvedCopy();
+        } else {
+            syncBatch();
+            copy = new ArrayList<>(cities);
+        }
+        event.finish("snapshot", copy.size(), 0, 1);
+        return copy;
+    }
+
+    /**
+     * Копирует {@code Vector}, заменяя элементы текущими элементами индекса.
+     *
+     * @return копия коллекции в том порядке, который она получит после согласования
+     */
+    private List<City> resolvedCopy() {
+        Map<Long, City> stale = batchStale;
+        Map<Long, City> readded = batchReadded;
+        List<City> copy = new ArrayList<>(cities.size());
+        synchronized (cities) {
+            for (int i = 0; i < cities.size(); i++) {
+                City city = stale == null || readded == null ? cities.get(i) : resolve(cities.get(i), stale, readded);
+                if (city != null) {
+                    copy.add(city);
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Определяет, чем станет элемент {@code Vector} после согласования.
+     *
+     * @param city элемент {@code Vector}
+     * @param stale устаревшие элементы пакетного режима
+     * @param readded удалённые и снова добавленные элементы
+     * @return текущий элемент индекса или {@code null}, если элемент нужно убрать
+     */
+    private City resolve(City city, Map<Long, City> stale, Map<Long, City> readded) {
+        if (!stale.containsKey(city.getId())) {
+            return city;
+        }
+        City last = readded.get(city.getId());
+        if (last != null && last != city) {
+            return null;
+        }
+        return byId.get(city.getId());
+    }
+
+    /**
+     * Возвращает страницу элементов в порядке возрастания id, начиная с первого
+     * элемента, id которого больше {@code afterId}.
+     * <p>
+     * Курсор «после id» не сдвигается при добавлении и удалении других элементов,
+     * поэтому последовательные страницы не пропускают и не повторяют элементы,
+     * существовавшие всё время обхода. Метод не требует блокировки коллекции:
+     * индекс допускает чтение одновременно с изменениями.
+     * </p>
+     *
+     * @param afterId id, после которого начинается страница ({@code 0} — с начала)
+     * @param limit максимальное количество элементов
+     * @return элементы страницы
+     */
+    public List<City> pageAfter(long afterId, int limit) {
+        List<City> page = new ArrayList<>(Math.min(limit, 1024));
+        for (City city : byId.tailMap(afterId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(city);
+        }
+        return page;
+    }
+
+    /**
+     * Проверяет, есть ли элементы с id больше указанного.
+     *
+     * @param afterId id
+     * @return {@code true}, если такие элементы есть
+     */
+    public boolean hasAfter(long afterId) {
+        return byId.higherKey(afterId) != null;
+    }
+
+    /**
+     * Возвращает текущую версию коллекции.
+     *
+     * @return количество изменений коллекции с момента создания
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Возвращает версию коллекции, которая была последней записана в файл.
+     *
+     * @return сохранённая версия
+     */
+    public long savedVersion() {
+        return savedVersion;
+    }
+
+    /**
+     * Отмечает, что указанная версия коллекции записана в файл.
+     *
+     * @param savedVersion сохранённая версия
+     */
+    public void markSaved(long savedVersion) {
+        if (savedVersion > this.savedVersion) {
+            this.savedVersion = savedVersion;
+        }
+    }
+
+    /**
+     * Проверяет, есть ли в коллекции несохранённые изменения.
+     *
+     * @return {@code true}, если коллекция изменялась после последнего сохранения
+     */
+    public boolean isDirty() {
+        return version.get() != savedVersion;
+    }
+
+    /**
+     * Возвращает количество элементов в коллекции. Не требует блокировок.
      *
      * @return размер коллекции
      */
     public int size() {
-        return cities.size();
+        return elementCount.get();
+    }
+
+    /**
+     * Возвращает количество изменений коллекции указанного типа с момента создания.
+     *
+     * @param type тип изменения
+     * @return количество изменений
+     */
+    public long mutationCount(Mutation.Type type) {
+        return mutationCounts[type.ordinal()].sum();
+    }
+
+    /**
+     * Возвращает оценку памяти, занимаемой элементами коллекции.
+     *
+     * @return учёт памяти
+     */
+    public MemoryAccounting memory() {
+        return memory;
+    }
+
+    /**
+     * Оценивает память индексов коллекции: массива {@code Vector} и индекса по id.
+     *
+     * @return байты
+     */
+    public long indexBytes() {
+        return MemoryAccounting.array((long) size() * MemoryAccounting.REF) + size() * MemoryAccounting.SKIP_LIST_ENTRY;
     }
 
     /**
      * Возвращает информацию о коллекции.
      *
-     * @return строка с информацией о типе коллекции, времени инициализации и количестве элементов
+     * @return строка с информацией о типе коллекции, времени инициализации, количестве элементов
+     * и оценке занимаемой памяти
      */
     public String info() {
-        return "Тип коллекции: " + cities.getClass().getName()
+        long index = indexBytes();
+        String result = "Тип коллекции: " + storageType()
                 + "\nВремя инициализации: " + initTime
-                + "\nКоличество элементов: " + cities.size();
+                + "\nКоличество элементов: " + size()
+                + "\nПамять (оценка): " + MemoryAccounting.format(memory.total() + index)
+                + "\n  названия: " + MemoryAccounting.format(memory.names())
+                + "\n  губернаторы: " + MemoryAccounting.format(memory.governors())
+                + "\n  упакованные числа: " + MemoryAccounting.format(memory.numbers())
+                + "\n  даты: " + MemoryAccounting.format(memory.dates())
+                + "\n  объекты City и Coordinates: " + MemoryAccounting.format(memory.shells())
+                + "\n  индексы: " + MemoryAccounting.format(index);
+        if (!isLoaded()) {
+            result += "\nЗагрузка: " + loadedCount + " из " + loadTotal;
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает описание способа хранения коллекции для команды info.
+     *
+     * @return описание хранилища
+     */
+    protected String storageType() {
+        return cities.getClass().getName();
+    }
+
+    /**
+     * Возвращает количество секций, на которые разделена коллекция.
+     *
+     * @return количество секций
+     */
+    public int partitionCount() {
+        return 1;
+    }
+
+    /**
+     * Проверяет, допускает ли коллекция одновременные изменения из нескольких потоков.
+     * <p>
+     * Если нет, изменяющие команды выполняются под блокировкой записи {@link CommandManager};
+     * иначе коллекция сама отвечает за согласованность своих изменений.
+     * </p>
+     *
+     * @return {@code true}, если изменения можно выполнять одновременно
+     */
+    public boolean supportsConcurrentWrites() {
+        return false;
     }
 
     /**
      * Очищает коллекцию.
      */
     public void clear() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
+        int before = cities.size();
         cities.clear();
+        byId.clear();
+        elementCount.set(0);
+        memory.reset();
+        changed(Mutation.of(Mutation.Type.CLEAR));
+        event.finish("clear", before, before, 1);
+    }
+
+    /**
+     * Включает пакетный режим (см. описание класса). Вызывающий должен удерживать
+     * блокировку {@link CommandManager} до {@link #endBatch()}. Режим принадлежит
+     * потоку, который его включил: с секциями ({@link #supportsConcurrentWrites()})
+     * скрипты разных сеансов выполняются одновременно, и скрипт другого сеанса
+     * в это время выполняется как обычно.
+     *
+     * @return {@code true}, если режим включён этим вызовом, {@code false}, если он уже был включён
+     */
+    public synchronized boolean beginBatch() {
+        if (batchStale != null) {
+            return false;
+        }
+        batchOwner = Thread.currentThread();
+        batchReadded = new ConcurrentHashMap<>();
+        batchStale = new ConcurrentHashMap<>();
+        return true;
+    }
+
+    /**
+     * Согласует {@code Vector} с индексом и выключает пакетный режим.
+     */
+    public void endBatch() {
+        syncBatch();
+        synchronized (this) {
+            batchStale = null;
+            batchReadded = null;
+            batchOwner = null;
+        }
+    }
+
+    /**
+     * Проверяет, включён ли пакетный режим текущим потоком.
+     *
+     * @return {@code true}, если пакетный режим включил текущий поток
+     */
+    public boolean inBatch() {
+        return batchStale != null && batchOwner == Thread.currentThread();
+    }
+
+    /**
+     * Согласует {@code Vector} с индексом по id после изменений в пакетном режиме:
+     * устаревшие элементы заменяются на месте текущими, удалённые и прежние позиции
+     * снова добавленных убираются. В других потоках ничего не делает:
+     * состояние пакетного режима принадлежит потоку, который его включил.
+     */
+    private void syncBatch() {
+        Map<Long, City> batchStale = this.batchStale;
+        if (batchStale == null || batchStale.isEmpty() || batchOwner != Thread.currentThread()) {
+            return;
+        }
+        synchronized (cities) {
+            int kept = 0;
+            for (int i = 0; i < cities.size(); i++) {
+                City city = resolve(cities.get(i), batchStale, batchReadded);
+                if (city != null) {
+                    cities.set(kept++, city);
+                }
+            }
+            cities.setSize(kept);
+        }
+        batchStale.clear();
+        batchReadded.clear();
+    }
+
+    /**
+     * Устанавливает получателя изменений коллекции.
+     *
+     * @param listener получатель или {@code null}
+     */
+    public void setMutationListener(MutationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Учитывает изменение в версии коллекции и сообщает о нём получателю.
+     * Изменение одного элемента учитывается в событии JFR текущей команды.
+     *
+     * @param mutation изменение
+     */
+    protected void changed(Mutation mutation) {
+        version.incrementAndGet();
+        mutationCounts[mutation.type.ordinal()].increment();
+        if (mutation.id != 0) {
+            CommandEvent.touch(1);
+        }
+        MutationListener l = listener;
+        if (l != null) {
+            l.onMutation(mutation);
+        }
+    }
+
+    /**
+     * Переводит коллекцию в состояние фоновой загрузки.
+     *
+     * @param future future, которое завершится по окончании загрузки
+     * @param total количество элементов, которое будет загружено
+     */
+    public void startLoading(CompletableFuture<?> future, int total) {
+        this.loadTotal = total;
+        this.loadedCount = 0;
+        this.loading = future;
+    }
+
+    /**
+     * Обновляет прогресс фоновой загрузки.
+     *
+     * @param count количество уже загруженных элементов
+     */
+    public void setLoadedCount(int count) {
+        this.loadedCount = count;
+    }
+
+    /**
+     * Проверяет, завершена ли загрузка коллекции.
+     *
+     * @return {@code true}, если коллекция загружена полностью (или загрузка завершилась ошибкой)
+     */
+    public boolean isLoaded() {
+        return loading.isDone();
+    }
+
+    /**
+     * Ожидает завершения фоновой загрузки коллекции.
+     *
+     * @throws IllegalStateException если загрузка завершилась с ошибкой
+     */
+    public void awaitLoaded() {
+        try {
+            loading.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw new IllegalStateException("Коллекция не загружена: " + cause.getMessage());
+        }
     }
 
     /**
@@ -70,22 +528,37 @@ public class CollectionManager {
      *
      * @return новый идентификатор
      */
-    public long generateId() {
+    public synchronized long generateId() {
         return nextId++;
     }
 
+    /**
+     * Выдаёт подряд идущие идентификаторы для нескольких новых элементов.
+     *
+     * @param count количество идентификаторов
+     * @return первый из выданных идентификаторов
+     */
+    public synchronized long generateIds(int count) {
+        long first = nextId;
+        nextId += count;
+        return first;
+    }
+
     /**
      * Синхронизирует следующее значение идентификатора
      * на основе уже загруженных из файла данных.
      */
-    public void syncNextIdFromLoadedData() {
-        long maxId = 0;
-        for (City city : cities) {
-            if (city.getId() > maxId) {
-                maxId = city.getId();
-            }
-        }
-        nextId = maxId + 1;
+    public synchronized void syncNextIdFromLoadedData() {
+        nextId = maxId() + 1;
+    }
+
+    /**
+     * Возвращает наибольший идентификатор в коллекции.
+     *
+     * @return наибольший id или {@code 0}, если коллекция пуста
+     */
+    protected long maxId() {
+        return byId.isEmpty() ? 0 : byId.lastKey();
     }
 
     /**
@@ -98,13 +571,97 @@ public class CollectionManager {
      * @param city добавляемый город
      */
     public void add(City city) {
+        addLoaded(city);
+        changed(new Mutation(Mutation.Type.ADD, city.getId(), city, null));
+    }
+
+    /**
+     * Добавляет пакет новых элементов.
+     * <p>
+     * Идентификаторы выдаются одним диапазоном ({@link #generateIds(int)}), все элементы
+     * получают одну дату создания и добавляются в хранилище вместе ({@link #storeAll(List)}).
+     * Каждый элемент учитывается как отдельное изменение {@link Mutation.Type#ADD}.
+     * </p>
+     *
+     * @param batch добавляемые города; их id и даты создания перезаписываются
+     */
+    public void addAll(List<City> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        assignNew(batch);
+        storeAll(batch);
+        for (City city : batch) {
+            changed(new Mutation(Mutation.Type.ADD, city.getId(), city, null));
+        }
+    }
+
+    /**
+     * Назначает элементам пакета новые идентификаторы и текущую дату создания.
+     *
+     * @param batch города
+     */
+    protected void assignNew(List<City> batch) {
+        long id = generateIds(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (City city : batch) {
+            city.setId(id++);
+            city.setCreationDate(now);
+        }
+    }
+
+    /**
+     * Помещает пакет элементов с новыми идентификаторами в хранилище: в {@code Vector}
+     * одним добавлением, в индекс по id — по одному.
+     *
+     * @param batch города
+     */
+    protected void storeAll(List<City> batch) {
+        cities.addAll(batch);
+        for (City city : batch) {
+            byId.put(city.getId(), city);
+            memory.add(city);
+        }
+        elementCount.addAndGet(batch.size());
+    }
+
+    /**
+     * Добавляет элемент, прочитанный из файла.
+     * <p>
+     * В отличие от {@link #add(City)}, не меняет версию коллекции:
+     * загруженные элементы уже сохранены в файле.
+     * </p>
+     *
+     * @param city добавляемый город
+     */
+    public void addLoaded(City city) {
         if (city.getId() <= 0 || containsId(city.getId())) {
             city.setId(generateId());
         }
         if (city.getCreationDate() == null) {
             city.setCreationDate(LocalDateTime.now());
         }
-        cities.add(city);
+        store(city);
+    }
+
+    /**
+     * Помещает элемент с уже назначенным идентификатором в хранилище.
+     *
+     * @param city добавляемый город
+     */
+    protected void store(City city) {
+        byId.put(city.getId(), city);
+        Map<Long, City> stale = batchStale;
+        if (stale != null && stale.containsKey(city.getId())) {
+            synchronized (cities) {
+                cities.add(city);
+                batchReadded.put(city.getId(), city);
+            }
+        } else {
+            cities.add(city);
+        }
+        elementCount.incrementAndGet();
+        memory.add(city);
     }
 
     /**
@@ -114,12 +671,7 @@ public class CollectionManager {
      * @return {@code true}, если элемент найден, иначе {@code false}
      */
     public boolean containsId(long id) {
-        for (City city : cities) {
-            if (city.getId() == id) {
-                return true;
-            }
-        }
-        return false;
+        return byId.containsKey(id);
     }
 
     /**
@@ -130,6 +682,22 @@ public class CollectionManager {
      * @return {@code true}, если элемент найден и обновлён, иначе {@code false}
      */
     public boolean update(long id, City newCity) {
+        if (!byId.containsKey(id)) {
+            return false;
+        }
+        if (batchStale != null) {
+            City old = byId.get(id);
+            newCity.setId(id);
+            if (newCity.getCreationDate() == null) {
+                newCity.setCreationDate(old.getCreationDate());
+            }
+            batchStale.putIfAbsent(id, old);
+            byId.put(id, newCity);
+            memory.remove(old);
+            memory.add(newCity);
+            changed(new Mutation(Mutation.Type.UPDATE, id, newCity, null));
+            return true;
+        }
         for (int i = 0; i < cities.size(); i++) {
             if (cities.get(i).getId() == id) {
                 newCity.setId(id);
@@ -138,7 +706,10 @@ public class CollectionManager {
                     newCity.setCreationDate(cities.get(i).getCreationDate());
                 }
 
-                cities.set(i, newCity);
+                memory.remove(cities.set(i, newCity));
+                memory.add(newCity);
+                byId.put(id, newCity);
+                changed(new Mutation(Mutation.Type.UPDATE, id, newCity, null));
                 return true;
             }
         }
@@ -152,9 +723,23 @@ public class CollectionManager {
      * @return {@code true}, если элемент найден и удалён, иначе {@code false}
      */
     public boolean removeById(long id) {
+        if (!byId.containsKey(id)) {
+            return false;
+        }
+        if (batchStale != null) {
+            City old = byId.remove(id);
+            batchStale.putIfAbsent(id, old);
+            elementCount.decrementAndGet();
+            memory.remove(old);
+            changed(new Mutation(Mutation.Type.REMOVE, id, null, null));
+            return true;
+        }
         for (int i = 0; i < cities.size(); i++) {
             if (cities.get(i).getId() == id) {
-                cities.remove(i);
+                memory.remove(cities.remove(i));
+                byId.remove(id);
+                elementCount.decrementAndGet();
+                changed(new Mutation(Mutation.Type.REMOVE, id, null, null));
                 return true;
             }
         }
@@ -165,7 +750,12 @@ public class CollectionManager {
      * Разворачивает порядок элементов в коллекции.
      */
     public void reorder() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
         Collections.reverse(cities);
+        changed(Mutation.of(Mutation.Type.REORDER));
+        event.finish("reorder", cities.size(), 0, 1);
     }
 
     /**
@@ -178,9 +768,21 @@ public class CollectionManager {
      * @return количество удалённых элементов
      */
     public int removeLower(City pivot) {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
         int before = cities.size();
-        cities.removeIf(city -> city.compareTo(pivot) < 0);
-        return before - cities.size();
+        cities.removeIf(city -> {
+            if (city.compareTo(pivot) < 0) {
+                byId.remove(city.getId());
+                memory.remove(city);
+                return true;
+            }
+            return false;
+        });
+        int count = removed(before - cities.size(), new Mutation(Mutation.Type.REMOVE_LOWER, 0, pivot, null));
+        event.finish("remove_lower", before, count, 1);
+        return count;
     }
 
     /**
@@ -190,18 +792,42 @@ public class CollectionManager {
      * @return количество удалённых элементов
      */
     public int removeAllByGovernor(Human gov) {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
         int before = cities.size();
         cities.removeIf(city -> {
             Human currentGovernor = city.getGovernor();
-            if (currentGovernor == null && gov == null) {
-                return true;
-            }
+            boolean matches;
             if (currentGovernor == null || gov == null) {
-                return false;
+                matches = currentGovernor == gov;
+            } else {
+                matches = currentGovernor.equals(gov);
             }
-            return currentGovernor.equals(gov);
+            if (matches) {
+                byId.remove(city.getId());
+                memory.remove(city);
+            }
+            return matches;
         });
-        return before - cities.size();
+        int count = removed(before - cities.size(), new Mutation(Mutation.Type.REMOVE_ALL_BY_GOVERNOR, 0, null, gov));
+        event.finish("remove_all_by_governor", before, count, 1);
+        return count;
+    }
+
+    /**
+     * Учитывает массовое удаление в версии коллекции.
+     *
+     * @param count количество удалённых элементов
+     * @param mutation выполненное изменение
+     * @return то же количество
+     */
+    private int removed(int count, Mutation mutation) {
+        if (count > 0) {
+            elementCount.addAndGet(-count);
+            changed(mutation);
+        }
+        return count;
     }
 
     /**
@@ -210,12 +836,17 @@ public class CollectionManager {
      * @return город с минимальным климатом или {@code null}, если коллекция пуста
      */
     public City minByClimate() {
+        syncBatch();
         if (cities.isEmpty()) {
             return null;
         }
 
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
         City min = null;
+        int scanned = 0;
         for (City city : cities) {
+            scanned++;
             if (city.getClimate() == null) {
                 continue;
             }
@@ -223,27 +854,31 @@ public class CollectionManager {
                 min = city;
             }
         }
+        event.finish("min_by_climate", scanned, 0, 1);
         return min;
     }
 
     /**
-     * Выводит значения поля governor элементов коллекции
+     * Возвращает значения поля governor элементов коллекции
      * в порядке возрастания.
+     *
+     * @return список губернаторов, отсортированный по возрастанию
      */
-    public void printFieldAscendingGovernor() {
-        Vector<Human> governors = new Vector<>();
-
-        for (City city : cities) {
+    public List<Human> governorsAscending() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
+        List<Human> governors = new ArrayList<>();
+        List<City> all = new ArrayList<>(cities);
+        for (City city : all) {
             if (city.getGovernor() != null) {
                 governors.add(city.getGovernor());
             }
         }
 
         governors.sort(Comparator.naturalOrder());
-
-        for (Human governor : governors) {
-            System.out.println(governor);
-        }
+        event.finish("governors_ascending", all.size(), 0, 1);
+        return governors;
     }
 
     /**
@@ -253,6 +888,11 @@ public class CollectionManager {
      * </p>
      */
     public void sortDefault() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        syncBatch();
         Collections.sort(cities);
+        changed(Mutation.of(Mutation.Type.SORT));
+        event.finish("sort", cities.size(), 0, 1);
     }
 }
\ No newline at end of file
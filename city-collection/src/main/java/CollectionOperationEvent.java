@@ -0,0 +1,49 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: операция над всей коллекцией (удаление по условию, поиск минимума,
+ * выборка, сортировка, снимок).
+ */
+@Name("citycollection.CollectionOperation")
+@Label("Collection Operation")
+@Category({"City Collection", "Collection"})
+@Description("Операция, обходящая или перестраивающая всю коллекцию")
+public class CollectionOperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Elements Scanned")
+    public long scanned;
+
+    @Label("Elements Removed")
+    public long removed;
+
+    @Label("Partitions")
+    public int partitions;
+
+    /**
+     * Завершает событие и учитывает просмотренные элементы в текущей команде.
+     *
+     * @param operation имя операции
+     * @param scanned количество просмотренных элементов
+     * @param removed количество удалённых элементов
+     * @param partitions количество секций коллекции
+     */
+    void finish(String operation, long scanned, long removed, int partitions) {
+        if (!isEnabled()) {
+            return;
+        }
+        end();
+        CommandEvent.touch(scanned);
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.scanned = scanned;
+            this.removed = removed;
+            this.partitions = partitions;
+            commit();
+        }
+    }
+}
@@ -27,4 +27,44 @@ public interface Command {
      * иначе {@code false}
      */
     boolean execute(String[] args, InputManager input, CommandContext ctx);
+
+    /**
+     * Сообщает, нужна ли команде полностью загруженная коллекция.
+     * <p>
+     * Пока коллекция загружается в фоне, такие команды ожидают окончания загрузки.
+     * Команды, не работающие с коллекцией (или работающие только с уже загруженными
+     * элементами), могут переопределить метод и выполняться сразу.
+     * </p>
+     *
+     * @return {@code true}, если перед выполнением нужно дождаться загрузки коллекции
+     */
+    default boolean requiresLoadedCollection() {
+        return true;
+    }
+
+    /**
+     * Сообщает, только ли читает команда коллекцию.
+     * <p>
+     * Читающие команды выполняются под общей блокировкой и не мешают друг другу,
+     * изменяющие — под монопольной (см. {@link CommandManager}).
+     * </p>
+     *
+     * @return {@code true}, если команда не изменяет коллекцию
+     */
+    default boolean readOnly() {
+        return false;
+    }
+
+    /**
+     * Сообщает, обходит ли команда всю коллекцию.
+     * <p>
+     * Тяжёлые команды ограничиваются отдельно от лёгких (см. {@link AdmissionController}),
+     * чтобы частые обходы коллекции не задерживали точечные операции.
+     * </p>
+     *
+     * @return {@code true}, если время выполнения команды растёт с размером коллекции
+     */
+    default boolean heavy() {
+        return false;
+    }
 }
\ No newline at end of file
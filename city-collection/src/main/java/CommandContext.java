@@ -1,14 +1,58 @@
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Контекст команд: тут лежат общие объекты, нужные всем командам.
+ * <p>
+ * Контекст соответствует одному сеансу работы: консоли или сетевому клиенту.
+ * Коллекция общая, а поток вывода, история команд и стек выполняемых скриптов
+ * у каждого сеанса свои.
+ * </p>
+ *
+ * <p>Сеанс сетевого клиента ({@link #remote}) не может открывать файлы сервера по пути,
+ * переданному клиентом (execute_script, import из файла): иначе любой клиент мог бы
+ * выполнять скрипты сервера и читать его файлы через сообщения об ошибках.</p>
  */
 public class CommandContext {
     public final CollectionManager cm;
     public final XmlIO io;
     public final CommandManager manager;
+    public final PrintStream out;
+    public final boolean remote;
+    public final Deque<String> history = new ArrayDeque<>();
+
+    /**
+     * Канонические пути выполняющихся в сеансе скриптов, от внешнего к вложенному.
+     */
+    public final Deque<String> scriptStack = new ArrayDeque<>();
 
     public CommandContext(CollectionManager cm, XmlIO io, CommandManager manager) {
+        this(cm, io, manager, System.out);
+    }
+
+    public CommandContext(CollectionManager cm, XmlIO io, CommandManager manager, PrintStream out) {
+        this(cm, io, manager, out, false);
+    }
+
+    public CommandContext(CollectionManager cm, XmlIO io, CommandManager manager, PrintStream out, boolean remote) {
         this.cm = cm;
         this.io = io;
         this.manager = manager;
+        this.out = out;
+        this.remote = remote;
+    }
+
+    /**
+     * Проверяет, что сеанс может открывать файлы сервера по пути из аргумента команды.
+     *
+     * @param command имя команды для сообщения об ошибке
+     * @throws IllegalStateException в сеансе сетевого клиента
+     */
+    public void requireLocalFiles(String command) {
+        if (remote) {
+            throw new IllegalStateException("Команда " + command
+                    + " с путём к файлу недоступна сетевым клиентам.");
+        }
     }
 }
@@ -0,0 +1,76 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: выполнение команды, включая ожидание допуска и блокировки.
+ * <p>
+ * Количество затронутых элементов складывается из элементов, прочитанных или
+ * изменённых операциями коллекции в потоке команды, пока событие активно
+ * (см. {@link #touch(long)}).
+ * </p>
+ */
+@Name("citycollection.Command")
+@Label("Command")
+@Category({"City Collection", "Commands"})
+@Description("Выполнение команды")
+public class CommandEvent extends jdk.jfr.Event {
+    private static final ThreadLocal<CommandEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Command")
+    public String command;
+
+    @Label("Arguments")
+    @Description("Количество аргументов текстовой команды; -1 для запросов двоичного протокола")
+    public int arguments;
+
+    @Label("Elements Touched")
+    public long elementsTouched;
+
+    @Label("Failed")
+    public boolean failed;
+
+    /**
+     * Делает событие текущим для потока, если запись событий включена.
+     *
+     * @return событие, которое было текущим до этого
+     */
+    CommandEvent activate() {
+        CommandEvent previous = CURRENT.get();
+        if (isEnabled()) {
+            CURRENT.set(this);
+            begin();
+        }
+        return previous;
+    }
+
+    /**
+     * Завершает событие и восстанавливает предыдущее текущее событие потока.
+     *
+     * @param previous событие, возвращённое {@link #activate()}
+     */
+    void finish(CommandEvent previous) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        commit();
+    }
+
+    /**
+     * Учитывает элементы, затронутые операцией коллекции, в текущей команде потока.
+     *
+     * @param elements количество элементов
+     */
+    static void touch(long elements) {
+        CommandEvent event = CURRENT.get();
+        if (event != null) {
+            event.elementsTouched += elements;
+        }
+    }
+}
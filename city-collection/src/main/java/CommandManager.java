@@ -1,13 +1,44 @@
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Менеджер команд приложения.
+ * <p>
+ * Команды могут выполняться одновременно из нескольких сеансов. Команды,
+ * только читающие коллекцию ({@link Command#readOnly()}), выполняются под общей
+ * блокировкой чтения, остальные — под монопольной блокировкой записи.
+ * Перед выполнением команда проходит проверку {@link AdmissionController}.
+ * </p>
  */
 public class CommandManager {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Размер буфера чтения скриптов.
+     */
+    private static final int SCRIPT_BUFFER = 1 << 16;
+
     private final Map<String, Command> commands = new LinkedHashMap<>();
-    private final Deque<String> history = new ArrayDeque<>();
-    private final Deque<String> scriptStack = new ArrayDeque<>();
     private final CommandContext ctx;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ResultCache cache;
+    private final CommandStats stats = new CommandStats();
+    private AutosaveService autosave;
+    private AdmissionController admission = AdmissionController.withDefaults(0, 1000);
+    private volatile boolean readOnlyMode;
+    private ReplicationPrimary replicationPrimary;
+    private ReplicationFollower replicationFollower;
 
     /**
      * Создает менеджер команд.
@@ -17,6 +48,7 @@ public class CommandManager {
      */
     public CommandManager(CollectionManager cm, XmlIO io) {
         this.ctx = new CommandContext(cm, io, this);
+        this.cache = new ResultCache(cm);
 
         register(new HelpCommand());
         register(new InfoCommand());
@@ -34,6 +66,8 @@ public class CommandManager {
         register(new RemoveAllByGovernorCommand());
         register(new MinByClimateCommand());
         register(new PrintFieldAscendingGovernorCommand());
+        register(new StatsCommand());
+        register(new ImportCommand());
     }
 
     /**
@@ -45,6 +79,106 @@ public class CommandManager {
         return ctx;
     }
 
+    /**
+     * Создаёт контекст нового сеанса с собственными выводом и историей команд.
+     *
+     * @param out поток вывода сеанса
+     * @return контекст сеанса
+     */
+    public CommandContext newSession(PrintStream out) {
+        return new CommandContext(ctx.cm, ctx.io, this, out);
+    }
+
+    /**
+     * Создаёт контекст сеанса сетевого клиента (см. {@link CommandContext#remote}).
+     *
+     * @param out поток вывода сеанса
+     * @return контекст сеанса
+     */
+    public CommandContext newRemoteSession(PrintStream out) {
+        return new CommandContext(ctx.cm, ctx.io, this, out, true);
+    }
+
+    /**
+     * Возвращает кэш результатов читающих команд.
+     *
+     * @return кэш результатов
+     */
+    public ResultCache cache() {
+        return cache;
+    }
+
+    /**
+     * Возвращает статистику выполнения команд.
+     *
+     * @return статистика команд
+     */
+    public CommandStats stats() {
+        return stats;
+    }
+
+    /**
+     * Возвращает сервис автосохранения.
+     *
+     * @return сервис автосохранения или {@code null}, если автосохранение выключено
+     */
+    public AutosaveService getAutosave() {
+        return autosave;
+    }
+
+    /**
+     * Устанавливает сервис автосохранения.
+     *
+     * @param autosave сервис автосохранения
+     */
+    public void setAutosave(AutosaveService autosave) {
+        this.autosave = autosave;
+    }
+
+    /**
+     * Возвращает контроллер допуска команд.
+     *
+     * @return контроллер допуска
+     */
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    /**
+     * Устанавливает контроллер допуска команд.
+     *
+     * @param admission контроллер допуска
+     */
+    public void setAdmission(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Включает режим только для чтения: изменяющие команды отклоняются.
+     * Используется на ведомых процессах репликации.
+     *
+     * @param readOnlyMode {@code true}, чтобы запретить изменяющие команды
+     */
+    public void setReadOnlyMode(boolean readOnlyMode) {
+        this.readOnlyMode = readOnlyMode;
+    }
+
+    public ReplicationPrimary getReplicationPrimary() {
+        return replicationPrimary;
+    }
+
+    public void setReplicationPrimary(ReplicationPrimary replicationPrimary) {
+        this.replicationPrimary = replicationPrimary;
+    }
+
+    public ReplicationFollower getReplicationFollower() {
+        return replicationFollower;
+    }
+
+    public void setReplicationFollower(ReplicationFollower replicationFollower) {
+        this.replicationFollower = replicationFollower;
+    }
+
     /**
      * Возвращает все зарегистрированные команды.
      *
@@ -54,6 +188,16 @@ public class CommandManager {
         return commands.values();
     }
 
+    /**
+     * Возвращает команду по имени.
+     *
+     * @param name имя команды
+     * @return команда или {@code null}, если такой команды нет
+     */
+    public Command command(String name) {
+        return commands.get(name);
+    }
+
     /**
      * Регистрирует новую команду.
      *
@@ -64,7 +208,7 @@ public class CommandManager {
     }
 
     /**
-     * Обрабатывает введенную пользователем строку.
+     * Обрабатывает введенную пользователем строку в консольном сеансе.
      *
      * @param line строка команды
      * @param input менеджер ввода
@@ -72,7 +216,20 @@ public class CommandManager {
      * иначе {@code false}
      */
     public boolean handleLine(String line, InputManager input) {
-        String[] parts = line.trim().split("\\s+");
+        return handleLine(line, input, ctx);
+    }
+
+    /**
+     * Обрабатывает строку команды в указанном сеансе.
+     *
+     * @param line строка команды
+     * @param input менеджер ввода
+     * @param ctx контекст сеанса
+     * @return {@code true}, если сеанс должен продолжить работу,
+     * иначе {@code false}
+     */
+    public boolean handleLine(String line, InputManager input, CommandContext ctx) {
+        String[] parts = WHITESPACE.split(line.trim());
         if (parts.length == 0 || parts[0].isEmpty()) {
             return true;
         }
@@ -82,24 +239,139 @@ public class CommandManager {
 
         Command command = commands.get(commandName);
         if (command == null) {
-            System.out.println("Неизвестная команда: " + commandName);
+            ctx.out.println("Неизвестная команда: " + commandName);
             return true;
         }
 
-        history.addLast(commandName);
-        if (history.size() > 15) {
-            history.removeFirst();
+        return run(command, ctx, args.length, () -> command.execute(args, input, ctx));
+    }
+
+    /**
+     * Выполняет действие от имени команды.
+     * <p>
+     * Команда записывается в историю сеанса и проходит проверку {@link AdmissionController};
+     * при необходимости ожидается окончание загрузки коллекции; действие выполняется
+     * под блокировкой чтения или записи в зависимости от {@link Command#readOnly()}. Если коллекция
+     * допускает одновременные изменения ({@link CollectionManager#supportsConcurrentWrites()}),
+     * изменяющие команды тоже выполняются под блокировкой чтения. Используется как для текстовых
+     * команд, так и для запросов двоичного протокола.
+     * </p>
+     *
+     * <p>Время выполнения (вместе с ожиданием допуска, загрузки и блокировки) учитывается
+     * в {@link CommandStats} и событии JFR {@link CommandEvent}; выполнение, завершившееся
+     * исключением, считается ошибкой.</p>
+     *
+     * @param command команда
+     * @param ctx контекст сеанса
+     * @param action выполняемое действие
+     * @param <T> тип результата
+     * @return результат действия
+     * @throws java.util.concurrent.RejectedExecutionException если команда не допущена к выполнению
+     */
+    public <T> T run(Command command, CommandContext ctx, Supplier<T> action) {
+        return run(command, ctx, -1, action);
+    }
+
+    /**
+     * Выполняет действие от имени текстовой команды с указанным количеством аргументов
+     * (см. {@link #run(Command, CommandContext, Supplier)}); количество аргументов
+     * попадает в событие JFR {@link CommandEvent}.
+     *
+     * @param command команда
+     * @param ctx контекст сеанса
+     * @param arguments количество аргументов или -1 для запросов двоичного протокола
+     * @param action выполняемое действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    private <T> T run(Command command, CommandContext ctx, int arguments, Supplier<T> action) {
+        ctx.history.addLast(command.name());
+        if (ctx.history.size() > 15) {
+            ctx.history.removeFirst();
+        }
+
+        CommandEvent event = new CommandEvent();
+        CommandEvent previousEvent = event.activate();
+        long start = System.nanoTime();
+        boolean failed = true;
+        AdmissionController admission = this.admission;
+        Semaphore permit = null;
+        try {
+            if (readOnlyMode && !command.readOnly()) {
+                throw new IllegalStateException("Команда " + command.name()
+                        + " недоступна: коллекция открыта только для чтения.");
+            }
+            permit = admission.admit(command, ctx);
+            if (command.requiresLoadedCollection() && !ctx.cm.isLoaded()) {
+                ctx.out.println("Ожидание окончания загрузки коллекции...");
+                ctx.cm.awaitLoaded();
+            }
+            T result = locked(!command.readOnly() && !ctx.cm.supportsConcurrentWrites(), action);
+            failed = false;
+            return result;
+        } finally {
+            admission.release(permit);
+            stats.record(command.name(), System.nanoTime() - start, failed);
+            event.command = command.name();
+            event.arguments = arguments;
+            event.failed = failed;
+            event.finish(previousEvent);
         }
+    }
+
+    /**
+     * Выполняет действие под блокировкой коллекции без проверок и записи в историю.
+     * Используется фоновыми задачами, которым нужна согласованная коллекция.
+     *
+     * @param write {@code true} — под блокировкой записи, иначе под блокировкой чтения
+     * @param action выполняемое действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public <T> T locked(boolean write, Supplier<T> action) {
+        Lock commandLock = write ? lock.writeLock() : lock.readLock();
+        commandLock.lock();
+        try {
+            return action.get();
+        } finally {
+            commandLock.unlock();
+        }
+    }
 
-        return command.execute(args, input, ctx);
+    /**
+     * Обрабатывает полностью заданный запрос сетевого клиента.
+     * <p>
+     * Запрос имеет вид {@code команда [аргументы] [| поле1 | поле2 | ...]}: значения,
+     * которые в консоли запрашиваются по одному, передаются после символов {@code |}
+     * в том порядке, в котором их запрашивает {@link InputManager}. Пустое значение
+     * соответствует пустому вводу. Ошибки выполнения выводятся в поток сеанса.
+     * </p>
+     *
+     * @param request строка запроса
+     * @param ctx контекст сеанса
+     * @return {@code true}, если сеанс должен продолжить работу, иначе {@code false}
+     */
+    public boolean handleRequest(String request, CommandContext ctx) {
+        int bar = request.indexOf('|');
+        String line = bar < 0 ? request : request.substring(0, bar);
+        String payload = bar < 0 ? "" : String.join("\n", request.substring(bar + 1).split("\\|", -1));
+
+        try {
+            return handleLine(line, new InputManager(new Scanner(payload), false), ctx);
+        } catch (Exception e) {
+            ctx.out.println("Ошибка выполнения команды: " + e.getMessage());
+            return true;
+        }
     }
 
     /**
-     * Выводит историю последних команд.
+     * Выводит историю последних команд сеанса.
+     *
+     * @param ctx контекст сеанса
      */
-    public void printHistory() {
-        for (String cmd : history) {
-            System.out.println(cmd);
+    public void printHistory(CommandContext ctx) {
+        for (String cmd : ctx.history) {
+            ctx.out.println(cmd);
         }
     }
 
@@ -119,11 +391,95 @@ public class CommandManager {
     }
 
     /**
-     * Выполняет команды из файла скрипта.
+     * Выполняет команды из файла скрипта в сеансе.
+     * <p>
+     * Скрипт читается построчно; значения полей, которые команда запрашивает
+     * в консоли, берутся из следующих строк скрипта ({@link InputManager} без приглашений).
+     * Пустые строки и строки, начинающиеся с {@code #}, пропускаются. Скрипт, уже
+     * выполняющийся в сеансе (в том числе через другой путь к тому же файлу),
+     * повторно не запускается. Выполнение прерывается командой exit или ошибкой
+     * чтения значений; сообщение об ошибке содержит номер строки.
+     * </p>
+     *
+     * <p>Обычно каждая строка выполняется как отдельная команда ({@link #run(Command,
+     * CommandContext, Supplier)}): с записью в историю, статистикой и событием JFR.
+     * В пакетном режиме строки выполняются напрямую под блокировкой, уже взятой
+     * execute_script: в статистике и событии JFR учитывается только execute_script,
+     * история дополняется один раз в конце скрипта, а коллекция работает в пакетном
+     * режиме ({@link CollectionManager#beginBatch()}). Вложенные скрипты выполняются
+     * в пакетном режиме, если в нём выполняется внешний. Пакетный режим принадлежит
+     * сеансу (потоку), который его включил: скрипты других сеансов, выполняющиеся
+     * одновременно с ним при секционированной коллекции, выполняются построчно, как обычно.</p>
      *
      * @param fileName имя файла
+     * @param ctx контекст сеанса
+     * @param batch {@code true} — выполнить в пакетном режиме
+     * @return {@code false}, если скрипт завершился командой exit
+     * @throws IOException если файл не удалось прочитать
+     * @throws IllegalStateException если скрипт уже выполняется или строка скрипта завершилась ошибкой
      */
-    public void executeScript(String fileName) {
-        System.out.println("execute_script пока не реализован полностью: " + fileName);
+    public boolean executeScript(String fileName, CommandContext ctx, boolean batch) throws IOException {
+        Path path = Path.of(fileName).toRealPath();
+        String key = path.toString();
+        if (ctx.scriptStack.contains(key)) {
+            throw new IllegalStateException("рекурсивный вызов скрипта " + key);
+        }
+
+        boolean startedBatch = batch && ctx.cm.beginBatch();
+        boolean batched = ctx.cm.inBatch();
+        Deque<String> recent = new ArrayDeque<>();
+        ctx.scriptStack.push(key);
+        try (LineNumberReader reader = new LineNumberReader(
+                Files.newBufferedReader(path, StandardCharsets.UTF_8), SCRIPT_BUFFER)) {
+            InputManager input = new InputManager(reader);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int lineNumber = reader.getLineNumber();
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] parts = WHITESPACE.split(line);
+                Command command = commands.get(parts[0]);
+                if (command == null) {
+                    ctx.out.println(key + ":" + lineNumber + ": неизвестная команда: " + parts[0]);
+                    continue;
+                }
+                String[] args = Arrays.copyOfRange(parts, 1, parts.length);
+                boolean proceed;
+                try {
+                    if (batched) {
+                        if (readOnlyMode && !command.readOnly()) {
+                            throw new IllegalStateException("Команда " + command.name()
+                                    + " недоступна: коллекция открыта только для чтения.");
+                        }
+                        recent.addLast(command.name());
+                        if (recent.size() > 15) {
+                            recent.removeFirst();
+                        }
+                        proceed = command.execute(args, input, ctx);
+                    } else {
+                        proceed = run(command, ctx, args.length, () -> command.execute(args, input, ctx));
+                    }
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException(key + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (!proceed) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            ctx.scriptStack.pop();
+            if (startedBatch) {
+                ctx.cm.endBatch();
+            }
+            for (String name : recent) {
+                ctx.history.addLast(name);
+                if (ctx.history.size() > 15) {
+                    ctx.history.removeFirst();
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика выполнения команд: количество вызовов и ошибок и гистограмма
+ * задержек ({@link LatencyHistogram}) для каждой команды.
+ * <p>
+ * Запись не использует блокировок. Сброс заменяет набор гистограмм целиком;
+ * команды, завершающиеся в момент сброса, могут попасть в старый набор.
+ * </p>
+ */
+public class CommandStats {
+    private volatile Period period = new Period();
+
+    /**
+     * Статистика с момента запуска или последнего сброса.
+     */
+    private static final class Period {
+        final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        final long startNanos = System.nanoTime();
+        final LocalDateTime start = LocalDateTime.now();
+    }
+
+    /**
+     * Статистика одной команды.
+     */
+    public static final class Entry {
+        public final LatencyHistogram latency = new LatencyHistogram();
+        public final LongAdder failures = new LongAdder();
+    }
+
+    /**
+     * Учитывает выполнение команды.
+     *
+     * @param command имя команды
+     * @param nanos время выполнения, нс
+     * @param failed {@code true}, если команда завершилась ошибкой или была отклонена
+     */
+    public void record(String command, long nanos, boolean failed) {
+        Entry entry = period.entries.computeIfAbsent(command, k -> new Entry());
+        entry.latency.record(nanos);
+        if (failed) {
+            entry.failures.increment();
+        }
+    }
+
+    /**
+     * Возвращает статистику команд с момента запуска или последнего сброса.
+     *
+     * @return статистика по именам команд в алфавитном порядке
+     */
+    public Map<String, Entry> entries() {
+        return Collections.unmodifiableMap(new TreeMap<>(period.entries));
+    }
+
+    /**
+     * Начинает сбор статистики заново.
+     */
+    public void reset() {
+        period = new Period();
+    }
+
+    /**
+     * Возвращает таблицу статистики для команды stats.
+     *
+     * @return многострочный отчёт
+     */
+    public String report() {
+        Period p = period;
+        double seconds = Math.max(1e-9, (System.nanoTime() - p.startNanos) / 1e9);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Статистика с %s (%.1f с), задержки в мс:%n", p.start, seconds));
+        if (p.entries.isEmpty()) {
+            return sb.append("Команды не выполнялись.").toString();
+        }
+        sb.append(String.format("%-32s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "команда", "вызовов", "ошибок", "в сек", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<String, Entry> e : new TreeMap<>(p.entries).entrySet()) {
+            LatencyHistogram h = e.getValue().latency;
+            long count = h.count();
+            sb.append(String.format("%-32s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    e.getKey(), count, e.getValue().failures.sum(), count / seconds,
+                    h.percentile(50) / 1e6, h.percentile(90) / 1e6, h.percentile(99) / 1e6,
+                    h.percentile(99.9) / 1e6, h.max() / 1e6));
+        }
+        sb.setLength(sb.length() - System.lineSeparator().length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,346 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Генератор синтетических наборов городов для нагрузочных проверок и бенчмарков.
+ * <p>
+ * Генератор детерминирован: одинаковые зерно и параметры дают одинаковую
+ * последовательность городов. Каждый город удовлетворяет ограничениям полей,
+ * которые проверяет {@link InputManager} ({@link CityValidator}). Идентификаторы
+ * выдаются подряд, начиная с 1.
+ * </p>
+ *
+ * <p>Города записываются по одному через {@link CityWriter}, а для повторов
+ * названий и губернаторов хранится только ограниченный пул последних значений,
+ * поэтому объём памяти не зависит от количества городов.</p>
+ *
+ * <p>Распределения значений:</p>
+ * <ul>
+ *     <li>{@link Distribution#UNIFORM} — площадь, население и перечисления равномерны;</li>
+ *     <li>{@link Distribution#SKEWED} — площадь и население логнормальны (много малых
+ *     городов и немного очень крупных), значения перечислений встречаются
+ *     с частотами по закону Ципфа.</li>
+ * </ul>
+ */
+public class DatasetGenerator {
+    /**
+     * Распределение значений полей.
+     */
+    public enum Distribution {
+        UNIFORM,
+        SKEWED
+    }
+
+    private static final String[] SYLLABLES = {
+            "ka", "ro", "mi", "ne", "vo", "sa", "ti", "lu", "be", "gra", "do", "zan",
+            "pol", "ver", "in", "ost", "mar", "sk", "len", "tor", "ha", "vi", "ru", "el",
+            "an", "go", "ber", "chi", "ya", "no", "lim", "dar", "ves", "kor", "al", "tu",
+            "pe", "sol", "ra", "om", "gor", "ni", "zel", "ku", "fa", "dor", "le", "mo"
+    };
+    private static final String[] CITY_SUFFIXES = {"", "", "", "burg", "grad", "sk", "ville", "ton", "polis", "ovo"};
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Vera", "Gleb", "Daria", "Egor", "Zoya", "Ivan", "Kira", "Lev",
+            "Maria", "Nikita", "Olga", "Pavel", "Roza", "Semyon", "Tamara", "Ulyana", "Fyodor", "Yulia"
+    };
+    private static final String[] LAST_NAMES = {
+            "Ivanov", "Petrova", "Smirnov", "Kuznetsova", "Popov", "Vasilieva", "Sokolov", "Mikhailova",
+            "Novikov", "Fedorova", "Morozov", "Volkova", "Alekseev", "Lebedeva", "Semenov", "Egorova"
+    };
+    private static final Climate[] CLIMATES = Climate.values();
+    private static final Government[] GOVERNMENTS = Government.values();
+    private static final StandardOfLiving[] STANDARDS_OF_LIVING = StandardOfLiving.values();
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    /**
+     * Размер пула последних названий и губернаторов для повторов.
+     */
+    private static final int POOL = 4096;
+
+    private final Random random;
+    private Distribution distribution = Distribution.UNIFORM;
+    private double nameDuplicateRate = 0.05;
+    private double governorRate = 0.8;
+    private double governorDuplicateRate = 0.5;
+    private double standardOfLivingRate = 0.7;
+
+    private final String[] names = new String[POOL];
+    private final Human[] governors = new Human[POOL];
+    private long nameCount;
+    private long governorCount;
+    private long nextId = 1;
+
+    /**
+     * Создаёт генератор.
+     *
+     * @param seed зерно генератора случайных чисел
+     */
+    public DatasetGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Задаёт распределение значений полей (по умолчанию {@link Distribution#UNIFORM}).
+     *
+     * @param distribution распределение
+     * @return этот объект
+     */
+    public DatasetGenerator distribution(Distribution distribution) {
+        this.distribution = distribution;
+        return this;
+    }
+
+    /**
+     * Задаёт долю городов, название которых повторяет одно из недавних (по умолчанию 0,05).
+     *
+     * @param rate доля от 0 до 1
+     * @return этот объект
+     */
+    public DatasetGenerator nameDuplicateRate(double rate) {
+        this.nameDuplicateRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Задаёт долю городов с губернатором (по умолчанию 0,8).
+     *
+     * @param rate доля от 0 до 1
+     * @return этот объект
+     */
+    public DatasetGenerator governorRate(double rate) {
+        this.governorRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Задаёт долю губернаторов, повторяющих одного из недавних (по умолчанию 0,5).
+     *
+     * @param rate доля от 0 до 1
+     * @return этот объект
+     */
+    public DatasetGenerator governorDuplicateRate(double rate) {
+        this.governorDuplicateRate = checkRate(rate);
+        return this;
+    }
+
+    /**
+     * Задаёт долю городов с заполненным полем standardOfLiving (по умолчанию 0,7).
+     *
+     * @param rate доля от 0 до 1
+     * @return этот объект
+     */
+    public DatasetGenerator standardOfLivingRate(double rate) {
+        this.standardOfLivingRate = checkRate(rate);
+        return this;
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Доля должна быть от 0 до 1: " + rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Создаёт следующий город.
+     *
+     * @return город
+     */
+    public City next() {
+        City city = new City();
+        city.setId(nextId++);
+        city.setName(cityName());
+
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(random.nextInt(2288) - 287);
+        coordinates.setY(882 - random.nextInt(1883));
+        city.setCoordinates(coordinates);
+
+        city.setCreationDate(EPOCH.plusSeconds((long) (random.nextDouble() * 25 * 365 * 86400)));
+        if (distribution == Distribution.SKEWED) {
+            city.setArea(Math.max(0.01, Math.exp(4 + 1.5 * random.nextGaussian())));
+            city.setPopulation(Math.max(1L, (long) Math.exp(9 + 2 * random.nextGaussian())));
+        } else {
+            city.setArea(0.01 + random.nextDouble() * 10_000);
+            city.setPopulation(1L + random.nextInt(10_000_000));
+        }
+        city.setMetersAboveSeaLevel(Math.round(300 + 500 * random.nextGaussian()));
+        city.setClimate(pick(CLIMATES));
+        city.setGovernment(pick(GOVERNMENTS));
+        if (random.nextDouble() < standardOfLivingRate) {
+            city.setStandardOfLiving(pick(STANDARDS_OF_LIVING));
+        }
+        if (random.nextDouble() < governorRate) {
+            city.setGovernor(governor());
+        }
+
+        CityValidator.validate(city);
+        return city;
+    }
+
+    /**
+     * Создаёт города и записывает их.
+     *
+     * @param count количество городов
+     * @param out запись городов
+     * @throws IOException если произошла ошибка записи
+     */
+    public void generate(long count, CityWriter out) throws IOException {
+        for (long i = 0; i < count; i++) {
+            out.write(next());
+        }
+    }
+
+    /**
+     * Выбирает значение перечисления: равновероятно или с частотой, обратной номеру значения.
+     */
+    private <T> T pick(T[] values) {
+        if (distribution == Distribution.UNIFORM) {
+            return values[random.nextInt(values.length)];
+        }
+        double total = 0;
+        for (int i = 1; i <= values.length; i++) {
+            total += 1.0 / i;
+        }
+        double u = random.nextDouble() * total;
+        for (int i = 0; i < values.length; i++) {
+            u -= 1.0 / (i + 1);
+            if (u < 0) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    /**
+     * Возвращает название города: одно из недавних с вероятностью {@link #nameDuplicateRate}
+     * или новое из случайных слогов (около 5 млн вариантов, поэтому на очень больших
+     * наборах названия совпадают и без намеренных повторов).
+     */
+    private String cityName() {
+        if (nameCount > 0 && random.nextDouble() < nameDuplicateRate) {
+            return names[random.nextInt((int) Math.min(nameCount, POOL))];
+        }
+        StringBuilder sb = new StringBuilder(16);
+        int syllables = 2 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        sb.append(CITY_SUFFIXES[random.nextInt(CITY_SUFFIXES.length)]);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        String name = sb.toString();
+        names[(int) (nameCount++ % POOL)] = name;
+        return name;
+    }
+
+    /**
+     * Возвращает губернатора: одного из недавних с вероятностью
+     * {@link #governorDuplicateRate} или нового.
+     */
+    private Human governor() {
+        if (governorCount > 0 && random.nextDouble() < governorDuplicateRate) {
+            return governors[random.nextInt((int) Math.min(governorCount, POOL))];
+        }
+        Human human = new Human();
+        human.setName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        human.setHeight((float) Math.max(120, Math.min(220, 172 + 9 * random.nextGaussian())));
+        if (random.nextInt(5) != 0) {
+            human.setBirthday(EPOCH.minusDays(7000 + random.nextInt(20000)));
+        }
+        governors[(int) (governorCount++ % POOL)] = human;
+        return human;
+    }
+
+    /**
+     * Создаёт файл с синтетическим набором городов.
+     * <p>
+     * Использование: {@code java DatasetGenerator FILE COUNT [параметры]}, где FILE —
+     * путь к файлу или {@code -} для стандартного вывода. Параметры:
+     * </p>
+     * <ul>
+     *     <li>{@code --seed=N} — зерно генератора (по умолчанию 1);</li>
+     *     <li>{@code --format=xml|csv|jsonl} — формат файла (по умолчанию xml; csv и jsonl
+     *     читает команда import, см. {@link CityLineFormat});</li>
+     *     <li>{@code --distribution=uniform|skewed} — распределение значений;</li>
+     *     <li>{@code --name-dup=P} — доля повторяющихся названий;</li>
+     *     <li>{@code --governor=P} — доля городов с губернатором;</li>
+     *     <li>{@code --governor-dup=P} — доля повторяющихся губернаторов;</li>
+     *     <li>{@code --standard-of-living=P} — доля городов с полем standardOfLiving.</li>
+     * </ul>
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Использование: java DatasetGenerator FILE COUNT [--seed=N] [--format=xml|csv|jsonl]"
+                    + " [--distribution=uniform|skewed] [--name-dup=P] [--governor=P]"
+                    + " [--governor-dup=P] [--standard-of-living=P]");
+            return;
+        }
+        String file = args[0];
+        long count;
+        CityLineFormat format = null;
+        DatasetGenerator generator;
+        try {
+            count = Long.parseLong(args[1]);
+            long seed = 1;
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].startsWith("--seed=")) {
+                    seed = Long.parseLong(args[i].substring("--seed=".length()));
+                }
+            }
+            generator = new DatasetGenerator(seed);
+            for (int i = 2; i < args.length; i++) {
+                String arg = args[i];
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.startsWith("--seed=")) {
+                    continue;
+                } else if (arg.startsWith("--format=")) {
+                    format = value.equalsIgnoreCase("xml") ? null : CityLineFormat.of(value);
+                } else if (arg.startsWith("--distribution=")) {
+                    generator.distribution(Distribution.valueOf(value.toUpperCase(Locale.ROOT)));
+                } else if (arg.startsWith("--name-dup=")) {
+                    generator.nameDuplicateRate(Double.parseDouble(value));
+                } else if (arg.startsWith("--governor=")) {
+                    generator.governorRate(Double.parseDouble(value));
+                } else if (arg.startsWith("--governor-dup=")) {
+                    generator.governorDuplicateRate(Double.parseDouble(value));
+                } else if (arg.startsWith("--standard-of-living=")) {
+                    generator.standardOfLivingRate(Double.parseDouble(value));
+                } else {
+                    System.err.println("Неизвестный параметр: " + arg);
+                    return;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Некорректный параметр: " + e.getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        OutputStream stream;
+        try {
+            stream = file.equals("-") ? System.out : new FileOutputStream(file);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи: " + e.getMessage());
+            return;
+        }
+        try (CityWriter out = format == null ? XmlIO.openWriter(stream) : format.openWriter(stream)) {
+            long step = Math.max(1, count / 20);
+            for (long i = 1; i <= count; i++) {
+                out.write(generator.next());
+                if (i % step == 0 && !file.equals("-")) {
+                    System.err.println("Создано " + i + " из " + count);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка записи: " + e.getMessage());
+            return;
+        }
+        System.err.println("Создано городов: " + count + " за " + (System.nanoTime() - start) / 1_000_000 + " мс");
+    }
+}
@@ -0,0 +1,157 @@
+import java.time.LocalDateTime;
+
+/**
+ * Быстрое преобразование {@link LocalDateTime} в строку ISO и обратно.
+ * <p>
+ * Поддерживается фиксированный формат {@code yyyy-MM-ddTHH:mm[:ss[.nnnnnnnnn]]},
+ * в котором хранятся поля {@code creationDate} и {@code birthday}. Разбор такого
+ * формата выполняется по позициям символов без {@link java.time.format.DateTimeFormatter}
+ * и промежуточных объектов. Строки другого вида (например, с годом вне диапазона 0000–9999)
+ * разбираются стандартным {@link LocalDateTime#parse(CharSequence)}.
+ * </p>
+ */
+public final class DateTimeCodec {
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Разбирает дату-время в формате ISO.
+     *
+     * @param s строка с датой-временем
+     * @return дата-время
+     * @throws java.time.DateTimeException если строка не является корректной датой-временем
+     */
+    public static LocalDateTime parse(CharSequence s) {
+        int len = s.length();
+        if (len < 16 || len == 17 || len == 18 || len == 20 || len > 29
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            return LocalDateTime.parse(s);
+        }
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = 0;
+        int nano = 0;
+
+        if (len > 16) {
+            if (s.charAt(16) != ':') {
+                return LocalDateTime.parse(s);
+            }
+            second = digits(s, 17, 2);
+            if (len > 19) {
+                if (s.charAt(19) != '.') {
+                    return LocalDateTime.parse(s);
+                }
+                int fraction = digits(s, 20, len - 20);
+                if (fraction < 0) {
+                    return LocalDateTime.parse(s);
+                }
+                nano = fraction;
+                for (int i = len - 20; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        if ((year | month | day | hour | minute | second) < 0) {
+            return LocalDateTime.parse(s);
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Форматирует дату-время в формате {@code yyyy-MM-ddTHH:mm:ss[.nnn]}.
+     * <p>
+     * Секунды выводятся всегда, дробная часть — как в {@link LocalDateTime#toString()}
+     * (3, 6 или 9 цифр), если она не нулевая.
+     * </p>
+     *
+     * @param dateTime дата-время
+     * @param sb буфер, в который записывается результат
+     */
+    public static void format(LocalDateTime dateTime, StringBuilder sb) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            sb.append(dateTime);
+            return;
+        }
+
+        pad(sb, year, 4);
+        sb.append('-');
+        pad(sb, dateTime.getMonthValue(), 2);
+        sb.append('-');
+        pad(sb, dateTime.getDayOfMonth(), 2);
+        sb.append('T');
+        pad(sb, dateTime.getHour(), 2);
+        sb.append(':');
+        pad(sb, dateTime.getMinute(), 2);
+        sb.append(':');
+        pad(sb, dateTime.getSecond(), 2);
+
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            sb.append('.');
+            if (nano % 1_000_000 == 0) {
+                pad(sb, nano / 1_000_000, 3);
+            } else if (nano % 1_000 == 0) {
+                pad(sb, nano / 1_000, 6);
+            } else {
+                pad(sb, nano, 9);
+            }
+        }
+    }
+
+    /**
+     * Форматирует дату-время в строку.
+     *
+     * @param dateTime дата-время или {@code null}
+     * @return строка с датой-временем или пустая строка для {@code null}
+     */
+    public static String format(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(29);
+        format(dateTime, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Читает неотрицательное десятичное число из фиксированного числа символов.
+     *
+     * @return число или -1, если встретился не цифровой символ
+     */
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * Дописывает число, дополненное ведущими нулями до заданной ширины.
+     */
+    private static void pad(StringBuilder sb, int value, int width) {
+        for (int div = pow10(width - 1); div > 0; div /= 10) {
+            sb.append((char) ('0' + value / div % 10));
+        }
+    }
+
+    private static int pow10(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -1,5 +1,10 @@
 /**
  * Команда выполнения скрипта из файла.
+ * <p>
+ * С аргументом {@code batch} скрипт выполняется в пакетном режиме
+ * (см. {@link CommandManager#executeScript(String, CommandContext, boolean)}).
+ * Сетевым клиентам команда недоступна (см. {@link CommandContext#remote}).
+ * </p>
  */
 public class ExecuteScriptCommand implements Command {
 
@@ -10,20 +15,26 @@ public class ExecuteScriptCommand implements Command {
 
     @Override
     public String description() {
-        return "считать и исполнить скрипт из указанного файла";
+        return "считать и исполнить скрипт из указанного файла (batch — в пакетном режиме)";
     }
 
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        if (args.length != 1) {
-            System.out.println("Использование: execute_script file_name");
+        if (args.length < 1 || args.length > 2 || args.length == 2 && !args[1].equals("batch")) {
+            ctx.out.println("Использование: execute_script file_name [batch]");
             return true;
         }
 
+        ctx.requireLocalFiles(name());
         try {
-            ctx.manager.executeScript(args[0]);
+            return ctx.manager.executeScript(args[0], ctx, args.length == 2);
+        } catch (java.nio.file.NoSuchFileException e) {
+            ctx.out.println("Ошибка выполнения скрипта: файл не найден: " + e.getMessage());
         } catch (Exception e) {
-            System.out.println("Ошибка выполнения скрипта: " + e.getMessage());
+            ctx.out.println("Ошибка выполнения скрипта: " + e.getMessage());
         }
 
         return true;
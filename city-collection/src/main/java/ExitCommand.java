@@ -1,5 +1,10 @@
 /**
- * exit: завершить программу (без сохранения)
+ * exit: завершить программу (без сохранения).
+ * <p>
+ * Коллекция не сохраняется командой. Исключение — режим {@code --autosave}: пользователь
+ * сам включил сохранение изменений, поэтому при завершении процесса несохранённые
+ * изменения записываются в файл (см. {@link AutosaveService#shutdown(long)}).
+ * </p>
  */
 public class ExitCommand implements Command {
 
@@ -7,11 +12,19 @@ public class ExitCommand implements Command {
     public String name() { return "exit"; }
 
     @Override
-    public String description() { return "завершить программу (без сохранения)"; }
+    public String description() { return "завершить программу (без сохранения, кроме режима --autosave)"; }
+
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean requiresLoadedCollection() { return false; }
 
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        System.out.println("Выход без сохранения.");
+        ctx.out.println(ctx.manager.getAutosave() == null
+                ? "Выход без сохранения."
+                : "Выход. Несохранённые изменения запишет автосохранение.");
         return false;
     }
 }
\ No newline at end of file
@@ -13,11 +13,21 @@ public class HelpCommand implements Command {
         return "вывести справку по доступным командам";
     }
 
+    @Override
+    public boolean readOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresLoadedCollection() {
+        return false;
+    }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        System.out.println("Доступные команды:");
+        ctx.out.println("Доступные команды:");
         for (Command c : ctx.manager.allCommands()) {
-            System.out.println(" " + c.name() + " : " + c.description());
+            ctx.out.println(" " + c.name() + " : " + c.description());
         }
         return true;
     }
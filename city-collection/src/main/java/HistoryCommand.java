@@ -9,9 +9,15 @@ public class HistoryCommand implements Command {
     @Override
     public String description() { return "вывести последние 13 команд (без аргументов)"; }
 
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean requiresLoadedCollection() { return false; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        ctx.manager.printHistory();
+        ctx.manager.printHistory(ctx);
         return true;
     }
 }
\ No newline at end of file
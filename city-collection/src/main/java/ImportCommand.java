@@ -0,0 +1,133 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Команда массового добавления городов из файла или из ввода.
+ * <p>
+ * {@code import file_name|- [csv|jsonl]}: каждая строка содержит один город в формате
+ * {@link CityLineFormat} (формат определяется по расширению файла или задаётся явно).
+ * Поля проверяются так же, как при вводе в консоли ({@link CityValidator}). Строка
+ * с ошибкой пропускается, а сообщение о ней выводится с номером строки; импорт
+ * продолжается. Города добавляются пакетами по {@value #BATCH}
+ * ({@link CollectionManager#addAll(List)}).
+ * </p>
+ *
+ * <p>С аргументом {@code -} записи читаются из текущего ввода (консоли или строк
+ * скрипта, следующих за командой) до строки {@code .} или конца ввода; формат в этом
+ * случае обязателен. Сетевым клиентам доступен только этот вариант: файлы сервера
+ * по их запросу не открываются (см. {@link CommandContext#remote}).</p>
+ */
+public class ImportCommand implements Command {
+    /**
+     * Размер пакета добавления.
+     */
+    private static final int BATCH = 4096;
+
+    /**
+     * Количество ошибок, о которых сообщается подробно.
+     */
+    private static final int REPORTED_ERRORS = 20;
+
+    /**
+     * Источник строк.
+     */
+    private interface Lines {
+        String next() throws IOException;
+    }
+
+    @Override
+    public String name() {
+        return "import";
+    }
+
+    @Override
+    public String description() {
+        return "добавить города из файла CSV или JSON Lines (import file_name|- [csv|jsonl])";
+    }
+
+    @Override
+    public boolean heavy() { return true; }
+
+    @Override
+    public boolean execute(String[] args, InputManager input, CommandContext ctx) {
+        if (args.length < 1 || args.length > 2) {
+            ctx.out.println("Использование: import file_name|- [csv|jsonl]");
+            return true;
+        }
+        CityLineFormat format;
+        try {
+            format = args.length == 2 ? CityLineFormat.of(args[1]) : CityLineFormat.forFile(args[0]);
+        } catch (IllegalArgumentException e) {
+            ctx.out.println("Ошибка импорта: " + e.getMessage());
+            return true;
+        }
+        if (format == null) {
+            ctx.out.println("Ошибка импорта: укажите формат (csv или jsonl).");
+            return true;
+        }
+
+        if (args[0].equals("-")) {
+            run(() -> {
+                String line = input.readLine();
+                return line == null || line.trim().equals(".") ? null : line;
+            }, format, ctx);
+            return true;
+        }
+        ctx.requireLocalFiles(name());
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            run(reader::readLine, format, ctx);
+        } catch (NoSuchFileException e) {
+            ctx.out.println("Ошибка импорта: файл не найден: " + e.getMessage());
+        } catch (IOException e) {
+            ctx.out.println("Ошибка импорта: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void run(Lines lines, CityLineFormat format, CommandContext ctx) {
+        List<City> batch = new ArrayList<>(BATCH);
+        long added = 0;
+        long errors = 0;
+        long lineNumber = 0;
+        try {
+            String line;
+            while ((line = lines.next()) != null) {
+                lineNumber++;
+                if (line.isBlank() || lineNumber == 1 && format.isHeader(line.trim())) {
+                    continue;
+                }
+                try {
+                    City city = format.parse(line);
+                    CityValidator.validate(city);
+                    batch.add(city);
+                } catch (RuntimeException e) {
+                    errors++;
+                    if (errors <= REPORTED_ERRORS) {
+                        ctx.out.println("Строка " + lineNumber + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (batch.size() == BATCH) {
+                    ctx.cm.addAll(batch);
+                    added += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            ctx.out.println("Ошибка чтения в строке " + (lineNumber + 1) + ": " + e.getMessage());
+        } finally {
+            ctx.cm.addAll(batch);
+            added += batch.size();
+        }
+        if (errors > REPORTED_ERRORS) {
+            ctx.out.println("... и ещё ошибок: " + (errors - REPORTED_ERRORS));
+        }
+        ctx.out.println("Импортировано элементов: " + added + ", строк с ошибками: " + errors + ".");
+    }
+}
@@ -8,12 +8,26 @@ public class InfoCommand implements Command {
 
     @Override
     public String description() {
-        return "вывести информацию о коллекции (тип, дата инициализации, количество элементов)";
+        return "вывести информацию о коллекции (тип, дата инициализации, количество элементов, оценка памяти)";
     }
 
+    @Override
+    public boolean readOnly() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        System.out.println(ctx.cm.info());
+        ctx.out.println(ctx.manager.cache().get("info", ctx.cm::info));
+        ctx.out.println(ctx.manager.cache().info());
+        ctx.out.println(ctx.manager.getAdmission().info());
+        if (ctx.manager.getReplicationPrimary() != null) {
+            ctx.out.println(ctx.manager.getReplicationPrimary().info());
+        }
+        if (ctx.manager.getReplicationFollower() != null) {
+            ctx.out.println(ctx.manager.getReplicationFollower().info());
+        }
+        if (ctx.manager.getAutosave() != null) {
+            ctx.out.println(ctx.manager.getAutosave().info());
+        }
         return true;
     }
 }
\ No newline at end of file
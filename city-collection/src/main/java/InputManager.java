@@ -1,3 +1,6 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 
 /**
@@ -5,12 +8,17 @@ import java.time.LocalDateTime;
  * <p>
  * Считывает данные из {@link java.util.Scanner} и выполняет валидацию значений
  * согласно ограничениям полей моделей (City, Coordinates, Human).
- * Поддерживает интерактивный режим (с приглашениями) и режим выполнения скрипта.
+ * Поддерживает интерактивный режим (с приглашениями) и режим выполнения скрипта
+ * или сетевого запроса, в котором некорректное значение сразу приводит к ошибке.
  * </p>
+ *
+ * <p>Для скриптов значения читаются напрямую из {@link BufferedReader}: строки скрипта,
+ * следующие за командой, становятся значениями её полей.</p>
  */
 public class InputManager {
 
     private final java.util.Scanner scanner;
+    private final BufferedReader reader;
     private final boolean interactive;
 
     /**
@@ -21,21 +29,78 @@ public class InputManager {
      */
     public InputManager(java.util.Scanner scanner, boolean interactive) {
         this.scanner = scanner;
+        this.reader = null;
         this.interactive = interactive;
     }
 
     /**
-     * Считывает строку из scanner, печатая приглашение в интерактивном режиме.
+     * Конструктор менеджера ввода для скрипта: значения читаются построчно из reader,
+     * без приглашений.
+     *
+     * @param reader источник ввода
+     */
+    public InputManager(BufferedReader reader) {
+        this.scanner = null;
+        this.reader = reader;
+        this.interactive = false;
+    }
+
+    /**
+     * Считывает строку из источника, печатая приглашение в интерактивном режиме.
      *
      * @param text приглашение
      * @return введённая строка или null, если ввода больше нет
      */
     private String prompt(String text) {
         if (interactive) System.out.print(text);
+        return readLine();
+    }
+
+    /**
+     * Считывает следующую строку ввода без приглашения.
+     *
+     * @return строка или null, если ввода больше нет
+     */
+    public String readLine() {
+        if (reader != null) {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         if (!scanner.hasNextLine()) return null;
         return scanner.nextLine();
     }
 
+    /**
+     * Считывает значение поля. Приглашение {@code "Введите <field><hint>: "}
+     * собирается только в интерактивном режиме.
+     *
+     * @param field имя поля
+     * @param hint уточнение после имени поля
+     * @return введённая строка или null, если ввода больше нет
+     */
+    private String prompt(String field, String hint) {
+        return prompt(interactive ? "Введите " + field + hint + ": " : null);
+    }
+
+    /**
+     * Сообщает о некорректном значении.
+     * <p>
+     * В интерактивном режиме печатает ошибку (значение будет запрошено снова),
+     * в режиме скрипта или сетевого запроса прерывает чтение исключением:
+     * переспросить значение там не у кого.
+     * </p>
+     *
+     * @param field имя поля
+     * @param message описание ошибки
+     */
+    private void invalid(String field, String message) {
+        if (!interactive) throw new IllegalArgumentException(field + ": " + message);
+        System.out.println("Ошибка: " + message);
+    }
+
     /**
      * Считывает непустую строку (после trim()).
      *
@@ -44,11 +109,11 @@ public class InputManager {
      */
     private String readNonEmptyString(String field) {
         while (true) {
-            String s = prompt("Введите " + field + ": ");
+            String s = prompt(field, "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (!s.isEmpty()) return s;
-            System.out.println("Ошибка: строка не должна быть пустой.");
+            invalid(field, "строка не должна быть пустой.");
         }
     }
 
@@ -63,7 +128,7 @@ public class InputManager {
      */
     private Integer readInt(String field, java.util.function.IntPredicate predicate, String errMsg, boolean allowNull) {
         while (true) {
-            String s = prompt("Введите " + field + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " (пусто = null)" : "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
@@ -71,12 +136,12 @@ public class InputManager {
             try {
                 int v = Integer.parseInt(s);
                 if (predicate != null && !predicate.test(v)) {
-                    System.out.println("Ошибка: " + errMsg);
+                    invalid(field, errMsg);
                     continue;
                 }
                 return v;
             } catch (NumberFormatException e) {
-                System.out.println("Ошибка: нужно целое число.");
+                invalid(field, "нужно целое число.");
             }
         }
     }
@@ -86,7 +151,7 @@ public class InputManager {
      */
     private Long readLongObj(String field, java.util.function.LongPredicate predicate, String errMsg, boolean allowNull) {
         while (true) {
-            String s = prompt("Введите " + field + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " (пусто = null)" : "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
@@ -94,12 +159,12 @@ public class InputManager {
             try {
                 long v = Long.parseLong(s);
                 if (predicate != null && !predicate.test(v)) {
-                    System.out.println("Ошибка: " + errMsg);
+                    invalid(field, errMsg);
                     continue;
                 }
                 return v;
             } catch (NumberFormatException e) {
-                System.out.println("Ошибка: нужно целое число (long).");
+                invalid(field, "нужно целое число (long).");
             }
         }
     }
@@ -109,19 +174,19 @@ public class InputManager {
      */
     private long readLongPrim(String field, java.util.function.LongPredicate predicate, String errMsg) {
         while (true) {
-            String s = prompt("Введите " + field + ": ");
+            String s = prompt(field, "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
 
             try {
                 long v = Long.parseLong(s);
                 if (predicate != null && !predicate.test(v)) {
-                    System.out.println("Ошибка: " + errMsg);
+                    invalid(field, errMsg);
                     continue;
                 }
                 return v;
             } catch (NumberFormatException e) {
-                System.out.println("Ошибка: нужно целое число (long).");
+                invalid(field, "нужно целое число (long).");
             }
         }
     }
@@ -131,7 +196,7 @@ public class InputManager {
      */
     private Double readDoubleObj(String field, java.util.function.DoublePredicate predicate, String errMsg, boolean allowNull) {
         while (true) {
-            String s = prompt("Введите " + field + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " (пусто = null)" : "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
@@ -139,12 +204,12 @@ public class InputManager {
             try {
                 double v = Double.parseDouble(s);
                 if (predicate != null && !predicate.test(v)) {
-                    System.out.println("Ошибка: " + errMsg);
+                    invalid(field, errMsg);
                     continue;
                 }
                 return v;
             } catch (NumberFormatException e) {
-                System.out.println("Ошибка: нужно число (double).");
+                invalid(field, "нужно число (double).");
             }
         }
     }
@@ -154,7 +219,7 @@ public class InputManager {
      */
     private Float readFloatObj(String field, java.util.function.DoublePredicate predicate, String errMsg, boolean allowNull) {
         while (true) {
-            String s = prompt("Введите " + field + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " (пусто = null)" : "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
@@ -162,12 +227,12 @@ public class InputManager {
             try {
                 float v = Float.parseFloat(s);
                 if (predicate != null && !predicate.test(v)) {
-                    System.out.println("Ошибка: " + errMsg);
+                    invalid(field, errMsg);
                     continue;
                 }
                 return v;
             } catch (NumberFormatException e) {
-                System.out.println("Ошибка: нужно число (float).");
+                invalid(field, "нужно число (float).");
             }
         }
     }
@@ -179,10 +244,12 @@ public class InputManager {
         E[] vals = enumClass.getEnumConstants();
 
         while (true) {
-            System.out.println("Возможные значения " + field + ":");
-            for (E v : vals) System.out.println(" - " + v.name());
+            if (interactive) {
+                System.out.println("Возможные значения " + field + ":");
+                for (E v : vals) System.out.println(" - " + v.name());
+            }
 
-            String s = prompt("Введите " + field + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " (пусто = null)" : "");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
@@ -190,7 +257,7 @@ public class InputManager {
             try {
                 return Enum.valueOf(enumClass, s);
             } catch (Exception e) {
-                System.out.println("Ошибка: нужно одно из значений списка.");
+                invalid(field, "нужно одно из значений списка.");
             }
         }
     }
@@ -200,15 +267,15 @@ public class InputManager {
      */
     private LocalDateTime readDateTime(String field, boolean allowNull) {
         while (true) {
-            String s = prompt("Введите " + field + " в формате YYYY-MM-DDTHH:MM:SS" + (allowNull ? " (пусто = null)" : "") + ": ");
+            String s = prompt(field, allowNull ? " в формате YYYY-MM-DDTHH:MM:SS (пусто = null)" : " в формате YYYY-MM-DDTHH:MM:SS");
             if (s == null) throw new IllegalArgumentException("Нет ввода для " + field);
             s = s.trim();
             if (allowNull && s.isEmpty()) return null;
 
             try {
-                return LocalDateTime.parse(s);
+                return DateTimeCodec.parse(s);
             } catch (Exception e) {
-                System.out.println("Ошибка: неверный формат даты-времени.");
+                invalid(field, "неверный формат даты-времени.");
             }
         }
     }
@@ -0,0 +1,123 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек без блокировок.
+ * <p>
+ * Значения (в наносекундах) раскладываются по корзинам с логарифмически растущей
+ * шириной: каждый интервал от 2^k до 2^(k+1) делится на {@value #SUB_BUCKETS} равных
+ * корзин, поэтому относительная погрешность процентилей не превышает 1/{@value #SUB_BUCKETS}
+ * при любом масштабе значений. Запись — одно атомарное увеличение счётчика корзины,
+ * поэтому гистограмму можно заполнять из многих потоков одновременно.
+ * </p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Учитывает значение.
+     *
+     * @param nanos задержка, нс
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(index(nanos));
+        count.increment();
+        total.add(nanos);
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину.
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long base = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Возвращает наибольшее значение.
+     *
+     * @return максимум, нс
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Возвращает сумму записанных значений.
+     *
+     * @return сумма, нс
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * Возвращает среднее значение.
+     *
+     * @return среднее, нс, или 0, если значений нет
+     */
+    public long mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Возвращает процентиль.
+     * <p>
+     * Значения, записываемые одновременно с вызовом, могут быть учтены частично.
+     * </p>
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return значение, не меньше которого {@code percentile}% записанных значений, нс
+     */
+    public long percentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
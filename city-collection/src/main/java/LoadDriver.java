@@ -0,0 +1,511 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный драйвер: подаёт поток команд с заданной частотой и измеряет пропускную
+ * способность и задержки.
+ * <p>
+ * Команды выбираются из смеси с весами (например, 80% чтений, 15% update, 5% add и
+ * remove_by_id) или воспроизводятся по кругу из файла. Они выполняются либо в том же
+ * процессе — через {@link BinaryRequestHandler} над собственной коллекцией, с теми же
+ * блокировками, кэшем и статистикой, что и на сервере, — либо на сервере в режиме
+ * {@code --server=binary} через {@link CityClient}.
+ * </p>
+ *
+ * <p>Планирование открытое: время отправки i-й команды назначается заранее
+ * ({@code начало + i / частота}) и не зависит от того, завершились ли предыдущие. Задержка
+ * отсчитывается от назначенного времени, а не от фактической отправки, поэтому
+ * ожидание в очереди за медленной командой входит в задержку (нет «скоординированного
+ * пропуска» измерений). Отдельно выводится время обслуживания — от фактической отправки.
+ * Если частота выше пропускной способности, задержки растут всё время прогона.</p>
+ *
+ * <p>Команды выполняют {@code --clients} клиентов: при выполнении в процессе — потоки
+ * со своим сеансом, при работе с сервером — соединения {@link CityClient}.
+ * Результаты первых {@code --warmup} секунд не учитываются.</p>
+ */
+public class LoadDriver {
+    /**
+     * Операции нагрузки.
+     */
+    enum Operation {
+        INFO("info"),
+        MIN_BY_CLIMATE("min_by_climate"),
+        HISTORY("history"),
+        SHOW_PAGE("show"),
+        ADD("add"),
+        UPDATE("update"),
+        REMOVE_BY_ID("remove_by_id");
+
+        final String command;
+
+        Operation(String command) {
+            this.command = command;
+        }
+
+        static Operation of(String command) {
+            for (Operation op : values()) {
+                if (op.command.equals(command)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("неподдерживаемая команда: " + command);
+        }
+    }
+
+    /**
+     * Количество городов в странице show.
+     */
+    private static final int PAGE = 20;
+
+    /**
+     * Смесь команд по умолчанию: 80% чтений, 15% update, 5% add и remove_by_id.
+     */
+    private static final String DEFAULT_MIX = "info:40,min_by_climate:25,show:15,update:15,add:3,remove_by_id:2";
+
+    /**
+     * Исполнитель команд.
+     */
+    private interface Target extends AutoCloseable {
+        /**
+         * Отправляет команду.
+         *
+         * @param op операция
+         * @param id id для update, remove_by_id и show (начало страницы)
+         * @param city город для add и update
+         * @return future, завершающийся по окончании команды; ошибка команды завершает его исключением
+         */
+        CompletableFuture<?> submit(Operation op, long id, City city);
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Выполнение команд в процессе: у каждого потока-клиента свой сеанс.
+     */
+    private static final class LocalTarget implements Target {
+        private final ExecutorService clients;
+        private final ThreadLocal<BinaryRequestHandler> sessions;
+
+        LocalTarget(CommandManager manager, int clientCount) {
+            AtomicInteger number = new AtomicInteger();
+            clients = Executors.newFixedThreadPool(clientCount, r -> {
+                Thread t = new Thread(r, "load-client-" + number.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            sessions = ThreadLocal.withInitial(() -> new BinaryRequestHandler(manager));
+        }
+
+        @Override
+        public CompletableFuture<?> submit(Operation op, long id, City city) {
+            ProtocolRequest request = switch (op) {
+                case INFO -> ProtocolRequest.of(Opcode.INFO);
+                case MIN_BY_CLIMATE -> ProtocolRequest.of(Opcode.MIN_BY_CLIMATE);
+                case HISTORY -> ProtocolRequest.of(Opcode.HISTORY);
+                case SHOW_PAGE -> ProtocolRequest.page(Opcode.SHOW_PAGE, id, PAGE);
+                case ADD -> new ProtocolRequest(Opcode.ADD, 0, city, null, null);
+                case UPDATE -> new ProtocolRequest(Opcode.UPDATE, id, city, null, null);
+                case REMOVE_BY_ID -> new ProtocolRequest(Opcode.REMOVE_BY_ID, id, null, null, null);
+            };
+            return CompletableFuture.supplyAsync(() -> {
+                ProtocolResponse response = sessions.get().handle(request);
+                if (!response.ok) {
+                    throw new IllegalStateException(response.text);
+                }
+                return response;
+            }, clients);
+        }
+
+        @Override
+        public void close() {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Выполнение команд на сервере с двоичным протоколом.
+     */
+    private static final class RemoteTarget implements Target {
+        private final CityClient client;
+
+        RemoteTarget(String host, int port, int clientCount) throws IOException {
+            client = new CityClient(host, port, clientCount);
+        }
+
+        @Override
+        public CompletableFuture<?> submit(Operation op, long id, City city) {
+            return switch (op) {
+                case INFO -> client.info();
+                case MIN_BY_CLIMATE -> client.minByClimate();
+                case HISTORY -> client.history();
+                case SHOW_PAGE -> client.showPage(id, PAGE);
+                case ADD -> client.add(city);
+                case UPDATE -> client.update(id, city);
+                case REMOVE_BY_ID -> client.removeById(id);
+            };
+        }
+
+        @Override
+        public void close() {
+            client.close();
+        }
+    }
+
+    /**
+     * Результаты одной операции.
+     */
+    private static final class Result {
+        /**
+         * Время от назначенного момента отправки до завершения.
+         */
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Время от фактической отправки до завершения.
+         */
+        final LatencyHistogram service = new LatencyHistogram();
+
+        final LongAdder failures = new LongAdder();
+
+        void record(long latencyNanos, long serviceNanos, boolean failed) {
+            latency.record(latencyNanos);
+            service.record(serviceNanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+    }
+
+    private final Target target;
+    private final List<Operation> replay;
+    private final Operation[] mixOps;
+    private final int[] mixWeights;
+    private final long idRange;
+    private final Random random;
+    private final DatasetGenerator cities;
+    private final Map<Operation, Result> results = new EnumMap<>(Operation.class);
+    private final Result total = new Result();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final LongAdder completedInWindow = new LongAdder();
+    private int replayPosition;
+    private long maxSendLag;
+
+    /**
+     * Создаёт драйвер.
+     *
+     * @param target исполнитель команд
+     * @param mix смесь команд {@code команда:вес,...}; не используется, если задан replay
+     * @param replay команды для воспроизведения по кругу или {@code null}
+     * @param idRange id для update, remove_by_id и show выбираются из {@code [1, idRange]}
+     * @param seed зерно выбора команд, id и новых городов
+     */
+    LoadDriver(Target target, String mix, List<Operation> replay, long idRange, long seed) {
+        this.target = target;
+        this.replay = replay;
+        this.idRange = Math.max(1, idRange);
+        this.random = new Random(seed);
+        this.cities = new DatasetGenerator(seed + 1);
+        String[] parts = mix.split(",");
+        mixOps = new Operation[parts.length];
+        mixWeights = new int[parts.length];
+        int sum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] kv = parts[i].trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("смесь задаётся как команда:вес,...");
+            }
+            mixOps[i] = Operation.of(kv[0]);
+            int weight = Integer.parseInt(kv[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("вес не может быть отрицательным");
+            }
+            sum += weight;
+            mixWeights[i] = sum;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("сумма весов смеси должна быть положительной");
+        }
+        for (Operation op : Operation.values()) {
+            results.put(op, new Result());
+        }
+    }
+
+    private Operation nextOperation() {
+        if (replay != null) {
+            Operation op = replay.get(replayPosition);
+            replayPosition = (replayPosition + 1) % replay.size();
+            return op;
+        }
+        int r = random.nextInt(mixWeights[mixWeights.length - 1]);
+        int i = 0;
+        while (r >= mixWeights[i]) {
+            i++;
+        }
+        return mixOps[i];
+    }
+
+    /**
+     * Выполняет прогон.
+     *
+     * @param rate частота отправки команд в секунду
+     * @param warmupSeconds длительность разогрева, результаты которого не учитываются
+     * @param durationSeconds длительность измерения
+     * @param drainSeconds сколько ждать завершения команд после окончания отправки
+     * @return отчёт
+     */
+    String run(double rate, double warmupSeconds, double durationSeconds, double drainSeconds) {
+        long start = System.nanoTime();
+        long measureFrom = start + (long) (warmupSeconds * 1e9);
+        long measureTo = measureFrom + (long) (durationSeconds * 1e9);
+        long sent = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * 1e9 / rate);
+            if (intended >= measureTo) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation op = nextOperation();
+            long id = 1 + (long) (random.nextDouble() * idRange);
+            City city = op == Operation.ADD || op == Operation.UPDATE ? cities.next() : null;
+            boolean measured = intended >= measureFrom;
+            long issued = System.nanoTime();
+            if (measured) {
+                sent++;
+                maxSendLag = Math.max(maxSendLag, issued - intended);
+            }
+            inFlight.incrementAndGet();
+            CompletableFuture<?> future;
+            try {
+                future = target.submit(op, id, city);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((r, e) -> {
+                long done = System.nanoTime();
+                if (measured) {
+                    results.get(op).record(done - intended, done - issued, e != null);
+                    total.record(done - intended, done - issued, e != null);
+                    if (done <= measureTo) {
+                        completedInWindow.increment();
+                    }
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long drainUntil = System.nanoTime() + (long) (drainSeconds * 1e9);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return report(rate, durationSeconds, sent);
+    }
+
+    private String report(double rate, double durationSeconds, long sent) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Заданная частота: %.1f команд/с, отправлено за %.1f с: %d%n",
+                rate, durationSeconds, sent));
+        sb.append(String.format("Выполнено за время измерения: %d (%.1f команд/с), не завершено: %d%n",
+                completedInWindow.sum(), completedInWindow.sum() / durationSeconds, inFlight.get()));
+        sb.append(String.format("Наибольшее опоздание отправки: %.3f мс%n", maxSendLag / 1e6));
+        sb.append(String.format("Задержки от назначенного времени отправки (обслуживание — от фактической), мс:%n"));
+        sb.append(String.format("%-16s %9s %7s %9s %9s %9s %9s %9s %11s%n",
+                "команда", "вызовов", "ошибок", "p50", "p90", "p99", "p99.9", "max", "обсл. p99"));
+        for (Map.Entry<Operation, Result> e : results.entrySet()) {
+            if (e.getValue().latency.count() > 0) {
+                row(sb, e.getKey().command, e.getValue());
+            }
+        }
+        row(sb, "всего", total);
+        sb.setLength(sb.length() - System.lineSeparator().length());
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, Result r) {
+        LatencyHistogram h = r.latency;
+        sb.append(String.format("%-16s %9d %7d %9.3f %9.3f %9.3f %9.3f %9.3f %11.3f%n",
+                name, h.count(), r.failures.sum(),
+                h.percentile(50) / 1e6, h.percentile(90) / 1e6, h.percentile(99) / 1e6,
+                h.percentile(99.9) / 1e6, h.max() / 1e6, r.service.percentile(99) / 1e6));
+    }
+
+    /**
+     * Читает команды для воспроизведения: по одной в строке, только имя команды
+     * (аргументы и пустые строки пропускаются, {@code #} — комментарий). Подходит,
+     * например, вывод history.
+     *
+     * @param file файл
+     * @return команды
+     * @throws IOException если файл не читается
+     */
+    static List<Operation> readReplay(Path file) throws IOException {
+        List<Operation> ops = new ArrayList<>();
+        int number = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                ops.add(Operation.of(line.split("\\s+")[0]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + ":" + number + ": " + e.getMessage());
+            }
+        }
+        if (ops.isEmpty()) {
+            throw new IllegalArgumentException(file + ": нет команд");
+        }
+        return ops;
+    }
+
+    /**
+     * Точка входа.
+     * <p>
+     * Использование: {@code java LoadDriver [параметры]}. Параметры:
+     * </p>
+     * <ul>
+     *     <li>{@code --server=HOST:PORT} — нагружать сервер в режиме {@code --server=binary};
+     *     без него команды выполняются в процессе;</li>
+     *     <li>{@code --file=FILE} — при выполнении в процессе загрузить коллекцию из файла
+     *     (файл не изменяется);</li>
+     *     <li>{@code --generate=N} — при выполнении в процессе создать N городов
+     *     (по умолчанию 100000, если не указан файл);</li>
+     *     <li>{@code --partitions=N} — при выполнении в процессе использовать
+     *     {@link PartitionedCollectionManager};</li>
+     *     <li>{@code --rate=N} — команд в секунду (по умолчанию 1000);</li>
+     *     <li>{@code --duration=SECONDS} — длительность измерения (по умолчанию 30);</li>
+     *     <li>{@code --warmup=SECONDS} — длительность разогрева (по умолчанию 5);</li>
+     *     <li>{@code --clients=N} — количество клиентов (по умолчанию 8);</li>
+     *     <li>{@code --mix=команда:вес,...} — смесь команд (по умолчанию {@value #DEFAULT_MIX});
+     *     поддерживаются info, min_by_climate, history, show (страница), add, update, remove_by_id;</li>
+     *     <li>{@code --replay=FILE} — вместо смеси воспроизводить команды из файла по кругу;</li>
+     *     <li>{@code --id-range=N} — id для update, remove_by_id и show выбираются из [1, N]
+     *     (по умолчанию — размер коллекции в процессе, 1000 для сервера);</li>
+     *     <li>{@code --seed=N} — зерно (по умолчанию 1).</li>
+     * </ul>
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        String server = null;
+        String file = null;
+        long generate = -1;
+        int partitions = 0;
+        double rate = 1000;
+        double duration = 30;
+        double warmup = 5;
+        int clients = 8;
+        String mix = DEFAULT_MIX;
+        List<Operation> replay = null;
+        long idRange = -1;
+        long seed = 1;
+        try {
+            for (String arg : args) {
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.startsWith("--server=")) {
+                    server = value;
+                } else if (arg.startsWith("--file=")) {
+                    file = value;
+                } else if (arg.startsWith("--generate=")) {
+                    generate = Long.parseLong(value);
+                } else if (arg.startsWith("--partitions=")) {
+                    partitions = Integer.parseInt(value);
+                } else if (arg.startsWith("--rate=")) {
+                    rate = Double.parseDouble(value);
+                } else if (arg.startsWith("--duration=")) {
+                    duration = Double.parseDouble(value);
+                } else if (arg.startsWith("--warmup=")) {
+                    warmup = Double.parseDouble(value);
+                } else if (arg.startsWith("--clients=")) {
+                    clients = Integer.parseInt(value);
+                } else if (arg.startsWith("--mix=")) {
+                    mix = value;
+                } else if (arg.startsWith("--replay=")) {
+                    replay = readReplay(Path.of(value));
+                } else if (arg.startsWith("--id-range=")) {
+                    idRange = Long.parseLong(value);
+                } else if (arg.startsWith("--seed=")) {
+                    seed = Long.parseLong(value);
+                } else {
+                    System.err.println("Неизвестный параметр: " + arg);
+                    return;
+                }
+            }
+            if (rate <= 0 || duration <= 0 || warmup < 0 || clients <= 0) {
+                throw new IllegalArgumentException("частота, длительность и количество клиентов должны быть положительными");
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Некорректный параметр: " + e.getMessage());
+            return;
+        }
+
+        Target target;
+        try {
+            if (server != null) {
+                int colon = server.lastIndexOf(':');
+                target = new RemoteTarget(server.substring(0, colon),
+                        Integer.parseInt(server.substring(colon + 1)), clients);
+                if (idRange < 0) {
+                    idRange = 1000;
+                }
+            } else {
+                CollectionManager cm = partitions > 0
+                        ? new PartitionedCollectionManager(partitions) : new CollectionManager();
+                XmlIO io = new XmlIO(file != null ? file : "load-driver.xml");
+                if (file != null) {
+                    io.loadInto(cm);
+                }
+                if (generate < 0 && file == null) {
+                    generate = 100_000;
+                }
+                DatasetGenerator generator = new DatasetGenerator(seed);
+                for (long i = 0; i < generate; i++) {
+                    City city = generator.next();
+                    city.setId(0);
+                    cm.addLoaded(city);
+                }
+                cm.syncNextIdFromLoadedData();
+                System.err.println("Коллекция: " + cm.size() + " городов");
+                if (idRange < 0) {
+                    idRange = cm.size();
+                }
+                target = new LocalTarget(new CommandManager(cm, io), clients);
+            }
+        } catch (Exception e) {
+            System.err.println("Не удалось подготовить нагрузку: " + e.getMessage());
+            return;
+        }
+
+        try (Target t = target) {
+            LoadDriver driver = new LoadDriver(t, mix, replay, idRange, seed);
+            System.err.printf(Locale.ROOT, "Нагрузка: %.1f команд/с, %d клиентов, разогрев %.0f с, измерение %.0f с%n",
+                    rate, clients, warmup, duration);
+            System.out.println(driver.run(rate, warmup, duration, 30));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Некорректный параметр: " + e.getMessage());
+        }
+    }
+}
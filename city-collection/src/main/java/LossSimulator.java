@@ -0,0 +1,42 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Имитация потери датаграмм для проверки UDP-транспорта.
+ * <p>
+ * Каждая исходящая датаграмма отбрасывается с заданной вероятностью.
+ * При нулевой вероятности датаграммы не теряются.
+ * </p>
+ */
+public class LossSimulator {
+    /**
+     * Имитатор без потерь.
+     */
+    public static final LossSimulator NONE = new LossSimulator(0);
+
+    private final double probability;
+
+    /**
+     * Создаёт имитатор.
+     *
+     * @param probability вероятность потери датаграммы, от 0 до 1
+     */
+    public LossSimulator(double probability) {
+        if (!(probability >= 0 && probability < 1)) {
+            throw new IllegalArgumentException("Вероятность потери должна быть в диапазоне [0, 1)");
+        }
+        this.probability = probability;
+    }
+
+    /**
+     * Решает, потерять ли очередную датаграмму.
+     *
+     * @return {@code true}, если датаграмму нужно отбросить
+     */
+    public boolean drop() {
+        return probability > 0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    public double probability() {
+        return probability;
+    }
+}
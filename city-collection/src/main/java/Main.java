@@ -1,13 +1,61 @@
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
 import java.io.File;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.text.ParseException;
 import java.util.Scanner;
 
 /**
  * Точка входа в приложение.
  */
 public class Main {
+    /**
+     * Сколько ждать завершения текущего автосохранения при выходе, мс.
+     */
+    private static final long AUTOSAVE_SHUTDOWN_MS = 30_000;
 
     /**
      * Запускает приложение.
+     * <p>
+     * Первый аргумент — путь к XML-файлу. Дополнительные параметры:
+     * </p>
+     * <ul>
+     *     <li>{@code --async-load} — загружать коллекцию в фоне и принимать команды сразу;</li>
+     *     <li>{@code --autosave=SECONDS} — включить фоновое автосохранение с указанным
+     *     максимальным интервалом; несохранённые изменения записываются и при завершении
+     *     процесса (exit в консоли, конец ввода, сигнал завершения);</li>
+     *     <li>{@code --autosave-changes=N} — сохранять сразу после N изменений (по умолчанию 100);</li>
+     *     <li>{@code --port=PORT} — вместо консоли принимать команды по TCP;</li>
+     *     <li>{@code --bind=ADDR} — адрес, на котором сетевые серверы принимают соединения
+     *     (по умолчанию только локальный {@code 127.0.0.1}). Клиенты не проходят проверку
+     *     подлинности, поэтому другой адрес стоит указывать только в доверенной сети;</li>
+     *     <li>{@code --server=nio|threads|binary|udp} — сетевой режим: один поток с селектором
+     *     ({@link NioServer}, по умолчанию), поток на соединение ({@link ThreadedServer}),
+     *     двоичный протокол ({@link BinaryServer}) или двоичный протокол поверх UDP ({@link UdpServer});</li>
+     *     <li>{@code --udp-loss=P} — терять исходящие UDP-датаграммы с вероятностью P (для проверки);</li>
+     *     <li>{@code --rate-limit=N} — не более N команд в секунду от одного клиента (N может быть
+     *     дробным: 0.5 — одна команда в две секунды);</li>
+     *     <li>{@code --max-queue=N} — не более N команд, ожидающих выполнения (по умолчанию 1000);
+     *     остальные отклоняются (см. {@link AdmissionController});</li>
+     *     <li>{@code --replication-port=PORT} — передавать изменения коллекции ведомым
+     *     процессам, подключающимся к порту на адресе {@code --bind} ({@link ReplicationPrimary});</li>
+     *     <li>{@code --replica-of=HOST:PORT} — работать ведомым: получать коллекцию от ведущего
+     *     вместо загрузки из файла и выполнять только читающие команды ({@link ReplicationFollower});
+     *     несовместим с {@code --autosave};</li>
+     *     <li>{@code --partitions=N} — хранить коллекцию в N секциях по хэшу id, изменять разные
+     *     элементы одновременно и обходить секции параллельно ({@link PartitionedCollectionManager});</li>
+     *     <li>{@code --jfr=FILE} — вести запись Java Flight Recorder с настройками {@code default}
+     *     и событиями загрузки, сохранения, команд и операций над коллекцией; запись сохраняется
+     *     в файл при завершении процесса;</li>
+     *     <li>{@code --metrics-port=PORT} — отдавать метрики в формате Prometheus
+     *     по адресу {@code http://ADDR:PORT/metrics}, где ADDR — адрес {@code --bind}
+     *     ({@link MetricsServer}).</li>
+     * </ul>
      *
      * @param args аргументы командной строки
      */
@@ -19,19 +67,175 @@ public class Main {
         }
 
         String filePath = args[0];
-        CollectionManager collectionManager = new CollectionManager();
+        boolean asyncLoad = false;
+        long autosaveSeconds = 0;
+        long autosaveChanges = 100;
+        int port = 0;
+        InetAddress bind = InetAddress.getLoopbackAddress();
+        String serverMode = "nio";
+        double udpLoss = 0;
+        double rateLimit = 0;
+        int maxQueue = 1000;
+        int replicationPort = 0;
+        String replicaOf = null;
+        int replicaPort = 0;
+        int partitions = 0;
+        String jfrFile = null;
+        int metricsPort = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--async-load")) {
+                    asyncLoad = true;
+                } else if (args[i].startsWith("--autosave=")) {
+                    autosaveSeconds = Long.parseLong(args[i].substring("--autosave=".length()));
+                } else if (args[i].startsWith("--autosave-changes=")) {
+                    autosaveChanges = Long.parseLong(args[i].substring("--autosave-changes=".length()));
+                } else if (args[i].startsWith("--port=")) {
+                    port = Integer.parseInt(args[i].substring("--port=".length()));
+                } else if (args[i].startsWith("--bind=")) {
+                    bind = InetAddress.getByName(args[i].substring("--bind=".length()));
+                } else if (args[i].startsWith("--server=")) {
+                    serverMode = args[i].substring("--server=".length());
+                } else if (args[i].startsWith("--udp-loss=")) {
+                    udpLoss = Double.parseDouble(args[i].substring("--udp-loss=".length()));
+                } else if (args[i].startsWith("--rate-limit=")) {
+                    rateLimit = Double.parseDouble(args[i].substring("--rate-limit=".length()));
+                } else if (args[i].startsWith("--max-queue=")) {
+                    maxQueue = Integer.parseInt(args[i].substring("--max-queue=".length()));
+                } else if (args[i].startsWith("--replication-port=")) {
+                    replicationPort = Integer.parseInt(args[i].substring("--replication-port=".length()));
+                } else if (args[i].startsWith("--replica-of=")) {
+                    replicaOf = args[i].substring("--replica-of=".length());
+                    int colon = replicaOf.lastIndexOf(':');
+                    if (colon <= 0 || colon == replicaOf.length() - 1) {
+                        System.err.println("Адрес ведущего должен иметь вид HOST:PORT.");
+                        return;
+                    }
+                    replicaPort = Integer.parseInt(replicaOf.substring(colon + 1));
+                    replicaOf = replicaOf.substring(0, colon);
+                } else if (args[i].startsWith("--metrics-port=")) {
+                    metricsPort = Integer.parseInt(args[i].substring("--metrics-port=".length()));
+                } else if (args[i].startsWith("--jfr=")) {
+                    jfrFile = args[i].substring("--jfr=".length());
+                } else if (args[i].startsWith("--partitions=")) {
+                    partitions = Integer.parseInt(args[i].substring("--partitions=".length()));
+                    if (partitions <= 0) {
+                        System.err.println("Количество секций должно быть положительным.");
+                        return;
+                    }
+                } else {
+                    System.err.println("Неизвестный параметр: " + args[i]);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Значение параметра должно быть числом: " + e.getMessage());
+            return;
+        } catch (UnknownHostException e) {
+            System.err.println("Неизвестный адрес: " + e.getMessage());
+            return;
+        }
+
+        if (replicaOf != null && autosaveSeconds > 0) {
+            System.err.println("Ведомый процесс не может использовать --autosave: автосохранение"
+                    + " перезаписало бы локальный файл копией коллекции ведущего.");
+            return;
+        }
+
+        if (jfrFile != null) {
+            try {
+                startRecording(jfrFile);
+            } catch (IOException | ParseException e) {
+                System.err.println("Не удалось начать запись JFR: " + e.getMessage());
+                return;
+            }
+        }
+
+        CollectionManager collectionManager = partitions > 0
+                ? new PartitionedCollectionManager(partitions)
+                : new CollectionManager();
         XmlIO xmlIO = new XmlIO(filePath);
 
         try {
-            xmlIO.loadInto(collectionManager);
-            System.out.println("Коллекция успешно загружена из файла: "
-                    + new File(filePath).getAbsolutePath());
+            if (replicaOf != null) {
+                System.out.println("Коллекция будет получена от ведущего процесса " + replicaOf + ":" + replicaPort + ".");
+            } else if (asyncLoad) {
+                xmlIO.loadAsync(collectionManager);
+                System.out.println("Коллекция загружается в фоне из файла: "
+                        + new File(filePath).getAbsolutePath());
+            } else {
+                xmlIO.loadInto(collectionManager);
+                System.out.println("Коллекция успешно загружена из файла: "
+                        + new File(filePath).getAbsolutePath());
+            }
         } catch (Exception e) {
             System.err.println("Ошибка загрузки XML: " + e.getMessage());
             return;
         }
 
         CommandManager commandManager = new CommandManager(collectionManager, xmlIO);
+        try {
+            commandManager.setAdmission(AdmissionController.withDefaults(rateLimit, maxQueue));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        if (replicaOf != null) {
+            ReplicationFollower follower = new ReplicationFollower(commandManager, replicaOf, replicaPort);
+            commandManager.setReadOnlyMode(true);
+            commandManager.setReplicationFollower(follower);
+            follower.start();
+        }
+        if (replicationPort > 0) {
+            ReplicationLog log = new ReplicationLog(100_000);
+            collectionManager.setMutationListener(log);
+            ReplicationPrimary primary = new ReplicationPrimary(commandManager, log, bind, replicationPort);
+            try {
+                primary.start();
+            } catch (IOException e) {
+                System.err.println("Ошибка запуска репликации: " + e.getMessage());
+                return;
+            }
+            commandManager.setReplicationPrimary(primary);
+        }
+        if (autosaveSeconds > 0) {
+            AutosaveService autosave = new AutosaveService(
+                    collectionManager, xmlIO, autosaveSeconds * 1000, autosaveChanges);
+            autosave.start();
+            commandManager.setAutosave(autosave);
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    () -> autosave.shutdown(AUTOSAVE_SHUTDOWN_MS), "autosave-shutdown"));
+        }
+        if (metricsPort > 0) {
+            try {
+                new MetricsServer(commandManager, bind, metricsPort).start();
+                String host = bind instanceof Inet6Address
+                        ? "[" + bind.getHostAddress() + "]"
+                        : bind.getHostAddress();
+                System.out.println("Метрики доступны по адресу http://" + host + ":" + metricsPort + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Ошибка запуска сервера метрик: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (port > 0) {
+            try {
+                if (serverMode.equals("threads")) {
+                    new ThreadedServer(commandManager, bind, port).run();
+                } else if (serverMode.equals("binary")) {
+                    new BinaryServer(commandManager, bind, port).run();
+                } else if (serverMode.equals("udp")) {
+                    new UdpServer(commandManager, bind, port, new LossSimulator(udpLoss)).run();
+                } else {
+                    new NioServer(commandManager, bind, port).run();
+                }
+            } catch (Exception e) {
+                System.err.println("Ошибка сервера: " + e.getMessage());
+            }
+            return;
+        }
         InputManager inputManager = new InputManager(new Scanner(System.in), true);
         Scanner scanner = new Scanner(System.in);
 
@@ -60,4 +264,20 @@ public class Main {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Начинает запись Java Flight Recorder, которая будет сохранена в файл при завершении процесса.
+     *
+     * @param file путь к файлу записи
+     * @throws IOException если файл нельзя использовать
+     * @throws ParseException если настройки {@code default} недоступны
+     */
+    private static void startRecording(String file) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("city-collection");
+        recording.setDestination(Path.of(file));
+        recording.setDumpOnExit(true);
+        recording.start();
+        System.out.println("Запись JFR будет сохранена в " + new File(file).getAbsolutePath());
+    }
+}
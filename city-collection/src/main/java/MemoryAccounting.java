@@ -0,0 +1,227 @@
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Оценка памяти, занимаемой элементами коллекции.
+ * <p>
+ * Размер каждого города вычисляется по раскладке объектов в куче HotSpot (заголовок
+ * объекта, ссылки, выравнивание по 8 байт; размеры заголовка и ссылок зависят от
+ * сжатых указателей) и учитывается при добавлении и удалении элемента, поэтому
+ * получение оценки не требует обхода коллекции или кучи.
+ * </p>
+ *
+ * <p>Память разделяется на категории: строки названий, губернаторы (объект
+ * {@link Human} и строка имени), упакованные числа ({@code Double}, {@code Long},
+ * {@code Integer}, {@code Float}), даты ({@link LocalDateTime} вместе с датой и временем
+ * внутри) и сами объекты {@link City} и {@link Coordinates}. Объекты, общие для нескольких
+ * городов (например, один губернатор), учитываются в каждом из них, поэтому оценка
+ * может быть завышена; городам, загруженным из файла, общие объекты не достаются.</p>
+ */
+public class MemoryAccounting {
+    /**
+     * Размер ссылки.
+     */
+    static final int REF;
+
+    /**
+     * Размер заголовка объекта.
+     */
+    static final int HEADER;
+
+    static {
+        boolean compressedOops = true;
+        boolean compressedClasses = true;
+        try {
+            HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            compressedOops = Boolean.parseBoolean(hotspot.getVMOption("UseCompressedOops").getValue());
+            compressedClasses = Boolean.parseBoolean(hotspot.getVMOption("UseCompressedClassPointers").getValue());
+        } catch (RuntimeException e) {
+            // не HotSpot: остаются значения по умолчанию для кучи меньше 32 ГБ
+        }
+        REF = compressedOops ? 4 : 8;
+        HEADER = compressedClasses ? 12 : 16;
+    }
+
+    private static final long BOXED_4 = align(HEADER + 4);
+    private static final long BOXED_8 = align(HEADER + 8);
+
+    /**
+     * {@code LocalDateTime} (две ссылки), {@code LocalDate} (int и два short)
+     * и {@code LocalTime} (три byte и int).
+     */
+    private static final long DATE_TIME = align(HEADER + 2L * REF) + align(HEADER + 8) + align(HEADER + 7);
+
+    /**
+     * {@code City}: два long и девять ссылок; {@code Coordinates}: int и ссылка.
+     */
+    private static final long CITY_SHELL = align(HEADER + 16 + 9L * REF) + align(HEADER + 4 + REF);
+
+    /**
+     * {@code Human} без строки имени: три ссылки.
+     */
+    private static final long HUMAN_SHELL = align(HEADER + 3L * REF);
+
+    /**
+     * Узел {@code ConcurrentSkipListMap} (три ссылки), ключ {@code Long} и в среднем
+     * четверть индексного узла (три ссылки) на элемент.
+     */
+    static final long SKIP_LIST_ENTRY = align(HEADER + 3L * REF) + BOXED_8 + align(HEADER + 3L * REF) / 4;
+
+    private final LongAdder names = new LongAdder();
+    private final LongAdder governors = new LongAdder();
+    private final LongAdder numbers = new LongAdder();
+    private final LongAdder dates = new LongAdder();
+    private final LongAdder shells = new LongAdder();
+
+    /**
+     * Учитывает добавленный в коллекцию город.
+     *
+     * @param city город
+     */
+    public void add(City city) {
+        account(city, 1);
+    }
+
+    /**
+     * Учитывает удалённый из коллекции город.
+     *
+     * @param city город
+     */
+    public void remove(City city) {
+        account(city, -1);
+    }
+
+    /**
+     * Обнуляет оценку (коллекция очищена).
+     */
+    public void reset() {
+        names.reset();
+        governors.reset();
+        numbers.reset();
+        dates.reset();
+        shells.reset();
+    }
+
+    private void account(City city, int sign) {
+        names.add(sign * string(city.getName()));
+        long boxed = (city.getArea() != null ? BOXED_8 : 0) + (city.getPopulation() != null ? BOXED_8 : 0);
+        if (city.getCoordinates() != null && city.getCoordinates().getY() != null) {
+            boxed += BOXED_4;
+        }
+        long dateBytes = city.getCreationDate() != null ? DATE_TIME : 0;
+        Human governor = city.getGovernor();
+        if (governor != null) {
+            governors.add(sign * (HUMAN_SHELL + string(governor.getName())));
+            if (governor.getHeight() != null) {
+                boxed += BOXED_4;
+            }
+            if (governor.getBirthday() != null) {
+                dateBytes += DATE_TIME;
+            }
+        }
+        numbers.add(sign * boxed);
+        dates.add(sign * dateBytes);
+        shells.add(sign * CITY_SHELL);
+    }
+
+    public long names() {
+        return names.sum();
+    }
+
+    public long governors() {
+        return governors.sum();
+    }
+
+    public long numbers() {
+        return numbers.sum();
+    }
+
+    public long dates() {
+        return dates.sum();
+    }
+
+    public long shells() {
+        return shells.sum();
+    }
+
+    /**
+     * Возвращает оценку памяти всех городов без индексов.
+     *
+     * @return байты
+     */
+    public long total() {
+        return names() + governors() + numbers() + dates() + shells();
+    }
+
+    /**
+     * Возвращает размер строки: объект {@code String} и массив символов
+     * (по байту на символ, если строка умещается в Latin-1, иначе по два).
+     *
+     * @param s строка или {@code null}
+     * @return байты
+     */
+    static long string(String s) {
+        if (s == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return align(HEADER + 4 + 4 + REF) + array((long) s.length() * bytesPerChar);
+    }
+
+    /**
+     * Возвращает размер массива с указанным размером содержимого.
+     *
+     * @param contentBytes размер элементов массива
+     * @return байты
+     */
+    static long array(long contentBytes) {
+        return align(HEADER + 4 + contentBytes);
+    }
+
+    /**
+     * Оценивает память результата, хранимого в кэше. Города и губернаторы, на которые
+     * ссылается результат, принадлежат коллекции и не учитываются.
+     *
+     * @param value результат
+     * @return байты
+     */
+    static long retained(Object value) {
+        if (value instanceof String s) {
+            return string(s);
+        }
+        if (value instanceof byte[] bytes) {
+            return array(bytes.length);
+        }
+        if (value instanceof List<?> list) {
+            return align(HEADER + 4 + 4 + REF) + array((long) list.size() * REF);
+        }
+        return 0;
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Форматирует размер в байтах для вывода.
+     *
+     * @param bytes байты
+     * @return размер в КиБ или МиБ
+     */
+    static String format(long bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f КиБ", bytes / 1024.0);
+        }
+        return String.format("%.1f МиБ", bytes / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,221 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP-сервер метрик в текстовом формате Prometheus ({@code GET /metrics}).
+ * <p>
+ * Метрики собираются из счётчиков, которые обновляются при выполнении операций:
+ * сбор не берёт блокировку коллекции и не обходит её элементы, поэтому частый
+ * опрос не мешает командам.
+ * </p>
+ *
+ * <p>Сервер слушает только указанный адрес (по умолчанию локальный, см. {@link Main}).</p>
+ */
+public class MetricsServer {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final CommandManager manager;
+    private final InetAddress bind;
+    private final int port;
+    private HttpServer server;
+
+    /**
+     * Создаёт сервер метрик.
+     *
+     * @param manager менеджер команд
+     * @param bind адрес, на котором принимаются запросы
+     * @param port порт HTTP
+     */
+    public MetricsServer(CommandManager manager, InetAddress bind, int port) {
+        this.manager = manager;
+        this.bind = bind;
+        this.port = port;
+    }
+
+    /**
+     * Начинает принимать запросы в отдельном фоновом потоке.
+     *
+     * @throws IOException если порт занят
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        server.createContext("/metrics", this::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Формирует текст метрик.
+     *
+     * @return метрики в формате Prometheus
+     */
+    public String render() {
+        CommandContext ctx = manager.context();
+        CollectionManager cm = ctx.cm;
+        StringBuilder sb = new StringBuilder(4096);
+
+        int size = cm.size();
+        gauge(sb, "citycollection_cities", "Количество городов в коллекции", size);
+        gauge(sb, "citycollection_partitions", "Количество секций коллекции", cm.partitionCount());
+        gauge(sb, "citycollection_loaded", "1, если коллекция загружена полностью", cm.isLoaded() ? 1 : 0);
+        counter(sb, "citycollection_version", "Количество изменений коллекции с момента запуска", cm.version());
+        gauge(sb, "citycollection_unsaved_changes", "Изменения, не записанные в файл",
+                cm.version() - cm.savedVersion());
+        header(sb, "citycollection_mutations_total", "Изменения коллекции по типам", "counter");
+        for (Mutation.Type type : Mutation.Type.values()) {
+            sample(sb, "citycollection_mutations_total", "type", type.name().toLowerCase(Locale.ROOT),
+                    cm.mutationCount(type));
+        }
+
+        header(sb, "citycollection_command_latency_seconds",
+                "Задержка команд с момента запуска или последнего stats reset", "summary");
+        header(sb, "citycollection_command_failures_total", "Команды, завершившиеся ошибкой", "counter");
+        for (Map.Entry<String, CommandStats.Entry> e : manager.stats().entries().entrySet()) {
+            String command = e.getKey();
+            LatencyHistogram h = e.getValue().latency;
+            for (double q : QUANTILES) {
+                sb.append("citycollection_command_latency_seconds{command=\"").append(command)
+                        .append("\",quantile=\"").append(q).append("\"} ")
+                        .append(format(seconds(h.percentile(q * 100)))).append('\n');
+            }
+            sample(sb, "citycollection_command_latency_seconds_sum", "command", command, seconds(h.total()));
+            sample(sb, "citycollection_command_latency_seconds_count", "command", command, h.count());
+            sample(sb, "citycollection_command_failures_total", "command", command, e.getValue().failures.sum());
+        }
+
+        XmlIO io = ctx.io;
+        gauge(sb, "citycollection_last_load_seconds", "Длительность последней загрузки", seconds(io.lastLoadNanos()));
+        gauge(sb, "citycollection_last_load_bytes", "Размер файла при последней загрузке", io.lastLoadBytes());
+        gauge(sb, "citycollection_last_load_cities", "Города, загруженные последней загрузкой", io.lastLoadCities());
+        gauge(sb, "citycollection_last_save_seconds", "Длительность последнего сохранения", seconds(io.lastSaveNanos()));
+        gauge(sb, "citycollection_last_save_bytes", "Байты, записанные последним сохранением", io.lastSaveBytes());
+        gauge(sb, "citycollection_last_save_cities", "Города, записанные последним сохранением", io.lastSaveCities());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long liveHeap = liveHeapBytes();
+        if (liveHeap == 0) {
+            liveHeap = heap.getUsed();
+        }
+        gauge(sb, "jvm_heap_used_bytes", "Занятая память кучи", heap.getUsed());
+        gauge(sb, "jvm_heap_committed_bytes", "Выделенная память кучи", heap.getCommitted());
+        gauge(sb, "jvm_heap_max_bytes", "Максимальный размер кучи", heap.getMax());
+        gauge(sb, "jvm_heap_live_bytes", "Память кучи, занятая после последней сборки мусора (до первой сборки — занятая память)", liveHeap);
+
+        MemoryAccounting memory = cm.memory();
+        long indexBytes = cm.indexBytes();
+        long cacheBytes = manager.cache().retainedBytes();
+        header(sb, "citycollection_memory_bytes", "Оценка памяти коллекции по раскладке объектов", "gauge");
+        sample(sb, "citycollection_memory_bytes", "category", "names", memory.names());
+        sample(sb, "citycollection_memory_bytes", "category", "governors", memory.governors());
+        sample(sb, "citycollection_memory_bytes", "category", "boxed_numbers", memory.numbers());
+        sample(sb, "citycollection_memory_bytes", "category", "dates", memory.dates());
+        sample(sb, "citycollection_memory_bytes", "category", "objects", memory.shells());
+        sample(sb, "citycollection_memory_bytes", "category", "indexes", indexBytes);
+        sample(sb, "citycollection_memory_bytes", "category", "cache", cacheBytes);
+        gauge(sb, "citycollection_bytes_per_city_estimate",
+                "Оценка памяти коллекции с индексами, делённая на количество городов",
+                size == 0 ? 0 : (memory.total() + indexBytes) / size);
+
+        ResultCache cache = manager.cache();
+        counter(sb, "citycollection_cache_hits_total", "Попадания в кэш результатов", cache.hits());
+        counter(sb, "citycollection_cache_misses_total", "Промахи кэша результатов", cache.misses());
+
+        AdmissionController admission = manager.getAdmission();
+        counter(sb, "citycollection_admission_executed_total", "Команды, допущенные к выполнению", admission.executed());
+        header(sb, "citycollection_admission_rejected_total", "Отклонённые команды по причинам", "counter");
+        sample(sb, "citycollection_admission_rejected_total", "reason", "rate", admission.rejectedByRate());
+        sample(sb, "citycollection_admission_rejected_total", "reason", "queue", admission.rejectedByQueue());
+        sample(sb, "citycollection_admission_rejected_total", "reason", "timeout", admission.rejectedByTimeout());
+        gauge(sb, "citycollection_admission_queued", "Команды, ожидающие в очереди", admission.queued());
+
+        ReplicationPrimary primary = manager.getReplicationPrimary();
+        if (primary != null) {
+            gauge(sb, "citycollection_replication_followers", "Подключённые ведомые", primary.followers());
+            counter(sb, "citycollection_replication_log_seq", "Номер последней записи журнала", primary.lastSeq());
+        }
+        ReplicationFollower follower = manager.getReplicationFollower();
+        if (follower != null) {
+            counter(sb, "citycollection_replication_applied_seq", "Номер последней применённой записи",
+                    follower.appliedSeq());
+            gauge(sb, "citycollection_replication_lag_entries", "Отставание от ведущего, записей",
+                    follower.lagEntries());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Возвращает занятую память кучи после последней сборки мусора: в отличие от текущей
+     * занятой памяти, не включает ещё не собранный мусор.
+     */
+    private static long liveHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                total += usage.getUsed();
+            }
+        }
+        return total;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double value) {
+        header(sb, name, help, "gauge");
+        sb.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, double value) {
+        header(sb, name, help, "counter");
+        sb.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String label, String labelValue, double value) {
+        sb.append(name).append('{').append(label).append("=\"").append(labelValue).append("\"} ")
+                .append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value) : Double.toString(value);
+    }
+}
@@ -9,10 +9,16 @@ public class MinByClimateCommand implements Command {
     @Override
     public String description() { return "вывести любой объект, значение поля climate которого минимально"; }
 
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        City c = ctx.cm.minByClimate();
-        System.out.println(c == null ? "Коллекция пуста." : c.toString());
+        City c = ctx.manager.cache().get("min_by_climate", ctx.cm::minByClimate);
+        ctx.out.println(c == null ? "Коллекция пуста." : c.toString());
         return true;
     }
 }
\ No newline at end of file
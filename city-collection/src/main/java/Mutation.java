@@ -0,0 +1,42 @@
+/**
+ * Изменение коллекции, выполненное {@link CollectionManager}.
+ * <p>
+ * Изменение описывается операцией и её аргументами, поэтому, применив ту же
+ * последовательность изменений к копии коллекции в том же состоянии, можно получить
+ * ту же коллекцию (см. {@link ReplicationFollower}). Набор аргументов зависит от типа:
+ * {@code id} — для update и remove, {@code city} — для add, update и remove_lower,
+ * {@code governor} — для remove_all_by_governor.
+ * </p>
+ */
+public class Mutation {
+
+    /**
+     * Тип изменения.
+     */
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE,
+        CLEAR,
+        REORDER,
+        SORT,
+        REMOVE_LOWER,
+        REMOVE_ALL_BY_GOVERNOR
+    }
+
+    public final Type type;
+    public final long id;
+    public final City city;
+    public final Human governor;
+
+    public Mutation(Type type, long id, City city, Human governor) {
+        this.type = type;
+        this.id = id;
+        this.city = city;
+        this.governor = governor;
+    }
+
+    public static Mutation of(Type type) {
+        return new Mutation(type, 0, null, null);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Получатель изменений коллекции.
+ */
+public interface MutationListener {
+
+    /**
+     * Вызывается после каждого успешного изменения коллекции в том же потоке,
+     * до того как изменяющий метод вернёт управление.
+     *
+     * @param mutation изменение
+     */
+    void onMutation(Mutation mutation);
+}
@@ -0,0 +1,308 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Сетевой режим: текстовый протокол поверх TCP на неблокирующем вводе-выводе.
+ * <p>
+ * Все соединения обслуживаются одним потоком с {@link Selector}, который только читает
+ * строки запросов и отправляет ответы. Каждая строка выполняется через
+ * {@link CommandManager#handleRequest(String, CommandContext)} в отдельном сеансе клиента
+ * (со своей историей команд) в потоке исполнителя ({@link Threads#newPerTaskExecutor(String)}):
+ * команда может ждать загрузки коллекции, блокировки {@link CommandManager} или допуска
+ * {@link AdmissionController}, и это не должно задерживать других клиентов. Команды
+ * одного клиента выполняются по очереди; готовый вывод вместе с приглашением {@code "> "}
+ * передаётся обратно потоку селектора, который отправляет его клиенту.
+ * </p>
+ *
+ * <p>Если у клиента накопилось больше {@value #MAX_PENDING} байт неотправленного вывода
+ * или {@value #MAX_QUEUED} невыполненных строк, сервер перестаёт читать его запросы,
+ * пока клиент не примет вывод: клиент, который не читает ответы, не может
+ * неограниченно увеличивать память сервера. Предел проверяется между командами: вывод
+ * одной команды собирается целиком, поэтому ответ на show без аргументов может его
+ * превысить (см. {@link ShowCommand}); постраничный show ограничен размером страницы.</p>
+ *
+ * <p>Клиенты не проходят проверку подлинности: сервер слушает только указанный адрес
+ * (по умолчанию локальный, см. {@link Main}), а сеансы клиентов создаются через
+ * {@link CommandManager#newRemoteSession(PrintStream)} и не открывают файлы сервера.</p>
+ */
+public class NioServer {
+    /**
+     * Максимальная длина строки запроса в байтах.
+     */
+    private static final int MAX_LINE = 1 << 20;
+
+    /**
+     * Объём неотправленного вывода, после которого запросы клиента не читаются
+     * и не выполняются, в байтах.
+     */
+    private static final int MAX_PENDING = 1 << 20;
+
+    /**
+     * Количество прочитанных, но не выполненных строк, после которого запросы клиента
+     * не читаются.
+     */
+    private static final int MAX_QUEUED = 64;
+
+    private static final byte[] PROMPT = "> ".getBytes(StandardCharsets.UTF_8);
+
+    private final CommandManager manager;
+    private final InetAddress bind;
+    private final int port;
+
+    /**
+     * Результаты команд, выполненных исполнителем и ещё не переданных селектору.
+     */
+    private final Queue<Result> completed = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+    private ExecutorService executor;
+
+    /**
+     * Создаёт сервер.
+     *
+     * @param manager менеджер команд с общей коллекцией
+     * @param bind адрес, на котором принимаются соединения
+     * @param port TCP-порт
+     */
+    public NioServer(CommandManager manager, InetAddress bind, int port) {
+        this.manager = manager;
+        this.bind = bind;
+        this.port = port;
+    }
+
+    /**
+     * Состояние соединения с одним клиентом. Поля, кроме сеанса и его вывода,
+     * используются только потоком селектора; сеанс — только потоком, выполняющим
+     * текущую команду клиента.
+     */
+    private final class Client {
+        final ByteBuffer in = ByteBuffer.allocate(8192);
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        final Deque<String> requests = new ArrayDeque<>();
+        final Deque<ByteBuffer> pending = new ArrayDeque<>();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CommandContext session = manager.newRemoteSession(new PrintStream(output, true, StandardCharsets.UTF_8));
+        long pendingBytes;
+        boolean busy;
+        boolean closing;
+
+        void send(byte[] bytes) {
+            pending.add(ByteBuffer.wrap(bytes));
+            pendingBytes += bytes.length;
+        }
+    }
+
+    /**
+     * Вывод выполненной команды.
+     */
+    private static final class Result {
+        final SelectionKey key;
+        final byte[] output;
+        final boolean keepOpen;
+
+        Result(SelectionKey key, byte[] output, boolean keepOpen) {
+            this.key = key;
+            this.output = output;
+            this.keepOpen = keepOpen;
+        }
+    }
+
+    /**
+     * Запускает цикл обработки соединений. Метод не возвращает управление,
+     * пока не произойдёт ошибка ввода-вывода.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    public void run() throws IOException {
+        executor = Threads.newPerTaskExecutor("nio-command");
+        try (Selector selector = Selector.open();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            this.selector = selector;
+            server.bind(new InetSocketAddress(bind, port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Сервер запущен на " + bind.getHostAddress() + ":" + port + ".");
+
+            while (true) {
+                selector.select();
+                Result result;
+                while ((result = completed.poll()) != null) {
+                    complete(result);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept(server, selector);
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client();
+        client.send("Введите команду. help - список команд.\n> ".getBytes(StandardCharsets.UTF_8));
+        channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, client);
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+
+        int n = channel.read(client.in);
+        if (n < 0) {
+            close(key);
+            return;
+        }
+
+        client.in.flip();
+        while (client.in.hasRemaining()) {
+            byte b = client.in.get();
+            if (b != '\n') {
+                if (client.line.size() >= MAX_LINE) {
+                    throw new IOException("Слишком длинная строка запроса.");
+                }
+                client.line.write(b);
+                continue;
+            }
+            client.requests.add(client.line.toString(StandardCharsets.UTF_8).trim());
+            client.line.reset();
+        }
+        client.in.clear();
+
+        dispatch(key, client);
+        updateInterest(key, client);
+    }
+
+    /**
+     * Передаёт исполнителю следующую строку клиента, если предыдущая команда
+     * завершена и вывод не превышает предела. Пустые строки отвечаются приглашением сразу.
+     */
+    private void dispatch(SelectionKey key, Client client) {
+        while (!client.busy && !client.closing && client.pendingBytes < MAX_PENDING) {
+            String request = client.requests.poll();
+            if (request == null) {
+                return;
+            }
+            if (request.isEmpty()) {
+                client.send(PROMPT);
+                continue;
+            }
+            client.busy = true;
+            executor.execute(() -> {
+                boolean keepOpen = manager.handleRequest(request, client.session);
+                client.session.out.flush();
+                byte[] output = client.output.toByteArray();
+                client.output.reset();
+                completed.add(new Result(key, output, keepOpen));
+                selector.wakeup();
+            });
+        }
+    }
+
+    /**
+     * Принимает вывод выполненной команды в потоке селектора.
+     */
+    private void complete(Result result) {
+        SelectionKey key = result.key;
+        if (!key.isValid()) {
+            return; // клиент отключился, пока команда выполнялась
+        }
+        Client client = (Client) key.attachment();
+        client.busy = false;
+        client.send(result.output);
+        if (result.keepOpen) {
+            client.send(PROMPT);
+        } else {
+            client.closing = true;
+            client.requests.clear();
+            if (client.pending.isEmpty()) {
+                close(key);
+                return;
+            }
+        }
+        dispatch(key, client);
+        updateInterest(key, client);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+
+        while (!client.pending.isEmpty()) {
+            ByteBuffer buffer = client.pending.peek();
+            client.pendingBytes -= channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            client.pending.poll();
+        }
+
+        if (client.closing && client.pending.isEmpty() && !client.busy) {
+            close(key);
+            return;
+        }
+        dispatch(key, client);
+        updateInterest(key, client);
+    }
+
+    /**
+     * Запись нужна, пока есть неотправленный вывод; чтение — пока вывод и очередь
+     * строк не превышают пределов.
+     */
+    private static void updateInterest(SelectionKey key, Client client) {
+        int ops = 0;
+        if (!client.pending.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (!client.closing && client.pendingBytes < MAX_PENDING && client.requests.size() < MAX_QUEUED) {
+            ops |= SelectionKey.OP_READ;
+        }
+        key.interestOps(ops);
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // соединение уже закрыто
+        }
+    }
+}
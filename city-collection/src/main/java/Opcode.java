@@ -0,0 +1,75 @@
+/**
+ * Коды операций двоичного протокола.
+ * Каждой команде приложения соответствует один код; код передаётся одним байтом.
+ * Постраничный ({@link #SHOW_PAGE}) и потоковый ({@link #SHOW_STREAM}) вывод
+ * относятся к команде show.
+ */
+public enum Opcode {
+    HELP(1, "help"),
+    INFO(2, "info"),
+    SHOW(3, "show"),
+    ADD(4, "add"),
+    UPDATE(5, "update"),
+    REMOVE_BY_ID(6, "remove_by_id"),
+    CLEAR(7, "clear"),
+    SAVE(8, "save"),
+    EXECUTE_SCRIPT(9, "execute_script"),
+    EXIT(10, "exit"),
+    REMOVE_LOWER(11, "remove_lower"),
+    REORDER(12, "reorder"),
+    HISTORY(13, "history"),
+    REMOVE_ALL_BY_GOVERNOR(14, "remove_all_by_governor"),
+    MIN_BY_CLIMATE(15, "min_by_climate"),
+    PRINT_FIELD_ASCENDING_GOVERNOR(16, "print_field_ascending_governor"),
+    SHOW_PAGE(17, "show"),
+    SHOW_STREAM(18, "show");
+
+    private static final Opcode[] BY_CODE = new Opcode[256];
+
+    static {
+        for (Opcode op : values()) {
+            BY_CODE[op.code] = op;
+        }
+    }
+
+    private final int code;
+    private final String commandName;
+
+    Opcode(int code, String commandName) {
+        this.code = code;
+        this.commandName = commandName;
+    }
+
+    /**
+     * Возвращает код операции.
+     *
+     * @return код (0–255)
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Возвращает имя соответствующей команды.
+     *
+     * @return имя команды
+     */
+    public String commandName() {
+        return commandName;
+    }
+
+    /**
+     * Находит операцию по коду.
+     *
+     * @param code код операции
+     * @return операция
+     * @throws IllegalArgumentException если код неизвестен
+     */
+    public static Opcode byCode(int code) {
+        Opcode op = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (op == null) {
+            throw new IllegalArgumentException("Неизвестный код операции: " + code);
+        }
+        return op;
+    }
+}
@@ -0,0 +1,559 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Коллекция, разделённая на секции по хэшу идентификатора.
+ * <p>
+ * Каждая секция хранит свои элементы в упорядоченном по id индексе и имеет собственную
+ * блокировку. Операции с одним элементом (добавление, обновление, удаление, поиск по id)
+ * затрагивают только его секцию, поэтому изменения разных элементов выполняются
+ * одновременно ({@link #supportsConcurrentWrites()}). Операции над всей коллекцией
+ * (удаление по условию, поиск минимума, выборка губернаторов, снимок) выполняются
+ * по всем секциям параллельно, после чего результаты объединяются.
+ * </p>
+ *
+ * <p>Массовые операции удерживают блокировки всех секций (всегда в одном порядке),
+ * поэтому каждое изменение атомарно относительно остальных, а порядок изменений,
+ * переданных {@link MutationListener}, совпадает с порядком их выполнения.</p>
+ *
+ * <p>Элементы не хранятся в общем списке, поэтому порядок коллекции задаётся режимом:
+ * по возрастанию id (порядок добавления, так как id выдаются по возрастанию) или
+ * в естественном порядке после {@link #sortDefault()}; {@link #reorder()} разворачивает
+ * текущий порядок. В отличие от {@link CollectionManager}, после сортировки новые
+ * элементы занимают место в соответствии с порядком, а не добавляются в конец,
+ * а коллекция, загруженная из файла, упорядочивается по id.</p>
+ */
+public class PartitionedCollectionManager extends CollectionManager {
+    /**
+     * Секции коллекции.
+     */
+    private final Partition[] partitions;
+
+    /**
+     * Общее количество элементов во всех секциях.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * {@code true}, если коллекция упорядочена в естественном порядке, иначе по id.
+     */
+    private volatile boolean sorted;
+
+    /**
+     * {@code true}, если порядок коллекции развёрнут.
+     */
+    private volatile boolean reversed;
+
+    /**
+     * Секция коллекции.
+     */
+    private static final class Partition {
+        final NavigableMap<Long, City> byId = new ConcurrentSkipListMap<>();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Создаёт коллекцию из указанного количества секций.
+     *
+     * @param partitionCount количество секций
+     * @throws IllegalArgumentException если количество секций меньше 1
+     */
+    public PartitionedCollectionManager(int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Количество секций должно быть положительным.");
+        }
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    @Override
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Возвращает секцию, в которой хранится элемент с указанным id.
+     *
+     * @param id идентификатор
+     * @return секция
+     */
+    private Partition partition(long id) {
+        return partitions[partitionIndex(id)];
+    }
+
+    private int partitionIndex(long id) {
+        return Math.floorMod(Long.hashCode(id * 0x9E3779B97F4A7C15L), partitions.length);
+    }
+
+    /**
+     * Выполняет действие под блокировками всех секций.
+     *
+     * @param write {@code true} — под блокировками записи, иначе под блокировками чтения
+     * @param action выполняемое действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    private <T> T allLocked(boolean write, Supplier<T> action) {
+        Lock[] locks = new Lock[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            locks[i] = write ? partitions[i].lock.writeLock() : partitions[i].lock.readLock();
+        }
+        int locked = 0;
+        try {
+            for (Lock l : locks) {
+                l.lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Возвращает копию коллекции.
+     * <p>
+     * Изменения возвращённого объекта не влияют на коллекцию.
+     * </p>
+     *
+     * @return коллекция городов
+     */
+    @Override
+    public Vector<City> getAll() {
+        return new Vector<>(snapshot());
+    }
+
+    /**
+     * Возвращает снимок коллекции в её текущем порядке. Секции копируются и упорядочиваются
+     * параллельно, затем сливаются.
+     *
+     * @return снимок коллекции
+     */
+    @Override
+    public List<City> snapshot() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        List<City> snapshot = allLocked(false, () -> {
+            Comparator<City> order = order();
+            List<List<City>> parts = Arrays.stream(partitions).parallel()
+                    .map(p -> {
+                        if (!sorted) {
+                            // индекс секции уже упорядочен по id
+                            return (List<City>) new ArrayList<>(reversed
+                                    ? p.byId.descendingMap().values() : p.byId.values());
+                        }
+                        List<City> part = new ArrayList<>(p.byId.values());
+                        part.sort(order);
+                        return part;
+                    })
+                    .toList();
+            return merge(iterators(parts), order, Integer.MAX_VALUE);
+        });
+        event.finish("snapshot", snapshot.size(), 0, partitions.length);
+        return snapshot;
+    }
+
+    /**
+     * Возвращает порядок элементов коллекции.
+     *
+     * @return компаратор текущего порядка
+     */
+    private Comparator<City> order() {
+        Comparator<City> order = sorted ? Comparator.naturalOrder() : Comparator.comparingLong(City::getId);
+        return reversed ? order.reversed() : order;
+    }
+
+    @Override
+    public List<City> pageAfter(long afterId, int limit) {
+        List<Iterator<City>> cursors = new ArrayList<>(partitions.length);
+        for (Partition p : partitions) {
+            cursors.add(p.byId.tailMap(afterId, false).values().iterator());
+        }
+        return merge(cursors, Comparator.comparingLong(City::getId), limit);
+    }
+
+    @Override
+    public boolean hasAfter(long afterId) {
+        for (Partition p : partitions) {
+            if (p.byId.higherKey(afterId) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long indexBytes() {
+        return size() * MemoryAccounting.SKIP_LIST_ENTRY;
+    }
+
+    @Override
+    protected String storageType() {
+        return getClass().getName() + " (секций: " + partitions.length
+                + ", порядок: " + (sorted ? "естественный" : "по id") + (reversed ? ", обратный" : "") + ")";
+    }
+
+    @Override
+    public boolean supportsConcurrentWrites() {
+        return true;
+    }
+
+    @Override
+    protected long maxId() {
+        long max = 0;
+        for (Partition p : partitions) {
+            if (!p.byId.isEmpty()) {
+                max = Math.max(max, p.byId.lastKey());
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public void clear() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        int before = allLocked(true, () -> {
+            int count = size.getAndSet(0);
+            for (Partition p : partitions) {
+                p.byId.clear();
+            }
+            memory().reset();
+            changed(Mutation.of(Mutation.Type.CLEAR));
+            return count;
+        });
+        event.finish("clear", before, before, partitions.length);
+    }
+
+    @Override
+    public void add(City city) {
+        if (city.getId() <= 0) {
+            city.setId(generateId());
+        }
+        if (city.getCreationDate() == null) {
+            city.setCreationDate(LocalDateTime.now());
+        }
+        insert(city, true);
+    }
+
+    /**
+     * Добавляет пакет новых элементов: элементы распределяются по секциям, и каждая
+     * секция блокируется один раз на пакет. Изменения учитываются под блокировкой
+     * секции, как и при добавлении по одному.
+     *
+     * @param batch добавляемые города; их id и даты создания перезаписываются
+     */
+    @Override
+    public void addAll(List<City> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        assignNew(batch);
+        List<List<City>> byPartition = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (City city : batch) {
+            byPartition.get(partitionIndex(city.getId())).add(city);
+        }
+        List<City> conflicts = new ArrayList<>();
+        for (int i = 0; i < partitions.length; i++) {
+            List<City> part = byPartition.get(i);
+            if (part.isEmpty()) {
+                continue;
+            }
+            Partition p = partitions[i];
+            p.lock.writeLock().lock();
+            try {
+                for (City city : part) {
+                    if (p.byId.putIfAbsent(city.getId(), city) == null) {
+                        size.incrementAndGet();
+                        memory().add(city);
+                        changed(new Mutation(Mutation.Type.ADD, city.getId(), city, null));
+                    } else {
+                        conflicts.add(city);
+                    }
+                }
+            } finally {
+                p.lock.writeLock().unlock();
+            }
+        }
+        for (City city : conflicts) {
+            city.setId(generateId());
+            insert(city, true);
+        }
+    }
+
+    @Override
+    protected void store(City city) {
+        insert(city, false);
+    }
+
+    /**
+     * Помещает элемент в его секцию. Если id уже занят (его мог занять другой поток),
+     * элементу выдаётся новый id.
+     *
+     * @param city добавляемый город
+     * @param notify {@code true}, если нужно учесть изменение в версии коллекции
+     */
+    private void insert(City city, boolean notify) {
+        while (true) {
+            Partition p = partition(city.getId());
+            p.lock.writeLock().lock();
+            try {
+                if (p.byId.putIfAbsent(city.getId(), city) == null) {
+                    size.incrementAndGet();
+                    memory().add(city);
+                    if (notify) {
+                        changed(new Mutation(Mutation.Type.ADD, city.getId(), city, null));
+                    }
+                    return;
+                }
+            } finally {
+                p.lock.writeLock().unlock();
+            }
+            city.setId(generateId());
+        }
+    }
+
+    @Override
+    public boolean containsId(long id) {
+        return partition(id).byId.containsKey(id);
+    }
+
+    @Override
+    public boolean update(long id, City newCity) {
+        Partition p = partition(id);
+        p.lock.writeLock().lock();
+        try {
+            City old = p.byId.get(id);
+            if (old == null) {
+                return false;
+            }
+            newCity.setId(id);
+            if (newCity.getCreationDate() == null) {
+                newCity.setCreationDate(old.getCreationDate());
+            }
+            p.byId.put(id, newCity);
+            memory().remove(old);
+            memory().add(newCity);
+            changed(new Mutation(Mutation.Type.UPDATE, id, newCity, null));
+            return true;
+        } finally {
+            p.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeById(long id) {
+        Partition p = partition(id);
+        p.lock.writeLock().lock();
+        try {
+            City old = p.byId.remove(id);
+            if (old == null) {
+                return false;
+            }
+            memory().remove(old);
+            size.decrementAndGet();
+            changed(new Mutation(Mutation.Type.REMOVE, id, null, null));
+            return true;
+        } finally {
+            p.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reorder() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        allLocked(true, () -> {
+            reversed = !reversed;
+            changed(Mutation.of(Mutation.Type.REORDER));
+            return null;
+        });
+        event.finish("reorder", 0, 0, partitions.length);
+    }
+
+    @Override
+    public void sortDefault() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        allLocked(true, () -> {
+            sorted = true;
+            reversed = false;
+            changed(Mutation.of(Mutation.Type.SORT));
+            return null;
+        });
+        event.finish("sort", 0, 0, partitions.length);
+    }
+
+    @Override
+    public int removeLower(City pivot) {
+        return removeWhere("remove_lower", city -> city.compareTo(pivot) < 0,
+                new Mutation(Mutation.Type.REMOVE_LOWER, 0, pivot, null));
+    }
+
+    @Override
+    public int removeAllByGovernor(Human gov) {
+        return removeWhere("remove_all_by_governor", city -> {
+                    Human currentGovernor = city.getGovernor();
+                    if (currentGovernor == null || gov == null) {
+                        return currentGovernor == gov;
+                    }
+                    return currentGovernor.equals(gov);
+                },
+                new Mutation(Mutation.Type.REMOVE_ALL_BY_GOVERNOR, 0, null, gov));
+    }
+
+    /**
+     * Параллельно удаляет из всех секций элементы, удовлетворяющие условию.
+     *
+     * @param operation имя операции для события JFR
+     * @param condition условие удаления
+     * @param mutation выполняемое изменение
+     * @return количество удалённых элементов
+     */
+    private int removeWhere(String operation, Predicate<City> condition, Mutation mutation) {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        int[] scanned = new int[1];
+        int total = allLocked(true, () -> {
+            scanned[0] = size.get();
+            int count = Arrays.stream(partitions).parallel().mapToInt(p -> {
+                int removed = 0;
+                for (Iterator<City> it = p.byId.values().iterator(); it.hasNext(); ) {
+                    City city = it.next();
+                    if (condition.test(city)) {
+                        it.remove();
+                        memory().remove(city);
+                        removed++;
+                    }
+                }
+                return removed;
+            }).sum();
+            if (count > 0) {
+                size.addAndGet(-count);
+                changed(mutation);
+            }
+            return count;
+        });
+        event.finish(operation, scanned[0], total, partitions.length);
+        return total;
+    }
+
+    /**
+     * Возвращает элемент с минимальным значением поля climate; из нескольких таких
+     * элементов — с наименьшим id. Секции просматриваются параллельно.
+     *
+     * @return город с минимальным климатом или {@code null}, если таких нет
+     */
+    @Override
+    public City minByClimate() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        Comparator<City> byClimate = Comparator.comparing(City::getClimate).thenComparingLong(City::getId);
+        City min = allLocked(false, () -> Arrays.stream(partitions).parallel()
+                .flatMap(p -> p.byId.values().stream()
+                        .filter(city -> city.getClimate() != null)
+                        .min(byClimate)
+                        .stream())
+                .min(byClimate)
+                .orElse(null));
+        event.finish("min_by_climate", size.get(), 0, partitions.length);
+        return min;
+    }
+
+    @Override
+    public List<Human> governorsAscending() {
+        CollectionOperationEvent event = new CollectionOperationEvent();
+        event.begin();
+        Comparator<Human> order = Comparator.naturalOrder();
+        List<List<Human>> parts = allLocked(false, () -> Arrays.stream(partitions).parallel()
+                .map(p -> {
+                    List<Human> governors = new ArrayList<>();
+                    for (City city : p.byId.values()) {
+                        if (city.getGovernor() != null) {
+                            governors.add(city.getGovernor());
+                        }
+                    }
+                    governors.sort(order);
+                    return governors;
+                })
+                .toList());
+        List<Human> governors = merge(iterators(parts), order, Integer.MAX_VALUE);
+        event.finish("governors_ascending", size.get(), 0, partitions.length);
+        return governors;
+    }
+
+    private static <T> List<Iterator<T>> iterators(List<List<T>> parts) {
+        List<Iterator<T>> cursors = new ArrayList<>(parts.size());
+        for (List<T> part : parts) {
+            cursors.add(part.iterator());
+        }
+        return cursors;
+    }
+
+    /**
+     * Сливает упорядоченные последовательности в одну.
+     *
+     * @param cursors последовательности, каждая упорядочена по {@code order}
+     * @param order порядок
+     * @param limit максимальное количество элементов результата
+     * @param <T> тип элементов
+     * @return первые {@code limit} элементов объединения в порядке {@code order}
+     */
+    private static <T> List<T> merge(List<Iterator<T>> cursors, Comparator<? super T> order, int limit) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(Math.max(1, cursors.size()),
+                (a, b) -> order.compare(a.head, b.head));
+        for (Iterator<T> it : cursors) {
+            if (it.hasNext()) {
+                heads.add(new Cursor<>(it));
+            }
+        }
+        List<T> result = new ArrayList<>(Math.min(limit, 1024));
+        while (result.size() < limit && !heads.isEmpty()) {
+            Cursor<T> c = heads.poll();
+            result.add(c.head);
+            if (c.it.hasNext()) {
+                c.head = c.it.next();
+                heads.add(c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Текущий элемент одной из сливаемых последовательностей.
+     */
+    private static final class Cursor<T> {
+        final Iterator<T> it;
+        T head;
+
+        Cursor(Iterator<T> it) {
+            this.it = it;
+            this.head = it.next();
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.List;
+
 /**
  * print_field_ascending_governor: вывести значения поля governor по возрастанию
  */
@@ -9,9 +11,19 @@ public class PrintFieldAscendingGovernorCommand implements Command {
     @Override
     public String description() { return "вывести значения поля governor всех элементов в порядке возрастания"; }
 
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
-        ctx.cm.printFieldAscendingGovernor();
+        List<Human> governors = ctx.manager.cache()
+                .get("print_field_ascending_governor", ctx.cm::governorsAscending);
+        for (Human governor : governors) {
+            ctx.out.println(governor);
+        }
         return true;
     }
 }
\ No newline at end of file
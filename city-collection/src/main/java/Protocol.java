@@ -0,0 +1,99 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Общие константы и рукопожатие двоичного протокола.
+ * <p>
+ * После установки соединения клиент отправляет {@link #MAGIC} и номер версии протокола
+ * ({@code int} + {@code short}). Сервер отвечает тем же магическим числом, своей версией
+ * и байтом результата: {@code 0} — версия поддерживается, иначе соединение закрывается.
+ * </p>
+ *
+ * <p>Далее стороны обмениваются кадрами: длина тела ({@code int}) и тело.
+ * Формат тел описан в {@link ProtocolEncoder}.</p>
+ */
+public final class Protocol {
+    /**
+     * Магическое число протокола ("CITY").
+     */
+    public static final int MAGIC = 0x43495459;
+
+    /**
+     * Текущая версия протокола.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Максимальный размер тела кадра в байтах.
+     */
+    public static final int MAX_FRAME = 256 << 20;
+
+    /**
+     * Максимальный размер страницы постраничного и потокового show.
+     */
+    public static final int MAX_PAGE = 10_000;
+
+    /**
+     * Флаги необязательных полей города.
+     */
+    public static final int HAS_Y = 1;
+    public static final int HAS_CREATION_DATE = 1 << 1;
+    public static final int HAS_AREA = 1 << 2;
+    public static final int HAS_POPULATION = 1 << 3;
+    public static final int HAS_CLIMATE = 1 << 4;
+    public static final int HAS_GOVERNMENT = 1 << 5;
+    public static final int HAS_STANDARD_OF_LIVING = 1 << 6;
+    public static final int HAS_GOVERNOR = 1 << 7;
+
+    /**
+     * Флаги необязательных полей человека.
+     */
+    public static final int HAS_HEIGHT = 1;
+    public static final int HAS_BIRTHDAY = 1 << 1;
+
+    private Protocol() {
+    }
+
+    /**
+     * Выполняет рукопожатие на стороне клиента.
+     *
+     * @param out поток к серверу
+     * @param in поток от сервера
+     * @throws IOException если сервер не поддерживает версию протокола или соединение разорвано
+     */
+    public static void clientHandshake(DataOutputStream out, DataInputStream in) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.flush();
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Сервер не поддерживает двоичный протокол.");
+        }
+        short serverVersion = in.readShort();
+        if (in.readByte() != 0) {
+            throw new IOException("Сервер не поддерживает версию протокола " + VERSION
+                    + " (версия сервера: " + serverVersion + ").");
+        }
+    }
+
+    /**
+     * Выполняет рукопожатие на стороне сервера.
+     *
+     * @param in поток от клиента
+     * @param out поток к клиенту
+     * @return {@code true}, если версия клиента поддерживается
+     * @throws IOException если соединение разорвано
+     */
+    public static boolean serverHandshake(DataInputStream in, DataOutputStream out) throws IOException {
+        int magic = in.readInt();
+        short clientVersion = in.readShort();
+        boolean accepted = magic == MAGIC && clientVersion == VERSION;
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(accepted ? 0 : 1);
+        out.flush();
+        return accepted;
+    }
+}
@@ -0,0 +1,276 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Декодирование запросов и ответов двоичного протокола.
+ * Формат кадров описан в {@link ProtocolEncoder}.
+ *
+ * <p>Объект не потокобезопасен.</p>
+ */
+public class ProtocolDecoder {
+    private static final Climate[] CLIMATES = Climate.values();
+    private static final Government[] GOVERNMENTS = Government.values();
+    private static final StandardOfLiving[] STANDARDS_OF_LIVING = StandardOfLiving.values();
+
+    private final DataInputStream in;
+
+    /**
+     * Создаёт декодировщик, читающий кадры из указанного потока.
+     *
+     * @param in входной поток
+     */
+    public ProtocolDecoder(InputStream in) {
+        this.in = in instanceof DataInputStream d ? d : new DataInputStream(in);
+    }
+
+    /**
+     * Читает кадр с запросом.
+     * <p>
+     * Если кадр прочитан целиком, но его тело повреждено, выбрасывается
+     * {@link ProtocolException}: поток остаётся на границе следующего кадра,
+     * и соединение можно продолжать обслуживать.
+     * </p>
+     *
+     * @return запрос или {@code null}, если поток закончился
+     * @throws ProtocolException если тело кадра повреждено
+     * @throws IOException если произошла ошибка чтения или длина кадра недопустима
+     */
+    public ProtocolRequest readRequest() throws IOException {
+        DataInputStream data = readFrame();
+        if (data == null) {
+            return null;
+        }
+        try {
+            return decodeRequest(data);
+        } catch (IOException | RuntimeException e) {
+            throw new ProtocolException(e.getMessage());
+        }
+    }
+
+    /**
+     * Читает кадр с ответом.
+     *
+     * @return ответ
+     * @throws IOException если произошла ошибка чтения, кадр повреждён или поток закончился
+     */
+    public ProtocolResponse readResponse() throws IOException {
+        DataInputStream data = readFrame();
+        if (data == null) {
+            throw new EOFException("Соединение закрыто сервером.");
+        }
+        return decodeResponse(data);
+    }
+
+    /**
+     * Декодирует тело запроса.
+     *
+     * @param data тело кадра
+     * @return запрос
+     * @throws IOException если тело повреждено
+     */
+    public static ProtocolRequest decodeRequest(DataInputStream data) throws IOException {
+        Opcode op = Opcode.byCode(data.readUnsignedByte());
+        return switch (op) {
+            case ADD, REMOVE_LOWER -> new ProtocolRequest(op, 0, readCity(data), null, null);
+            case UPDATE -> {
+                long id = data.readLong();
+                yield new ProtocolRequest(op, id, readCity(data), null, null);
+            }
+            case REMOVE_BY_ID -> new ProtocolRequest(op, data.readLong(), null, null, null);
+            case SHOW_PAGE, SHOW_STREAM -> {
+                long afterId = data.readLong();
+                yield ProtocolRequest.page(op, afterId, data.readInt());
+            }
+            case REMOVE_ALL_BY_GOVERNOR -> new ProtocolRequest(
+                    op, 0, null, data.readBoolean() ? readHuman(data) : null, null);
+            case EXECUTE_SCRIPT -> new ProtocolRequest(op, 0, null, null, readString(data));
+            default -> ProtocolRequest.of(op);
+        };
+    }
+
+    /**
+     * Декодирует тело ответа.
+     *
+     * @param data тело кадра
+     * @return ответ
+     * @throws IOException если тело повреждено
+     */
+    public static ProtocolResponse decodeResponse(DataInputStream data) throws IOException {
+        boolean ok = data.readBoolean();
+        int kindIndex = data.readUnsignedByte();
+        if (kindIndex >= ProtocolResponse.Kind.values().length) {
+            throw new IOException("Неизвестный вид ответа: " + kindIndex);
+        }
+        ProtocolResponse.Kind kind = ProtocolResponse.Kind.values()[kindIndex];
+        return switch (kind) {
+            case TEXT -> new ProtocolResponse(ok, kind, readString(data), 0, null, null, null);
+            case NUMBER -> new ProtocolResponse(ok, kind, null, data.readLong(), null, null, null);
+            case CITIES -> {
+                List<City> cities = readCities(data);
+                yield new ProtocolResponse(ok, kind, null, cities.size(), cities, null, null);
+            }
+            case PAGE -> {
+                List<City> cities = readCities(data);
+                yield new ProtocolResponse(ok, kind, null, data.readBoolean() ? 1 : 0, cities, null, null);
+            }
+            case CITY -> new ProtocolResponse(ok, kind, null, 0, null,
+                    data.readBoolean() ? readCity(data) : null, null);
+            case HUMANS -> {
+                int n = data.readInt();
+                List<Human> humans = new ArrayList<>(Math.min(n, 1 << 16));
+                for (int i = 0; i < n; i++) {
+                    humans.add(readHuman(data));
+                }
+                yield new ProtocolResponse(ok, kind, null, n, null, null, humans);
+            }
+        };
+    }
+
+    private static List<City> readCities(DataInputStream data) throws IOException {
+        int n = data.readInt();
+        List<City> cities = new ArrayList<>(Math.min(n, 1 << 16));
+        for (int i = 0; i < n; i++) {
+            cities.add(readCity(data));
+        }
+        return cities;
+    }
+
+    /**
+     * Читает кадр целиком.
+     *
+     * @return поток с телом кадра или {@code null}, если входной поток закончился до начала кадра
+     * @throws IOException если произошла ошибка чтения
+     */
+    private DataInputStream readFrame() throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > Protocol.MAX_FRAME) {
+            throw new IOException("Недопустимая длина кадра: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    /**
+     * Декодирует город.
+     *
+     * @param data поток
+     * @return город
+     * @throws IOException если данные повреждены
+     */
+    public static City readCity(DataInputStream data) throws IOException {
+        int flags = data.readUnsignedByte();
+        City city = new City();
+        city.setId(data.readLong());
+        city.setName(readString(data));
+
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(data.readInt());
+        if ((flags & Protocol.HAS_Y) != 0) {
+            coordinates.setY(data.readInt());
+        }
+        city.setCoordinates(coordinates);
+
+        if ((flags & Protocol.HAS_CREATION_DATE) != 0) {
+            city.setCreationDate(readDateTime(data));
+        }
+        if ((flags & Protocol.HAS_AREA) != 0) {
+            city.setArea(data.readDouble());
+        }
+        if ((flags & Protocol.HAS_POPULATION) != 0) {
+            city.setPopulation(data.readLong());
+        }
+        city.setMetersAboveSeaLevel(data.readLong());
+        if ((flags & Protocol.HAS_CLIMATE) != 0) {
+            city.setClimate(constant(CLIMATES, data.readUnsignedByte(), "climate"));
+        }
+        if ((flags & Protocol.HAS_GOVERNMENT) != 0) {
+            city.setGovernment(constant(GOVERNMENTS, data.readUnsignedByte(), "government"));
+        }
+        if ((flags & Protocol.HAS_STANDARD_OF_LIVING) != 0) {
+            city.setStandardOfLiving(constant(STANDARDS_OF_LIVING, data.readUnsignedByte(), "standardOfLiving"));
+        }
+        if ((flags & Protocol.HAS_GOVERNOR) != 0) {
+            city.setGovernor(readHuman(data));
+        }
+        return city;
+    }
+
+    /**
+     * Декодирует человека.
+     *
+     * @param data поток
+     * @return человек
+     * @throws IOException если данные повреждены
+     */
+    public static Human readHuman(DataInputStream data) throws IOException {
+        int flags = data.readUnsignedByte();
+        Human human = new Human();
+        human.setName(readString(data));
+        if ((flags & Protocol.HAS_HEIGHT) != 0) {
+            human.setHeight(data.readFloat());
+        }
+        if ((flags & Protocol.HAS_BIRTHDAY) != 0) {
+            human.setBirthday(readDateTime(data));
+        }
+        return human;
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream data) throws IOException {
+        long seconds = data.readLong();
+        int nanos = data.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * Возвращает константу перечисления по порядковому номеру, полученному из сети.
+     *
+     * @param values константы перечисления
+     * @param ordinal порядковый номер
+     * @param field имя поля для сообщения об ошибке
+     * @return константа
+     * @throws IOException если номер вне диапазона
+     */
+    private static <E> E constant(E[] values, int ordinal, String field) throws IOException {
+        if (ordinal >= values.length) {
+            throw new IOException("Недопустимое значение " + field + ": " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Читает строку с префиксом длины. Длина не может превышать {@link Protocol#MAX_FRAME};
+     * байты читаются по мере поступления, а не в заранее выделенный массив заявленной
+     * длины, поэтому длина больше остатка кадра приводит к ошибке, а не к выделению памяти.
+     * Остаток через {@code available()} не проверяется: при репликации города читаются
+     * прямо из потока сокета, где он не равен длине данных.
+     */
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > Protocol.MAX_FRAME) {
+            throw new IOException("Недопустимая длина строки: " + length);
+        }
+        byte[] bytes = data.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Строка обрывается: ожидалось " + length + " байт, получено " + bytes.length);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
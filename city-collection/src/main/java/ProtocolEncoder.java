@@ -0,0 +1,258 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Кодирование запросов и ответов двоичного протокола.
+ * <p>
+ * Тело запроса: код операции ({@code byte}) и аргументы операции
+ * (см. {@link ProtocolRequest}). Тело ответа: признак успеха ({@code byte}),
+ * вид результата ({@code byte}, порядковый номер {@link ProtocolResponse.Kind}) и сам результат.
+ * </p>
+ *
+ * <p>
+ * Город кодируется примитивами фиксированной ширины: байт флагов необязательных полей,
+ * {@code long} id, строка name, {@code int} x, затем присутствующие поля в порядке объявления
+ * в {@link City}. Даты передаются как {@code long} секунд эпохи (UTC) и {@code int} наносекунд,
+ * перечисления — байтом с порядковым номером. Строки — {@code int} длина и байты UTF-8.
+ * </p>
+ *
+ * <p>Объект не потокобезопасен.</p>
+ */
+public class ProtocolEncoder {
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    private final DataOutputStream data = new DataOutputStream(body);
+
+    /**
+     * Создаёт кодировщик, пишущий кадры в указанный поток.
+     *
+     * @param out выходной поток
+     */
+    public ProtocolEncoder(OutputStream out) {
+        this.out = out instanceof DataOutputStream d ? d : new DataOutputStream(out);
+    }
+
+    /**
+     * Записывает кадр с запросом и сбрасывает буфер потока.
+     *
+     * @param request запрос
+     * @throws IOException если произошла ошибка записи
+     */
+    public void writeRequest(ProtocolRequest request) throws IOException {
+        body.reset();
+        encodeRequest(request, data);
+        flushFrame();
+    }
+
+    /**
+     * Записывает кадр с ответом и сбрасывает буфер потока.
+     *
+     * @param response ответ
+     * @throws IOException если произошла ошибка записи
+     */
+    public void writeResponse(ProtocolResponse response) throws IOException {
+        body.reset();
+        encodeResponse(response, data);
+        flushFrame();
+    }
+
+    /**
+     * Кодирует тело ответа без заголовка кадра.
+     *
+     * @param response ответ
+     * @return тело ответа
+     */
+    public static byte[] encodeResponse(ProtocolResponse response) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            encodeResponse(response, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Кодирует тело запроса без заголовка кадра.
+     *
+     * @param request запрос
+     * @return тело запроса
+     */
+    public static byte[] encodeRequest(ProtocolRequest request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            encodeRequest(request, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Записывает заранее закодированное тело ответа отдельным кадром.
+     *
+     * @param encoded тело ответа
+     * @throws IOException если произошла ошибка записи
+     */
+    public void writeEncoded(byte[] encoded) throws IOException {
+        out.writeInt(encoded.length);
+        out.write(encoded);
+        out.flush();
+    }
+
+    private static void encodeRequest(ProtocolRequest request, DataOutputStream data) throws IOException {
+        data.writeByte(request.op.code());
+        switch (request.op) {
+            case ADD, REMOVE_LOWER -> writeCity(data, request.city);
+            case UPDATE -> {
+                data.writeLong(request.id);
+                writeCity(data, request.city);
+            }
+            case REMOVE_BY_ID -> data.writeLong(request.id);
+            case SHOW_PAGE, SHOW_STREAM -> {
+                data.writeLong(request.id);
+                data.writeInt(request.limit);
+            }
+            case REMOVE_ALL_BY_GOVERNOR -> {
+                data.writeBoolean(request.governor != null);
+                if (request.governor != null) {
+                    writeHuman(data, request.governor);
+                }
+            }
+            case EXECUTE_SCRIPT -> writeString(data, request.text);
+            default -> {
+            }
+        }
+    }
+
+    private static void encodeResponse(ProtocolResponse response, DataOutputStream data) throws IOException {
+        data.writeBoolean(response.ok);
+        data.writeByte(response.kind.ordinal());
+        switch (response.kind) {
+            case TEXT -> writeString(data, response.text);
+            case NUMBER -> data.writeLong(response.number);
+            case CITIES -> {
+                data.writeInt(response.cities.size());
+                for (City city : response.cities) {
+                    writeCity(data, city);
+                }
+            }
+            case CITY -> {
+                data.writeBoolean(response.city != null);
+                if (response.city != null) {
+                    writeCity(data, response.city);
+                }
+            }
+            case PAGE -> {
+                data.writeInt(response.cities.size());
+                for (City city : response.cities) {
+                    writeCity(data, city);
+                }
+                data.writeBoolean(response.hasMore());
+            }
+            case HUMANS -> {
+                List<Human> humans = response.humans;
+                data.writeInt(humans.size());
+                for (Human human : humans) {
+                    writeHuman(data, human);
+                }
+            }
+        }
+    }
+
+    private void flushFrame() throws IOException {
+        out.writeInt(body.size());
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Кодирует город.
+     *
+     * @param data поток
+     * @param city город
+     * @throws IOException если произошла ошибка записи
+     */
+    public static void writeCity(DataOutputStream data, City city) throws IOException {
+        Coordinates c = city.getCoordinates();
+        int flags = (c.getY() != null ? Protocol.HAS_Y : 0)
+                | (city.getCreationDate() != null ? Protocol.HAS_CREATION_DATE : 0)
+                | (city.getArea() != null ? Protocol.HAS_AREA : 0)
+                | (city.getPopulation() != null ? Protocol.HAS_POPULATION : 0)
+                | (city.getClimate() != null ? Protocol.HAS_CLIMATE : 0)
+                | (city.getGovernment() != null ? Protocol.HAS_GOVERNMENT : 0)
+                | (city.getStandardOfLiving() != null ? Protocol.HAS_STANDARD_OF_LIVING : 0)
+                | (city.getGovernor() != null ? Protocol.HAS_GOVERNOR : 0);
+
+        data.writeByte(flags);
+        data.writeLong(city.getId());
+        writeString(data, city.getName());
+        data.writeInt(c.getX());
+        if (c.getY() != null) {
+            data.writeInt(c.getY());
+        }
+        if (city.getCreationDate() != null) {
+            writeDateTime(data, city.getCreationDate());
+        }
+        if (city.getArea() != null) {
+            data.writeDouble(city.getArea());
+        }
+        if (city.getPopulation() != null) {
+            data.writeLong(city.getPopulation());
+        }
+        data.writeLong(city.getMetersAboveSeaLevel());
+        if (city.getClimate() != null) {
+            data.writeByte(city.getClimate().ordinal());
+        }
+        if (city.getGovernment() != null) {
+            data.writeByte(city.getGovernment().ordinal());
+        }
+        if (city.getStandardOfLiving() != null) {
+            data.writeByte(city.getStandardOfLiving().ordinal());
+        }
+        if (city.getGovernor() != null) {
+            writeHuman(data, city.getGovernor());
+        }
+    }
+
+    /**
+     * Кодирует человека.
+     *
+     * @param data поток
+     * @param human человек
+     * @throws IOException если произошла ошибка записи
+     */
+    public static void writeHuman(DataOutputStream data, Human human) throws IOException {
+        int flags = (human.getHeight() != null ? Protocol.HAS_HEIGHT : 0)
+                | (human.getBirthday() != null ? Protocol.HAS_BIRTHDAY : 0);
+        data.writeByte(flags);
+        writeString(data, human.getName());
+        if (human.getHeight() != null) {
+            data.writeFloat(human.getHeight());
+        }
+        if (human.getBirthday() != null) {
+            writeDateTime(data, human.getBirthday());
+        }
+    }
+
+    private static void writeDateTime(DataOutputStream data, LocalDateTime dateTime) throws IOException {
+        data.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        data.writeInt(dateTime.getNano());
+    }
+
+    private static void writeString(DataOutputStream data, String s) throws IOException {
+        if (s == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Запрос двоичного протокола.
+ * <p>
+ * Набор аргументов зависит от операции: {@code id} — для update и remove_by_id,
+ * {@code city} — для add, update и remove_lower, {@code governor} — для
+ * remove_all_by_governor (может быть {@code null}), {@code text} — для execute_script.
+ * Для постраничного и потокового show {@code id} — курсор (id, после которого начинается
+ * вывод), {@code limit} — размер страницы.
+ * Неиспользуемые поля равны нулю или {@code null}.
+ * </p>
+ */
+public class ProtocolRequest {
+    public final Opcode op;
+    public final long id;
+    public final City city;
+    public final Human governor;
+    public final String text;
+    public final int limit;
+
+    public ProtocolRequest(Opcode op, long id, City city, Human governor, String text, int limit) {
+        this.op = op;
+        this.id = id;
+        this.city = city;
+        this.governor = governor;
+        this.text = text;
+        this.limit = limit;
+    }
+
+    public ProtocolRequest(Opcode op, long id, City city, Human governor, String text) {
+        this(op, id, city, governor, text, 0);
+    }
+
+    /**
+     * Создаёт запрос без аргументов.
+     *
+     * @param op операция
+     * @return запрос
+     */
+    public static ProtocolRequest of(Opcode op) {
+        return new ProtocolRequest(op, 0, null, null, null);
+    }
+
+    /**
+     * Создаёт запрос постраничного или потокового вывода.
+     *
+     * @param op {@link Opcode#SHOW_PAGE} или {@link Opcode#SHOW_STREAM}
+     * @param afterId id, после которого начинается вывод
+     * @param limit размер страницы
+     * @return запрос
+     */
+    public static ProtocolRequest page(Opcode op, long afterId, int limit) {
+        return new ProtocolRequest(op, afterId, null, null, null, limit);
+    }
+}
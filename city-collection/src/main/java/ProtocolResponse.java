@@ -0,0 +1,81 @@
+import java.util.List;
+
+/**
+ * Ответ двоичного протокола.
+ * <p>
+ * Ответ содержит признак успеха и результат одного из видов ({@link Kind}):
+ * текст, число, список городов, один город, список губернаторов или страница городов.
+ * Для страницы ({@link Kind#PAGE}) поле {@code number} равно 1, если за ней следуют
+ * другие страницы (см. {@link #hasMore()}).
+ * </p>
+ */
+public class ProtocolResponse {
+
+    /**
+     * Вид результата.
+     */
+    public enum Kind {
+        TEXT,
+        NUMBER,
+        CITIES,
+        CITY,
+        HUMANS,
+        PAGE
+    }
+
+    public final boolean ok;
+    public final Kind kind;
+    public final String text;
+    public final long number;
+    public final List<City> cities;
+    public final City city;
+    public final List<Human> humans;
+
+    public ProtocolResponse(boolean ok, Kind kind, String text, long number,
+                            List<City> cities, City city, List<Human> humans) {
+        this.ok = ok;
+        this.kind = kind;
+        this.text = text;
+        this.number = number;
+        this.cities = cities;
+        this.city = city;
+        this.humans = humans;
+    }
+
+    public static ProtocolResponse text(String text) {
+        return new ProtocolResponse(true, Kind.TEXT, text, 0, null, null, null);
+    }
+
+    public static ProtocolResponse error(String message) {
+        return new ProtocolResponse(false, Kind.TEXT, message, 0, null, null, null);
+    }
+
+    public static ProtocolResponse number(long number) {
+        return new ProtocolResponse(true, Kind.NUMBER, null, number, null, null, null);
+    }
+
+    public static ProtocolResponse cities(List<City> cities) {
+        return new ProtocolResponse(true, Kind.CITIES, null, cities.size(), cities, null, null);
+    }
+
+    public static ProtocolResponse city(City city) {
+        return new ProtocolResponse(true, Kind.CITY, null, 0, null, city, null);
+    }
+
+    public static ProtocolResponse page(List<City> cities, boolean more) {
+        return new ProtocolResponse(true, Kind.PAGE, null, more ? 1 : 0, cities, null, null);
+    }
+
+    /**
+     * Проверяет, следуют ли за этой страницей другие.
+     *
+     * @return {@code true}, если это страница и она не последняя
+     */
+    public boolean hasMore() {
+        return kind == Kind.PAGE && number != 0;
+    }
+
+    public static ProtocolResponse humans(List<Human> humans) {
+        return new ProtocolResponse(true, Kind.HUMANS, null, humans.size(), null, null, humans);
+    }
+}
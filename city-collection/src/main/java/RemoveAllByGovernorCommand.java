@@ -9,11 +9,14 @@ public class RemoveAllByGovernorCommand implements Command {
     @Override
     public String description() { return "удалить все элементы, значение поля governor которых эквивалентно заданному"; }
 
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         Human gov = input.readGovernorValue();
         int removed = ctx.cm.removeAllByGovernor(gov);
-        System.out.println("Удалено элементов: " + removed);
+        ctx.out.println("Удалено элементов: " + removed);
         return true;
     }
 }
\ No newline at end of file
@@ -9,15 +9,21 @@ public class RemoveByIdCommand implements Command {
     @Override
     public String description() { return "remove_by_id id: удалить элемент из коллекции по его id"; }
 
+    @Override
+    public boolean requiresLoadedCollection() { return false; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         if (args.length < 1) {
-            System.out.println("Использование: remove_by_id id");
+            ctx.out.println("Использование: remove_by_id id");
             return true;
         }
         long id = ctx.manager.parseLongArg(args[0], "id");
+        if (!ctx.cm.containsId(id) && !ctx.cm.isLoaded()) {
+            ctx.cm.awaitLoaded();
+        }
         boolean ok = ctx.cm.removeById(id);
-        System.out.println(ok ? "Удалено." : "Элемент с таким id не найден.");
+        ctx.out.println(ok ? "Удалено." : "Элемент с таким id не найден.");
         return true;
     }
 }
\ No newline at end of file
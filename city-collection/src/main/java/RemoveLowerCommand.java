@@ -9,11 +9,14 @@ public class RemoveLowerCommand implements Command {
     @Override
     public String description() { return "remove_lower {element}: удалить все элементы, меньшие чем заданный"; }
 
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         City pivot = input.readCityForComparison(ctx.cm);
         int removed = ctx.cm.removeLower(pivot);
-        System.out.println("Удалено элементов: " + removed);
+        ctx.out.println("Удалено элементов: " + removed);
         return true;
     }
 }
\ No newline at end of file
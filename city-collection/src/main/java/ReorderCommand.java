@@ -9,10 +9,13 @@ public class ReorderCommand implements Command {
     @Override
     public String description() { return "отсортировать коллекцию в порядке, обратном нынешнему"; }
 
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         ctx.cm.reorder();
-        System.out.println("Порядок коллекции обращён.");
+        ctx.out.println("Порядок коллекции обращён.");
         return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+/**
+ * Запись журнала репликации: изменение коллекции с порядковым номером
+ * и временем выполнения на ведущем процессе.
+ */
+public class ReplicationEntry {
+    public final long seq;
+    public final long timestamp;
+    public final Mutation mutation;
+
+    public ReplicationEntry(long seq, long timestamp, Mutation mutation) {
+        this.seq = seq;
+        this.timestamp = timestamp;
+        this.mutation = mutation;
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ведомый процесс репликации.
+ * <p>
+ * Подключается к {@link ReplicationPrimary}, получает снимок коллекции и затем
+ * применяет изменения из журнала ведущего по порядку номеров. Пока первый снимок
+ * не получен, коллекция считается загружающейся ({@link CollectionManager#startLoading}).
+ * Изменения применяются под блокировкой записи {@link CommandManager}, поэтому
+ * читающие команды видят коллекцию только между изменениями. При разрыве связи
+ * ведомый переподключается и продолжает с последней применённой записи. Если
+ * запись не удалось разобрать или применить, копия считается недостоверной,
+ * и после переподключения ведомый запрашивает новый снимок.
+ * </p>
+ */
+public class ReplicationFollower {
+    /**
+     * Пауза перед повторным подключением, мс.
+     */
+    private static final long RECONNECT_MS = 1000;
+
+    private final CommandManager manager;
+    private final String host;
+    private final int port;
+    private final CompletableFuture<Void> firstSnapshot = new CompletableFuture<>();
+
+    private volatile long logId;
+    private volatile long appliedSeq;
+    private volatile long primarySeq;
+    private volatile long lastContact;
+    private volatile long applyDelayMs;
+    private volatile boolean connected;
+    private volatile String lastError;
+
+    /**
+     * Создаёт ведомый процесс.
+     *
+     * @param manager менеджер команд с копией коллекции
+     * @param host адрес ведущего
+     * @param port порт репликации ведущего
+     */
+    public ReplicationFollower(CommandManager manager, String host, int port) {
+        this.manager = manager;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Запускает репликацию в фоновом потоке.
+     */
+    public void start() {
+        manager.context().cm.startLoading(firstSnapshot, 0);
+        Thread t = new Thread(this::loop, "replication-follower");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void loop() {
+        while (true) {
+            try {
+                session();
+            } catch (IOException e) {
+                lastError = e.getMessage();
+            } catch (RuntimeException e) {
+                lastError = e.toString();
+                logId = 0;
+                System.err.println("Ошибка репликации: " + e);
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void session() throws IOException {
+        try (Socket socket = new Socket(host, port);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16))) {
+            out.writeInt(Protocol.MAGIC);
+            out.writeShort(ReplicationProtocol.VERSION);
+            out.writeLong(logId);
+            out.writeLong(appliedSeq);
+            out.flush();
+            connected = true;
+            lastError = null;
+
+            CollectionManager cm = manager.context().cm;
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case ReplicationProtocol.SNAPSHOT -> applySnapshot(in, cm);
+                    case ReplicationProtocol.ENTRY -> {
+                        long seq = in.readLong();
+                        long timestamp = in.readLong();
+                        Mutation mutation = ReplicationProtocol.readMutation(in);
+                        if (seq != appliedSeq + 1) {
+                            throw new IOException("Пропуск в журнале: ожидалась запись " + (appliedSeq + 1)
+                                    + ", получена " + seq);
+                        }
+                        manager.locked(true, () -> {
+                            apply(cm, mutation);
+                            return null;
+                        });
+                        appliedSeq = seq;
+                        primarySeq = Math.max(primarySeq, seq);
+                        lastContact = System.currentTimeMillis();
+                        applyDelayMs = lastContact - timestamp;
+                    }
+                    case ReplicationProtocol.HEARTBEAT -> {
+                        primarySeq = Math.max(primarySeq, in.readLong());
+                        in.readLong();
+                        lastContact = System.currentTimeMillis();
+                    }
+                    default -> throw new IOException("Неизвестное сообщение репликации: " + type);
+                }
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in, CollectionManager cm) throws IOException {
+        long snapshotLogId = in.readLong();
+        long seq = in.readLong();
+        int n = in.readInt();
+        City[] cities = new City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = ProtocolDecoder.readCity(in);
+        }
+        manager.locked(true, () -> {
+            cm.clear();
+            for (City city : cities) {
+                cm.addLoaded(city);
+            }
+            cm.syncNextIdFromLoadedData();
+            return null;
+        });
+        logId = snapshotLogId;
+        appliedSeq = seq;
+        primarySeq = Math.max(seq, primarySeq);
+        lastContact = System.currentTimeMillis();
+        firstSnapshot.complete(null);
+    }
+
+    /**
+     * Применяет изменение из журнала ведущего к копии коллекции.
+     *
+     * @param cm коллекция ведомого
+     * @param mutation изменение
+     */
+    static void apply(CollectionManager cm, Mutation mutation) {
+        switch (mutation.type) {
+            case ADD -> cm.add(mutation.city);
+            case UPDATE -> cm.update(mutation.id, mutation.city);
+            case REMOVE -> cm.removeById(mutation.id);
+            case CLEAR -> cm.clear();
+            case REORDER -> cm.reorder();
+            case SORT -> cm.sortDefault();
+            case REMOVE_LOWER -> cm.removeLower(mutation.city);
+            case REMOVE_ALL_BY_GOVERNOR -> cm.removeAllByGovernor(mutation.governor);
+        }
+    }
+
+    /**
+     * Возвращает номер последней применённой записи журнала.
+     *
+     * @return номер записи
+     */
+    public long appliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * Возвращает отставание от ведущего в записях журнала.
+     *
+     * @return количество известных, но ещё не применённых записей
+     */
+    public long lagEntries() {
+        return primarySeq - appliedSeq;
+    }
+
+    /**
+     * Возвращает сведения о репликации для команды info.
+     *
+     * @return строка с состоянием
+     */
+    public String info() {
+        long sinceContact = lastContact == 0 ? -1 : System.currentTimeMillis() - lastContact;
+        return "Репликация (ведомый " + host + ":" + port + "): применено записей " + appliedSeq
+                + " из " + primarySeq + " (отставание " + lagEntries() + ")"
+                + ", задержка применения " + applyDelayMs + " мс"
+                + (connected ? ", соединение есть" : ", соединения нет")
+                + (sinceContact < 0 ? "" : ", последнее сообщение " + sinceContact + " мс назад")
+                + (lastError == null ? "" : ", ошибка: " + lastError);
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Журнал изменений коллекции для репликации.
+ * <p>
+ * Журнал получает изменения от {@link CollectionManager} и нумерует их подряд, начиная с 1;
+ * номер назначается в синхронизированном {@link #onMutation(Mutation)}, который коллекция
+ * вызывает сразу после изменения, ещё удерживая свою блокировку. У обычной коллекции
+ * изменения выполняются под блокировкой записи {@link CommandManager}, поэтому порядок
+ * номеров совпадает с порядком изменений. У {@link PartitionedCollectionManager}
+ * изменяющие команды выполняются одновременно под блокировкой чтения, и порядок задаёт
+ * только {@code onMutation}: изменения одного элемента упорядочены блокировкой его секции,
+ * изменения всей коллекции (clear, reorder, sort, remove_*) — блокировками всех секций,
+ * а изменения разных элементов могут получить номера в любом порядке, что не влияет
+ * на результат их применения. В памяти хранятся только последние {@code capacity} записей:
+ * ведомый, отставший сильнее, получает снимок коллекции заново.
+ * </p>
+ *
+ * <p>Идентификатор журнала ({@link #logId()}) выбирается случайно при запуске, чтобы
+ * ведомый не продолжил по номерам журнала предыдущего запуска ведущего.</p>
+ */
+public class ReplicationLog implements MutationListener {
+    private final long logId = ThreadLocalRandom.current().nextLong();
+    private final ReplicationEntry[] ring;
+    private long lastSeq;
+
+    /**
+     * Создаёт журнал.
+     *
+     * @param capacity количество хранимых записей
+     */
+    public ReplicationLog(int capacity) {
+        this.ring = new ReplicationEntry[capacity];
+    }
+
+    @Override
+    public synchronized void onMutation(Mutation mutation) {
+        long seq = ++lastSeq;
+        ring[(int) (seq % ring.length)] = new ReplicationEntry(seq, System.currentTimeMillis(), mutation);
+        notifyAll();
+    }
+
+    public long logId() {
+        return logId;
+    }
+
+    /**
+     * Возвращает номер последней записи.
+     *
+     * @return номер или 0, если изменений не было
+     */
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Возвращает записи после указанного номера. Если новых записей нет, ждёт их
+     * появления не дольше {@code waitMs} мс.
+     *
+     * @param afterSeq номер последней полученной записи
+     * @param max максимальное количество записей
+     * @param waitMs время ожидания, мс
+     * @return записи по возрастанию номеров (возможно, пустой список) или {@code null},
+     * если нужные записи уже вытеснены из журнала или номер больше последнего
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public synchronized List<ReplicationEntry> after(long afterSeq, int max, long waitMs)
+            throws InterruptedException {
+        if (afterSeq == lastSeq && waitMs > 0) {
+            wait(waitMs);
+        }
+        if (afterSeq > lastSeq || afterSeq < lastSeq - ring.length) {
+            return null;
+        }
+        long to = Math.min(lastSeq, afterSeq + max);
+        List<ReplicationEntry> entries = new ArrayList<>((int) (to - afterSeq));
+        for (long seq = afterSeq + 1; seq <= to; seq++) {
+            entries.add(ring[(int) (seq % ring.length)]);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,185 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ведущий процесс репликации.
+ * <p>
+ * Принимает подключения ведомых ({@link ReplicationFollower}) и отправляет каждому
+ * записи {@link ReplicationLog} по порядку. Если ведомый подключается впервые, после
+ * перезапуска ведущего или отстал сильнее, чем хранит журнал, ему сначала отправляется
+ * снимок коллекции вместе с номером записи, которой он соответствует; иначе передача
+ * продолжается с записи, следующей за последней применённой ведомым.
+ * </p>
+ *
+ * <p>Каждый ведомый обслуживается своим потоком; запись в сокет блокирующая, поэтому
+ * медленный ведомый не задерживает остальных и не накапливает данные в памяти ведущего.</p>
+ *
+ * <p>Ведомые не проходят проверку подлинности и получают всю коллекцию, поэтому порт
+ * открывается только на указанном адресе (по умолчанию локальном, см. {@link Main}).</p>
+ */
+public class ReplicationPrimary {
+    /**
+     * Максимальное количество записей, отправляемых за один раз.
+     */
+    private static final int BATCH = 1024;
+
+    /**
+     * Период отправки сообщений о состоянии журнала, когда изменений нет, мс.
+     */
+    private static final long HEARTBEAT_MS = 500;
+
+    private final CommandManager manager;
+    private final ReplicationLog log;
+    private final InetAddress bind;
+    private final int port;
+    private final AtomicInteger followers = new AtomicInteger();
+
+    /**
+     * Создаёт ведущий процесс.
+     *
+     * @param manager менеджер команд с реплицируемой коллекцией
+     * @param log журнал изменений коллекции
+     * @param bind адрес, на котором принимаются подключения ведомых
+     * @param port TCP-порт для подключения ведомых
+     */
+    public ReplicationPrimary(CommandManager manager, ReplicationLog log, InetAddress bind, int port) {
+        this.manager = manager;
+        this.log = log;
+        this.bind = bind;
+        this.port = port;
+    }
+
+    /**
+     * Открывает порт и начинает принимать ведомых в фоновом потоке.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    public void start() throws IOException {
+        ServerSocket server = new ServerSocket(port, 0, bind);
+        Thread acceptor = new Thread(() -> accept(server), "replication-primary");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("Репликация: ожидание ведомых на " + bind.getHostAddress() + ":" + port + ".");
+    }
+
+    private void accept(ServerSocket server) {
+        try (server) {
+            while (true) {
+                Socket socket = server.accept();
+                Thread t = new Thread(() -> serve(socket), "replication-" + socket.getRemoteSocketAddress());
+                t.setDaemon(true);
+                t.start();
+            }
+        } catch (IOException e) {
+            System.err.println("Репликация остановлена: " + e.getMessage());
+        }
+    }
+
+    private void serve(Socket socket) {
+        followers.incrementAndGet();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            if (in.readInt() != Protocol.MAGIC || in.readShort() != ReplicationProtocol.VERSION) {
+                return;
+            }
+            long followerLogId = in.readLong();
+            long followerSeq = in.readLong();
+
+            long sent = followerLogId == log.logId() && log.after(followerSeq, 0, 0) != null
+                    ? followerSeq
+                    : sendSnapshot(out);
+            while (true) {
+                List<ReplicationEntry> entries = log.after(sent, BATCH, HEARTBEAT_MS);
+                if (entries == null) {
+                    sent = sendSnapshot(out);
+                    continue;
+                }
+                if (entries.isEmpty()) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(sent);
+                    out.writeLong(System.currentTimeMillis());
+                }
+                for (ReplicationEntry entry : entries) {
+                    out.writeByte(ReplicationProtocol.ENTRY);
+                    out.writeLong(entry.seq);
+                    out.writeLong(entry.timestamp);
+                    ReplicationProtocol.writeMutation(out, entry.mutation);
+                    sent = entry.seq;
+                }
+                out.flush();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // ведомый отключился или коллекция не загрузилась
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Отправляет снимок коллекции.
+     *
+     * @param out поток ведомого
+     * @return номер записи журнала, которой соответствует снимок
+     * @throws IOException если произошла ошибка записи
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        CollectionManager cm = manager.context().cm;
+        cm.awaitLoaded();
+        long[] seq = new long[1];
+        // блокировка записи: изменения коллекции, допускающей одновременную запись,
+        // выполняются под блокировкой чтения и могли бы попасть между номером и снимком
+        List<City> cities = manager.locked(true, () -> {
+            seq[0] = log.lastSeq();
+            return cm.snapshot();
+        });
+
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        out.writeLong(log.logId());
+        out.writeLong(seq[0]);
+        out.writeInt(cities.size());
+        for (City city : cities) {
+            ProtocolEncoder.writeCity(out, city);
+        }
+        out.flush();
+        return seq[0];
+    }
+
+    /**
+     * Возвращает количество подключённых ведомых.
+     *
+     * @return количество ведомых
+     */
+    public int followers() {
+        return followers.get();
+    }
+
+    /**
+     * Возвращает номер последней записи журнала.
+     *
+     * @return номер записи
+     */
+    public long lastSeq() {
+        return log.lastSeq();
+    }
+
+    /**
+     * Возвращает сведения о репликации для команды info.
+     *
+     * @return строка с состоянием
+     */
+    public String info() {
+        return "Репликация (ведущий, порт " + port + "): записей в журнале " + log.lastSeq()
+                + ", подключено ведомых " + followers.get();
+    }
+}
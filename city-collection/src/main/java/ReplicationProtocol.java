@@ -0,0 +1,89 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Протокол репликации между {@link ReplicationPrimary} и {@link ReplicationFollower}.
+ * <p>
+ * Ведомый после подключения отправляет {@link Protocol#MAGIC}, {@link #VERSION},
+ * идентификатор журнала и номер последней применённой записи. Дальше ведущий
+ * отправляет поток сообщений, каждое начинается с байта типа:
+ * </p>
+ * <ul>
+ *     <li>{@link #SNAPSHOT}: {@code long} идентификатор журнала, {@code long} номер записи,
+ *     которой соответствует снимок, {@code int} количество городов и сами города;</li>
+ *     <li>{@link #ENTRY}: {@code long} номер, {@code long} время (мс), изменение;</li>
+ *     <li>{@link #HEARTBEAT}: {@code long} номер последней записи журнала и {@code long}
+ *     время отправки (мс); отправляется, когда новых записей нет.</li>
+ * </ul>
+ * <p>Города и люди кодируются так же, как в двоичном протоколе ({@link ProtocolEncoder}).</p>
+ */
+public final class ReplicationProtocol {
+    public static final short VERSION = 1;
+
+    public static final byte SNAPSHOT = 1;
+    public static final byte ENTRY = 2;
+    public static final byte HEARTBEAT = 3;
+
+    private static final Mutation.Type[] TYPES = Mutation.Type.values();
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Кодирует изменение.
+     *
+     * @param out поток
+     * @param mutation изменение
+     * @throws IOException если произошла ошибка записи
+     */
+    public static void writeMutation(DataOutputStream out, Mutation mutation) throws IOException {
+        out.writeByte(mutation.type.ordinal());
+        switch (mutation.type) {
+            case ADD, REMOVE_LOWER -> ProtocolEncoder.writeCity(out, mutation.city);
+            case UPDATE -> {
+                out.writeLong(mutation.id);
+                ProtocolEncoder.writeCity(out, mutation.city);
+            }
+            case REMOVE -> out.writeLong(mutation.id);
+            case REMOVE_ALL_BY_GOVERNOR -> {
+                out.writeBoolean(mutation.governor != null);
+                if (mutation.governor != null) {
+                    ProtocolEncoder.writeHuman(out, mutation.governor);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Декодирует изменение.
+     *
+     * @param in поток
+     * @return изменение
+     * @throws IOException если данные повреждены
+     */
+    public static Mutation readMutation(DataInputStream in) throws IOException {
+        int typeIndex = in.readUnsignedByte();
+        if (typeIndex >= TYPES.length) {
+            throw new IOException("Неизвестный тип изменения: " + typeIndex);
+        }
+        Mutation.Type type = TYPES[typeIndex];
+        return switch (type) {
+            case ADD -> {
+                City city = ProtocolDecoder.readCity(in);
+                yield new Mutation(type, city.getId(), city, null);
+            }
+            case REMOVE_LOWER -> new Mutation(type, 0, ProtocolDecoder.readCity(in), null);
+            case UPDATE -> {
+                long id = in.readLong();
+                yield new Mutation(type, id, ProtocolDecoder.readCity(in), null);
+            }
+            case REMOVE -> new Mutation(type, in.readLong(), null, null);
+            case REMOVE_ALL_BY_GOVERNOR -> new Mutation(
+                    type, 0, null, in.readBoolean() ? ProtocolDecoder.readHuman(in) : null);
+            default -> Mutation.of(type);
+        };
+    }
+}
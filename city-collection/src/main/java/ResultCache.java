@@ -0,0 +1,148 @@
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов читающих команд.
+ * <p>
+ * Результат хранится по ключу (имя команды и аргументы) вместе с версией коллекции
+ * ({@link CollectionManager#version()}), для которой он вычислен, и возвращается,
+ * пока версия не изменилась. Одновременные запросы с одинаковым ключом объединяются:
+ * результат вычисляет первый из них, остальные ждут его. При смене версии устаревшие
+ * записи удаляются при следующем промахе.
+ * </p>
+ *
+ * <p>Пока коллекция загружается, её содержимое меняется без смены версии, поэтому
+ * результаты не кэшируются. Кэшированные объекты общие для всех вызывающих и не
+ * должны изменяться.</p>
+ */
+public class ResultCache {
+    private final CollectionManager cm;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Создаёт кэш.
+     *
+     * @param cm менеджер коллекции, версия которой определяет актуальность результатов
+     */
+    public ResultCache(CollectionManager cm) {
+        this.cm = cm;
+    }
+
+    /**
+     * Результат, вычисленный для определённой версии коллекции.
+     */
+    private static final class Entry {
+        final long version;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long bytes;
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Возвращает результат из кэша или вычисляет его.
+     * <p>
+     * Вызывающий должен удерживать блокировку чтения коллекции, чтобы версия
+     * не изменилась во время вычисления. Если коллекция допускает одновременные изменения,
+     * результат может учесть изменение, версия которого ещё не увеличена; такой результат
+     * перестаёт выдаваться, как только версия увеличится.
+     * </p>
+     *
+     * @param key ключ: имя команды и аргументы
+     * @param compute вычисление результата
+     * @param <T> тип результата
+     * @return результат для текущей версии коллекции
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> compute) {
+        if (!cm.isLoaded()) {
+            return compute.get();
+        }
+        long version = cm.version();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != version) {
+            Entry mine = new Entry(version);
+            entry = entries.compute(key, (k, old) -> old != null && old.version == version ? old : mine);
+            if (entry == mine) {
+                misses.incrementAndGet();
+                entries.values().removeIf(e -> e.version != version);
+                try {
+                    Object value = compute.get();
+                    mine.bytes = MemoryAccounting.retained(value);
+                    mine.result.complete(value);
+                } catch (RuntimeException e) {
+                    entries.remove(key, mine);
+                    mine.result.completeExceptionally(e);
+                    throw e;
+                }
+                return (T) mine.result.join();
+            }
+        }
+        hits.incrementAndGet();
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Возвращает количество запросов, получивших готовый или вычисляемый другим
+     * потоком результат.
+     *
+     * @return количество попаданий
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Возвращает количество записей в кэше.
+     *
+     * @return количество записей
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Оценивает память, занимаемую результатами в кэше (без элементов коллекции,
+     * на которые они ссылаются).
+     *
+     * @return байты
+     */
+    public long retainedBytes() {
+        long total = 0;
+        for (Entry e : entries.values()) {
+            total += e.bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Возвращает информацию о кэше для команды info.
+     *
+     * @return строка с количеством записей и оценкой памяти
+     */
+    public String info() {
+        return "Кэш результатов: записей " + size() + ", память (оценка) "
+                + MemoryAccounting.format(retainedBytes());
+    }
+
+    /**
+     * Возвращает количество вычислений результата.
+     *
+     * @return количество промахов
+     */
+    public long misses() {
+        return misses.get();
+    }
+}
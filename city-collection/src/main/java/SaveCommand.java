@@ -1,5 +1,8 @@
 /**
  * Команда сохранения коллекции в файл.
+ * <p>
+ * Если включено автосохранение, запись выполняется в его фоновом потоке.
+ * </p>
  */
 public class SaveCommand implements Command {
 
@@ -13,13 +16,22 @@ public class SaveCommand implements Command {
         return "сохранить коллекцию в файл";
     }
 
+    @Override
+    public boolean heavy() { return true; }
+
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
+        if (ctx.manager.getAutosave() != null) {
+            ctx.manager.getAutosave().saveNow();
+            ctx.out.println("Сохранение выполняется в фоне.");
+            return true;
+        }
+
         try {
             ctx.io.saveFrom(ctx.cm);
-            System.out.println("Коллекция сохранена.");
+            ctx.out.println("Коллекция сохранена.");
         } catch (Exception e) {
-            System.out.println("Ошибка сохранения: " + e.getMessage());
+            ctx.out.println("Ошибка сохранения: " + e.getMessage());
         }
         return true;
     }
@@ -1,23 +1,85 @@
+import java.util.List;
+
 /**
- * show: вывести все элементы коллекции
+ * show [after_id [limit]]: вывести элементы коллекции
+ * <p>
+ * Без аргументов вся коллекция выводится одним ответом: текст формируется целиком
+ * (и кэшируется, см. {@link ResultCache}), а {@link NioServer} отправляет вывод команды
+ * только после её завершения, поэтому ограничение неотправленного вывода на такой ответ
+ * не действует. Постраничный вывод ограничен {@link Protocol#MAX_PAGE} элементами
+ * на ответ; для больших коллекций по сети следует использовать его.
+ * </p>
  */
 public class ShowCommand implements Command {
+    private static final int DEFAULT_PAGE = 20;
 
     @Override
     public String name() { return "show"; }
 
     @Override
-    public String description() { return "вывести все элементы коллекции в строковом представлении"; }
+    public String description() {
+        return "show [after_id [limit]]: вывести все элементы коллекции в строковом представлении"
+                + " или страницу элементов с id больше after_id (по сети большие коллекции"
+                + " выводите страницами: show без аргументов отправляется одним ответом)";
+    }
+
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean heavy() { return true; }
 
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
+        if (args.length > 0) {
+            return showPage(args, ctx);
+        }
         if (ctx.cm.size() == 0) {
-            System.out.println("Коллекция пуста.");
+            ctx.out.println("Коллекция пуста.");
+            return true;
+        }
+        ctx.out.print(ctx.manager.cache().get("show", () -> render(ctx.cm.snapshot())));
+        return true;
+    }
+
+    /**
+     * Формирует текст вывода show для текстового протокола.
+     *
+     * @param cities элементы коллекции
+     * @return текст, по строке на элемент
+     */
+    static String render(List<City> cities) {
+        String separator = System.lineSeparator();
+        StringBuilder sb = new StringBuilder(cities.size() * 256);
+        for (City c : cities) {
+            sb.append(c).append(separator);
+        }
+        return sb.toString();
+    }
+
+    private boolean showPage(String[] args, CommandContext ctx) {
+        long afterId = ctx.manager.parseLongArg(args[0], "after_id");
+        int limit = DEFAULT_PAGE;
+        if (args.length > 1) {
+            long parsed = ctx.manager.parseLongArg(args[1], "limit");
+            if (parsed <= 0 || parsed > Protocol.MAX_PAGE) {
+                throw new IllegalArgumentException("limit должен быть от 1 до " + Protocol.MAX_PAGE);
+            }
+            limit = (int) parsed;
+        }
+
+        List<City> page = ctx.cm.pageAfter(afterId, limit);
+        if (page.isEmpty()) {
+            ctx.out.println("Элементов с id больше " + afterId + " нет.");
             return true;
         }
-        for (City c : ctx.cm.getAll()) {
-            System.out.println(c);
+        for (City c : page) {
+            ctx.out.println(c);
+        }
+        long lastId = page.get(page.size() - 1).getId();
+        if (page.size() == limit && ctx.cm.hasAfter(lastId)) {
+            ctx.out.println("Следующая страница: show " + lastId + " " + limit);
         }
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+/**
+ * stats [reset]: вывести статистику задержек команд
+ */
+public class StatsCommand implements Command {
+
+    @Override
+    public String name() { return "stats"; }
+
+    @Override
+    public String description() {
+        return "stats [reset]: вывести количество вызовов, ошибок, частоту и процентили задержек каждой команды"
+                + " с момента запуска или последнего сброса; reset — начать сбор заново";
+    }
+
+    @Override
+    public boolean readOnly() { return true; }
+
+    @Override
+    public boolean requiresLoadedCollection() { return false; }
+
+    @Override
+    public boolean execute(String[] args, InputManager input, CommandContext ctx) {
+        if (args.length > 0) {
+            if (!args[0].equals("reset")) {
+                throw new IllegalArgumentException("Использование: stats [reset]");
+            }
+            ctx.manager.stats().reset();
+            ctx.out.println("Статистика сброшена.");
+            return true;
+        }
+        ctx.out.println(ctx.manager.stats().report());
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Сетевой режим: текстовый протокол поверх TCP, по потоку на соединение.
+ * <p>
+ * Альтернатива {@link NioServer}: каждое соединение обслуживается в своём потоке
+ * (виртуальном, если JVM их поддерживает, см. {@link Threads#newPerTaskExecutor(String)}),
+ * а команды разных клиентов выполняются параллельно. Согласованность коллекции
+ * обеспечивает блокировка чтения-записи в {@link CommandManager}: читающие команды
+ * не ждут друг друга.
+ * </p>
+ *
+ * <p>Протокол тот же, что у {@link NioServer}: строка запроса на входе, вывод команды
+ * и приглашение {@code "> "} на выходе. Как и там, сервер слушает только указанный адрес,
+ * а сеансы клиентов не открывают файлы сервера
+ * (см. {@link CommandManager#newRemoteSession(PrintStream)}).</p>
+ */
+public class ThreadedServer {
+    private final CommandManager manager;
+    private final InetAddress bind;
+    private final int port;
+
+    /**
+     * Создаёт сервер.
+     *
+     * @param manager менеджер команд с общей коллекцией
+     * @param bind адрес, на котором принимаются соединения
+     * @param port TCP-порт
+     */
+    public ThreadedServer(CommandManager manager, InetAddress bind, int port) {
+        this.manager = manager;
+        this.bind = bind;
+        this.port = port;
+    }
+
+    /**
+     * Принимает соединения. Метод не возвращает управление,
+     * пока не произойдёт ошибка ввода-вывода.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    public void run() throws IOException {
+        ExecutorService executor = Threads.newPerTaskExecutor("client");
+        try (ServerSocket server = new ServerSocket(port, 0, bind)) {
+            System.out.println("Сервер запущен на " + bind.getHostAddress() + ":" + port + ".");
+            while (true) {
+                Socket socket = server.accept();
+                executor.execute(() -> serve(socket));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Обслуживает одно соединение до его закрытия или команды exit.
+     *
+     * @param socket сокет клиента
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(
+                     new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8)) {
+            CommandContext session = manager.newRemoteSession(out);
+            out.print("Введите команду. help - список команд.\n> ");
+            out.flush();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !manager.handleRequest(line, session)) {
+                    out.flush();
+                    return;
+                }
+                out.print("> ");
+                out.flush();
+            }
+        } catch (IOException e) {
+            // клиент отключился
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Создание исполнителей задач для сетевых сеансов и нагрузочных клиентов.
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    /**
+     * Создаёт исполнитель, запускающий каждую задачу в собственном потоке.
+     * <p>
+     * Если JVM поддерживает виртуальные потоки (Java 21+), используется
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}. Проект компилируется
+     * под Java 17, поэтому метод вызывается через рефлексию; на старых JVM
+     * используется кэширующий пул обычных потоков-демонов.
+     * </p>
+     *
+     * @param name префикс имён потоков (для обычных потоков)
+     * @return исполнитель задач
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Ограничитель частоты по алгоритму «ведро токенов».
+ * <p>
+ * Ведро вмещает не больше {@code capacity} токенов и пополняется со скоростью
+ * {@code rate} токенов в секунду. Каждая команда забирает один токен; если токенов
+ * нет, команда отклоняется. Так клиент может выполнить короткую серию команд,
+ * но в среднем не чаще заданной частоты.
+ * </p>
+ */
+public class TokenBucket {
+    private final double rate;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Создаёт полное ведро.
+     *
+     * @param rate скорость пополнения, токенов в секунду
+     * @param capacity ёмкость ведра
+     */
+    public TokenBucket(double rate, double capacity) {
+        this.rate = rate;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Забирает один токен, если он есть.
+     *
+     * @return {@code true}, если токен получен
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * rate / 1e9);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Клиент {@link UdpServer}.
+ * <p>
+ * Запрос отправляется фрагментами и ожидается ответ с тем же номером сообщения.
+ * Если за {@link #retransmitMs} мс не пришло ни одного нового фрагмента, клиент
+ * повторяет запрос (когда ответа ещё нет) или отправляет NACK с номерами
+ * недостающих фрагментов. После {@link #maxRetries} попыток подряд без
+ * продвижения запрос завершается ошибкой.
+ * </p>
+ *
+ * <p>Запросы выполняются по одному; методы синхронизированы.</p>
+ */
+public class UdpClient implements AutoCloseable {
+    private static final int SOCKET_BUFFER = 4 << 20;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final LossSimulator loss;
+    private final ByteBuffer in = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+    private final ByteBuffer out = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+    private long nextMessageId = ThreadLocalRandom.current().nextLong();
+    private long retransmitMs = 200;
+    private int maxRetries = 10;
+
+    /**
+     * Создаёт клиент.
+     *
+     * @param host адрес сервера
+     * @param port порт сервера
+     * @param loss имитатор потери исходящих датаграмм
+     * @throws IOException если не удалось открыть сокет
+     */
+    public UdpClient(String host, int port, LossSimulator loss) throws IOException {
+        this.loss = loss;
+        this.channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER);
+        channel.connect(new InetSocketAddress(host, port));
+        channel.configureBlocking(false);
+        this.selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    public UdpClient(String host, int port) throws IOException {
+        this(host, port, LossSimulator.NONE);
+    }
+
+    /**
+     * Задаёт параметры повторной передачи.
+     *
+     * @param retransmitMs время ожидания нового фрагмента, мс
+     * @param maxRetries количество повторов подряд без продвижения
+     */
+    public synchronized void setRetransmission(long retransmitMs, int maxRetries) {
+        this.retransmitMs = retransmitMs;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Выполняет запрос.
+     *
+     * @param request запрос
+     * @return ответ сервера
+     * @throws SocketTimeoutException если сервер не ответил
+     * @throws IOException если произошла ошибка ввода-вывода или ответ повреждён
+     */
+    public synchronized ProtocolResponse execute(ProtocolRequest request) throws IOException {
+        long messageId = nextMessageId++;
+        byte[] message = ProtocolEncoder.encodeRequest(request);
+        sendRequest(messageId, message);
+
+        UdpReassembly response = null;
+        int retries = 0;
+        long deadline = System.currentTimeMillis() + retransmitMs;
+        while (true) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait > 0) {
+                selector.select(wait);
+                selector.selectedKeys().clear();
+            }
+
+            boolean progress = false;
+            while (receive()) {
+                UdpProtocol.Header header;
+                try {
+                    header = UdpProtocol.parse(in);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (header.type != UdpProtocol.DATA || header.messageId != messageId) {
+                    continue; // ответ на старый запрос
+                }
+                long now = System.currentTimeMillis();
+                if (response == null) {
+                    response = new UdpReassembly(header.count, now);
+                }
+                if (header.count == response.count() && response.add(header.index, in, now)) {
+                    progress = true;
+                }
+            }
+
+            if (response != null && response.isComplete()) {
+                UdpProtocol.ack(out, messageId);
+                sendDatagram();
+                try (DataInputStream body = response.message()) {
+                    return ProtocolDecoder.decodeResponse(body);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if (progress) {
+                retries = 0;
+                deadline = now + retransmitMs;
+            } else if (now >= deadline) {
+                if (++retries > maxRetries) {
+                    throw new SocketTimeoutException("Сервер не ответил на запрос.");
+                }
+                if (response == null) {
+                    sendRequest(messageId, message);
+                } else {
+                    sendNack(messageId, response);
+                }
+                deadline = now + retransmitMs;
+            }
+        }
+    }
+
+    private boolean receive() throws IOException {
+        in.clear();
+        try {
+            if (channel.receive(in) == null) {
+                return false;
+            }
+        } catch (PortUnreachableException e) {
+            // сервер ещё не запущен; запрос будет повторён
+            return false;
+        }
+        in.flip();
+        return true;
+    }
+
+    private void sendRequest(long messageId, byte[] message) throws IOException {
+        int count = UdpProtocol.chunkCount(message.length);
+        for (int i = 0; i < count; i++) {
+            UdpProtocol.data(out, messageId, message, i);
+            sendDatagram();
+        }
+    }
+
+    private void sendNack(long messageId, UdpReassembly response) throws IOException {
+        int[] missing = response.missing();
+        for (int from = 0; from < missing.length; from += UdpProtocol.MAX_NACK) {
+            int to = Math.min(missing.length, from + UdpProtocol.MAX_NACK);
+            UdpProtocol.nack(out, messageId, response.count(), missing, from, to);
+            sendDatagram();
+        }
+    }
+
+    private void sendDatagram() throws IOException {
+        if (loss.drop()) {
+            return;
+        }
+        try {
+            channel.write(out);
+        } catch (PortUnreachableException e) {
+            // датаграмма потеряна; запрос будет повторён
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        selector.close();
+        channel.close();
+    }
+}
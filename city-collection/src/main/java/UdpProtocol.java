@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Формат датаграмм для передачи сообщений двоичного протокола по UDP.
+ * <p>
+ * Сообщение (тело запроса или ответа, см. {@link ProtocolEncoder}) делится на
+ * фрагменты не длиннее {@link #CHUNK_SIZE} байт. Каждая датаграмма начинается
+ * с заголовка:
+ * </p>
+ * <pre>
+ * int  MAGIC
+ * byte тип ({@link #DATA}, {@link #NACK} или {@link #ACK})
+ * long номер сообщения (выбирается клиентом; ответ имеет тот же номер, что и запрос)
+ * int  номер фрагмента (для NACK — количество номеров в теле)
+ * int  количество фрагментов сообщения
+ * </pre>
+ * <p>
+ * За заголовком DATA следуют байты фрагмента, за заголовком NACK — номера
+ * недостающих фрагментов ({@code int}). ACK сообщает серверу, что ответ получен целиком.
+ * </p>
+ */
+public final class UdpProtocol {
+    public static final byte DATA = 0;
+    public static final byte NACK = 1;
+    public static final byte ACK = 2;
+
+    /**
+     * Длина заголовка датаграммы в байтах.
+     */
+    public static final int HEADER = 4 + 1 + 8 + 4 + 4;
+
+    /**
+     * Максимальная длина фрагмента. Вместе с заголовками IP и UDP датаграмма
+     * помещается в кадр Ethernet без фрагментации.
+     */
+    public static final int CHUNK_SIZE = 1400;
+
+    /**
+     * Максимальная длина датаграммы.
+     */
+    public static final int MAX_DATAGRAM = HEADER + CHUNK_SIZE;
+
+    /**
+     * Максимальное количество номеров фрагментов в одном NACK.
+     */
+    public static final int MAX_NACK = CHUNK_SIZE / 4;
+
+    private UdpProtocol() {
+    }
+
+    /**
+     * Возвращает количество фрагментов сообщения.
+     *
+     * @param length длина сообщения
+     * @return количество фрагментов (не меньше 1)
+     */
+    public static int chunkCount(int length) {
+        return Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    /**
+     * Записывает в буфер датаграмму с фрагментом сообщения.
+     *
+     * @param dst буфер длиной не меньше {@link #MAX_DATAGRAM}; очищается перед записью
+     * @param messageId номер сообщения
+     * @param message сообщение целиком
+     * @param index номер фрагмента
+     */
+    public static void data(ByteBuffer dst, long messageId, byte[] message, int index) {
+        int count = chunkCount(message.length);
+        int from = index * CHUNK_SIZE;
+        int length = Math.min(CHUNK_SIZE, message.length - from);
+        header(dst, DATA, messageId, index, count);
+        dst.put(message, from, length);
+        dst.flip();
+    }
+
+    /**
+     * Записывает в буфер датаграмму NACK.
+     *
+     * @param dst буфер длиной не меньше {@link #MAX_DATAGRAM}; очищается перед записью
+     * @param messageId номер сообщения
+     * @param count количество фрагментов сообщения
+     * @param missing номера недостающих фрагментов
+     * @param from первый номер в массиве, попадающий в датаграмму
+     * @param to конец диапазона номеров (не включительно)
+     */
+    public static void nack(ByteBuffer dst, long messageId, int count, int[] missing, int from, int to) {
+        header(dst, NACK, messageId, to - from, count);
+        for (int i = from; i < to; i++) {
+            dst.putInt(missing[i]);
+        }
+        dst.flip();
+    }
+
+    /**
+     * Записывает в буфер датаграмму ACK.
+     *
+     * @param dst буфер; очищается перед записью
+     * @param messageId номер сообщения
+     */
+    public static void ack(ByteBuffer dst, long messageId) {
+        header(dst, ACK, messageId, 0, 0);
+        dst.flip();
+    }
+
+    private static void header(ByteBuffer dst, byte type, long messageId, int index, int count) {
+        dst.clear();
+        dst.putInt(Protocol.MAGIC);
+        dst.put(type);
+        dst.putLong(messageId);
+        dst.putInt(index);
+        dst.putInt(count);
+    }
+
+    /**
+     * Разбирает заголовок полученной датаграммы. После вызова позиция буфера
+     * указывает на начало тела.
+     *
+     * @param src прочитанная датаграмма (подготовленная к чтению)
+     * @return заголовок
+     * @throws IOException если датаграмма повреждена
+     */
+    public static Header parse(ByteBuffer src) throws IOException {
+        if (src.remaining() < HEADER || src.getInt() != Protocol.MAGIC) {
+            throw new IOException("Неверная датаграмма.");
+        }
+        Header header = new Header(src.get(), src.getLong(), src.getInt(), src.getInt());
+        boolean valid = switch (header.type) {
+            case DATA -> header.count > 0 && header.index >= 0 && header.index < header.count
+                    && src.remaining() <= CHUNK_SIZE;
+            case NACK -> header.index >= 0 && header.index <= MAX_NACK && src.remaining() == header.index * 4;
+            case ACK -> true;
+            default -> false;
+        };
+        if (!valid) {
+            throw new IOException("Неверная датаграмма.");
+        }
+        return header;
+    }
+
+    /**
+     * Заголовок датаграммы.
+     */
+    public static final class Header {
+        public final byte type;
+        public final long messageId;
+        public final int index;
+        public final int count;
+
+        Header(byte type, long messageId, int index, int count) {
+            this.type = type;
+            this.messageId = messageId;
+            this.index = index;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Сборка сообщения из фрагментов, пришедших по UDP в произвольном порядке
+ * и, возможно, с повторами.
+ */
+public class UdpReassembly {
+    private final byte[][] chunks;
+    private int received;
+    private int length;
+    private long lastActivity;
+
+    /**
+     * Создаёт буфер сборки.
+     *
+     * @param count количество фрагментов сообщения
+     * @param now текущее время, мс
+     */
+    public UdpReassembly(int count, long now) {
+        this.chunks = new byte[count][];
+        this.lastActivity = now;
+    }
+
+    /**
+     * Добавляет фрагмент. Повторно полученный фрагмент игнорируется.
+     *
+     * @param index номер фрагмента
+     * @param body тело датаграммы
+     * @param now текущее время, мс
+     * @return {@code true}, если фрагмент новый
+     */
+    public boolean add(int index, ByteBuffer body, long now) {
+        if (index >= chunks.length || chunks[index] != null) {
+            return false;
+        }
+        byte[] chunk = new byte[body.remaining()];
+        body.get(chunk);
+        chunks[index] = chunk;
+        received++;
+        length += chunk.length;
+        lastActivity = now;
+        return true;
+    }
+
+    public int count() {
+        return chunks.length;
+    }
+
+    public boolean isComplete() {
+        return received == chunks.length;
+    }
+
+    /**
+     * Возвращает время получения последнего нового фрагмента.
+     *
+     * @return время, мс
+     */
+    public long lastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Возвращает номера ещё не полученных фрагментов.
+     *
+     * @return номера по возрастанию
+     */
+    public int[] missing() {
+        int[] missing = new int[chunks.length - received];
+        int n = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == null) {
+                missing[n++] = i;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Склеивает полученное сообщение.
+     *
+     * @return поток с телом сообщения
+     * @throws IllegalStateException если получены не все фрагменты
+     */
+    public DataInputStream message() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Сообщение получено не полностью.");
+        }
+        byte[] message = new byte[length];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            System.arraycopy(chunk, 0, message, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return new DataInputStream(new ByteArrayInputStream(message));
+    }
+}
@@ -0,0 +1,258 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Сетевой режим с двоичным протоколом поверх UDP.
+ * <p>
+ * Соединений нет: запрос и ответ передаются фрагментами по {@link UdpProtocol}.
+ * Сервер собирает запрос из фрагментов, выполняет его через {@link BinaryRequestHandler}
+ * сеанса отправителя и отправляет ответ всеми фрагментами сразу. Ответ хранится
+ * {@link #RESPONSE_TTL_MS} мс (или до ACK клиента), чтобы по NACK повторить только
+ * потерянные фрагменты, а повторный запрос с тем же номером не выполнялся второй раз.
+ * </p>
+ *
+ * <p>Все запросы выполняются по очереди в потоке приёма датаграмм. Сервер слушает
+ * только указанный адрес; запросы выполняются в сеансе сетевого клиента
+ * (см. {@link BinaryRequestHandler}).</p>
+ */
+public class UdpServer {
+    /**
+     * Время хранения отправленного ответа для повторной передачи, мс.
+     */
+    private static final long RESPONSE_TTL_MS = 10_000;
+
+    /**
+     * Время, после которого недособранный запрос отбрасывается, мс.
+     */
+    private static final long REASSEMBLY_TIMEOUT_MS = 5_000;
+
+    /**
+     * Максимальное количество фрагментов в запросе.
+     */
+    private static final int MAX_REQUEST_CHUNKS = 64;
+
+    private static final int MAX_INCOMING = 1024;
+    private static final int MAX_OUTGOING = 1024;
+    private static final int MAX_SESSIONS = 1024;
+
+    private static final int SOCKET_BUFFER = 4 << 20;
+
+    private final CommandManager manager;
+    private final InetAddress bind;
+    private final int port;
+    private final LossSimulator loss;
+
+    private final ByteBuffer in = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+    private final ByteBuffer out = ByteBuffer.allocate(UdpProtocol.MAX_DATAGRAM);
+    private final Map<MessageKey, UdpReassembly> incoming = new LinkedHashMap<>();
+    private final Map<MessageKey, Outgoing> outgoing = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MessageKey, Outgoing> eldest) {
+            return size() > MAX_OUTGOING;
+        }
+    };
+    private final Map<SocketAddress, BinaryRequestHandler> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SocketAddress, BinaryRequestHandler> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    private DatagramChannel channel;
+
+    /**
+     * Создаёт сервер.
+     *
+     * @param manager менеджер команд с общей коллекцией
+     * @param bind адрес, на котором принимаются датаграммы
+     * @param port UDP-порт
+     * @param loss имитатор потери исходящих датаграмм
+     */
+    public UdpServer(CommandManager manager, InetAddress bind, int port, LossSimulator loss) {
+        this.manager = manager;
+        this.bind = bind;
+        this.port = port;
+        this.loss = loss;
+    }
+
+    /**
+     * Номер сообщения в пределах адреса отправителя.
+     */
+    private static final class MessageKey {
+        final SocketAddress remote;
+        final long id;
+
+        MessageKey(SocketAddress remote, long id) {
+            this.remote = remote;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MessageKey k && k.id == id && k.remote.equals(remote);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(remote, id);
+        }
+    }
+
+    /**
+     * Отправленный ответ.
+     */
+    private static final class Outgoing {
+        final byte[] message;
+        final long expiresAt;
+
+        Outgoing(byte[] message, long expiresAt) {
+            this.message = message;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Запускает цикл приёма датаграмм. Метод не возвращает управление,
+     * пока не произойдёт ошибка ввода-вывода.
+     *
+     * @throws IOException если не удалось открыть порт
+     */
+    public void run() throws IOException {
+        try (Selector selector = Selector.open();
+             DatagramChannel ch = DatagramChannel.open()) {
+            channel = ch;
+            ch.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER);
+            ch.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_BUFFER);
+            ch.bind(new InetSocketAddress(bind, port));
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ);
+            System.out.println("Сервер (UDP) запущен на " + bind.getHostAddress() + ":" + port + ".");
+
+            while (true) {
+                selector.select(1000);
+                selector.selectedKeys().clear();
+                SocketAddress remote;
+                while ((remote = receive()) != null) {
+                    try {
+                        handle(remote, UdpProtocol.parse(in));
+                    } catch (IOException | RuntimeException e) {
+                        // повреждённая или чужая датаграмма
+                    }
+                }
+                expire(System.currentTimeMillis());
+            }
+        }
+    }
+
+    private SocketAddress receive() throws IOException {
+        in.clear();
+        SocketAddress remote = channel.receive(in);
+        in.flip();
+        return remote;
+    }
+
+    private void handle(SocketAddress remote, UdpProtocol.Header header) throws IOException {
+        MessageKey key = new MessageKey(remote, header.messageId);
+        switch (header.type) {
+            case UdpProtocol.DATA -> {
+                Outgoing sent = outgoing.get(key);
+                if (sent != null) {
+                    // клиент не получил ни одного фрагмента ответа и повторил запрос
+                    if (header.index == 0) {
+                        sendAll(remote, key.id, sent.message);
+                    }
+                    return;
+                }
+                receiveChunk(remote, key, header);
+            }
+            case UdpProtocol.NACK -> {
+                Outgoing sent = outgoing.get(key);
+                if (sent == null) {
+                    return;
+                }
+                for (int i = 0; i < header.index; i++) {
+                    int index = in.getInt();
+                    if (index >= 0 && index < UdpProtocol.chunkCount(sent.message.length)) {
+                        send(remote, key.id, sent.message, index);
+                    }
+                }
+            }
+            case UdpProtocol.ACK -> outgoing.remove(key);
+            default -> {
+            }
+        }
+    }
+
+    private void receiveChunk(SocketAddress remote, MessageKey key, UdpProtocol.Header header) throws IOException {
+        long now = System.currentTimeMillis();
+        UdpReassembly request = incoming.get(key);
+        if (request == null) {
+            if (header.count > MAX_REQUEST_CHUNKS || incoming.size() >= MAX_INCOMING) {
+                return;
+            }
+            request = new UdpReassembly(header.count, now);
+            incoming.put(key, request);
+        } else if (request.count() != header.count) {
+            return;
+        }
+        request.add(header.index, in, now);
+        if (!request.isComplete()) {
+            return;
+        }
+        incoming.remove(key);
+
+        byte[] message;
+        boolean exit = false;
+        try (DataInputStream body = request.message()) {
+            ProtocolRequest decoded = ProtocolDecoder.decodeRequest(body);
+            BinaryRequestHandler handler = sessions.computeIfAbsent(remote, r -> new BinaryRequestHandler(manager));
+            message = handler.handleEncoded(decoded);
+            exit = decoded.op == Opcode.EXIT;
+        } catch (IOException | RuntimeException e) {
+            message = ProtocolEncoder.encodeResponse(
+                    ProtocolResponse.error("Повреждённый запрос: " + e.getMessage()));
+        }
+        if (exit) {
+            sessions.remove(remote);
+        }
+
+        outgoing.put(key, new Outgoing(message, now + RESPONSE_TTL_MS));
+        sendAll(remote, key.id, message);
+    }
+
+    private void sendAll(SocketAddress remote, long messageId, byte[] message) throws IOException {
+        int count = UdpProtocol.chunkCount(message.length);
+        for (int i = 0; i < count; i++) {
+            send(remote, messageId, message, i);
+        }
+    }
+
+    private void send(SocketAddress remote, long messageId, byte[] message, int index) throws IOException {
+        if (loss.drop()) {
+            return;
+        }
+        UdpProtocol.data(out, messageId, message, index);
+        // если буфер сокета переполнен, датаграмма теряется и будет запрошена повторно
+        channel.send(out, remote);
+    }
+
+    private void expire(long now) {
+        Iterator<Outgoing> sent = outgoing.values().iterator();
+        while (sent.hasNext() && sent.next().expiresAt <= now) {
+            sent.remove();
+        }
+        incoming.values().removeIf(r -> now - r.lastActivity() > REASSEMBLY_TIMEOUT_MS);
+    }
+}
@@ -28,6 +28,17 @@ public class UpdateCommand implements Command {
         return "обновить элемент коллекции по id";
     }
 
+    /**
+     * Команда не ждёт полной загрузки коллекции: если элемент уже загружен,
+     * обновление выполняется сразу.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean requiresLoadedCollection() {
+        return false;
+    }
+
     /**
      * Выполняет команду обновления элемента коллекции.
      *
@@ -39,7 +50,7 @@ public class UpdateCommand implements Command {
     @Override
     public boolean execute(String[] args, InputManager input, CommandContext ctx) {
         if (args.length != 1) {
-            System.out.println("Использование: update id");
+            ctx.out.println("Использование: update id");
             return true;
         }
 
@@ -47,12 +58,16 @@ public class UpdateCommand implements Command {
         try {
             id = Long.parseLong(args[0]);
         } catch (NumberFormatException e) {
-            System.out.println("id должен быть числом.");
+            ctx.out.println("id должен быть числом.");
             return true;
         }
 
+        if (!ctx.cm.containsId(id) && !ctx.cm.isLoaded()) {
+            ctx.cm.awaitLoaded();
+        }
+
         if (!ctx.cm.containsId(id)) {
-            System.out.println("Элемента с id " + id + " не существует.");
+            ctx.out.println("Элемента с id " + id + " не существует.");
             return true;
         }
 
@@ -61,12 +76,12 @@ public class UpdateCommand implements Command {
             boolean updated = ctx.cm.update(id, updatedCity);
 
             if (updated) {
-                System.out.println("Элемент успешно обновлён.");
+                ctx.out.println("Элемент успешно обновлён.");
             } else {
-                System.out.println("Не удалось обновить элемент.");
+                ctx.out.println("Не удалось обновить элемент.");
             }
         } catch (Exception e) {
-            System.out.println("Ошибка ввода данных: " + e.getMessage());
+            ctx.out.println("Ошибка ввода данных: " + e.getMessage());
         }
 
         return true;
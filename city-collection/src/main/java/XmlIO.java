@@ -1,9 +1,19 @@
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Выполняет загрузку коллекции из XML-файла и сохранение коллекции в XML-файл.
@@ -13,8 +23,14 @@ import java.util.regex.Pattern;
  * </p>
  *
  * <p>
- * При загрузке XML-файл читается целиком, затем из него извлекаются блоки {@code <city>...</city>},
- * после чего каждый блок преобразуется в объект {@link City}.
+ * При загрузке XML-файл читается целиком, затем в нём находятся блоки {@code <city>...</city>},
+ * после чего каждый блок разбирается {@link XmlReader} в объект {@link City}.
+ * </p>
+ *
+ * <p>
+ * При сохранении фрагменты городов записываются {@link XmlWriter} сразу в байты UTF-8
+ * и кэшируются, поэтому повторное сохранение почти не изменившейся коллекции
+ * сводится к записи готовых байтов.
  * </p>
  */
 public class XmlIO {
@@ -23,6 +39,54 @@ public class XmlIO {
      */
     private final String filePath;
 
+    private static final byte[] HEADER = "<cities>\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FOOTER = "</cities>\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Кэш сериализованных фрагментов городов по идентификатору.
+     */
+    private final Map<Long, CachedFragment> fragments = new HashMap<>();
+
+    /**
+     * Буфер для сериализации фрагментов.
+     */
+    private final XmlWriter writer = new XmlWriter(1024);
+
+    private static final Climate[] CLIMATES = Climate.values();
+    private static final Government[] GOVERNMENTS = Government.values();
+    private static final StandardOfLiving[] STANDARDS_OF_LIVING = StandardOfLiving.values();
+
+    /**
+     * Номер последнего сохранения; используется для удаления устаревших фрагментов.
+     */
+    private long saveGeneration;
+
+    private volatile long lastLoadNanos;
+    private volatile long lastLoadBytes;
+    private volatile int lastLoadCities;
+    private volatile long lastSaveNanos;
+    private volatile long lastSaveBytes;
+    private volatile int lastSaveCities;
+
+    /**
+     * Сериализованный XML-фрагмент города.
+     * <p>
+     * Фрагмент действителен, пока в коллекции лежит тот же объект {@link City}:
+     * команда update заменяет объект целиком, поэтому обновлённый город
+     * сериализуется заново.
+     * </p>
+     */
+    private static final class CachedFragment {
+        final City city;
+        final byte[] bytes;
+        long generation;
+
+        CachedFragment(City city, byte[] bytes) {
+            this.city = city;
+            this.bytes = bytes;
+        }
+    }
+
     /**
      * Создаёт объект для работы с указанным XML-файлом.
      *
@@ -44,6 +108,112 @@ public class XmlIO {
      * @throws Exception если произошла ошибка чтения файла или разбора XML
      */
     public void loadInto(CollectionManager cm) throws Exception {
+        XmlLoadEvent event = new XmlLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String xml = readXml();
+        int[] offsets = indexCities(xml);
+
+        cm.clear();
+        cm.markSaved(cm.version());
+
+        long parseStart = System.nanoTime();
+        for (int i = 0; i < offsets.length; i += 2) {
+            cm.addLoaded(parseCity(xml, offsets[i], offsets[i + 1]));
+        }
+
+        cm.syncNextIdFromLoadedData();
+        loaded(event, start, offsets.length / 2, System.nanoTime() - parseStart, false);
+    }
+
+    /**
+     * Запоминает показатели завершённой загрузки и записывает событие JFR,
+     * если запись событий включена.
+     *
+     * @param event событие, начатое перед чтением файла
+     * @param start время начала загрузки, нс
+     * @param cities количество загруженных городов
+     * @param parseNanos время разбора городов, нс
+     * @param background {@code true}, если загрузка фоновая
+     */
+    private void loaded(XmlLoadEvent event, long start, int cities, long parseNanos, boolean background) {
+        long fileSize = new File(filePath).length();
+        lastLoadNanos = System.nanoTime() - start;
+        lastLoadBytes = fileSize;
+        lastLoadCities = cities;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = filePath;
+            event.fileSize = fileSize;
+            event.cities = cities;
+            event.parseTime = parseNanos;
+            event.background = background;
+            event.commit();
+        }
+    }
+
+    /**
+     * Запускает асинхронную загрузку данных из XML-файла в коллекцию.
+     * <p>
+     * В вызывающем потоке файл только читается и индексируется: находятся смещения
+     * всех блоков {@code <city>...</city>}. Разбор блоков и добавление городов
+     * выполняются в фоновом потоке, который периодически сообщает о прогрессе.
+     * Пока загрузка не завершена, коллекция находится в состоянии загрузки
+     * (см. {@link CollectionManager#isLoaded()}).
+     * </p>
+     *
+     * @param cm менеджер коллекции, в который будут загружены данные
+     * @return future, завершающееся количеством загруженных элементов
+     * @throws Exception если файл недоступен, пуст или не содержит элементов {@code <city>}
+     */
+    public CompletableFuture<Integer> loadAsync(CollectionManager cm) throws Exception {
+        XmlLoadEvent event = new XmlLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String xml = readXml();
+        int[] offsets = indexCities(xml);
+        int total = offsets.length / 2;
+
+        cm.clear();
+        cm.markSaved(cm.version());
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        cm.startLoading(future, total);
+
+        Thread loader = new Thread(() -> {
+            try {
+                long parseStart = System.nanoTime();
+                int step = Math.max(1, total / 10);
+                for (int i = 0; i < total; i++) {
+                    cm.addLoaded(parseCity(xml, offsets[2 * i], offsets[2 * i + 1]));
+                    cm.setLoadedCount(i + 1);
+                    if ((i + 1) % step == 0 && i + 1 < total) {
+                        System.out.println("Загрузка коллекции: " + (i + 1) + " из " + total);
+                    }
+                }
+                cm.syncNextIdFromLoadedData();
+                loaded(event, start, total, System.nanoTime() - parseStart, true);
+                System.out.println("Загрузка коллекции завершена: " + total + " элементов.");
+                future.complete(total);
+            } catch (Exception e) {
+                System.err.println("Ошибка фоновой загрузки XML: " + e.getMessage());
+                future.completeExceptionally(e);
+            }
+        }, "xml-loader");
+        loader.setDaemon(true);
+        loader.start();
+
+        return future;
+    }
+
+    /**
+     * Проверяет доступность файла и читает его содержимое.
+     *
+     * @return содержимое файла без ведущих и завершающих пробелов
+     * @throws Exception если файл недоступен или пуст
+     */
+    private String readXml() throws Exception {
         File f = new File(filePath);
 
         if (!f.exists()) {
@@ -64,226 +234,414 @@ public class XmlIO {
             throw new IllegalArgumentException("XML-файл пустой.");
         }
 
-        cm.clear();
-
-        Pattern cityPattern = Pattern.compile("<city>(.*?)</city>", Pattern.DOTALL);
-        Matcher matcher = cityPattern.matcher(xml);
+        return xml;
+    }
 
-        int loaded = 0;
-        while (matcher.find()) {
-            String block = matcher.group(1).trim();
-            City city = parseCity(block);
-            cm.add(city);
-            loaded++;
+    /**
+     * Строит индекс смещений блоков {@code <city>...</city>}.
+     * <p>
+     * Для каждого блока в массив записываются два числа: начало содержимого
+     * (сразу после {@code <city>}) и его конец (позиция {@code </city>}).
+     * </p>
+     *
+     * @param xml содержимое XML-файла
+     * @return массив пар смещений
+     */
+    private static int[] indexCities(String xml) {
+        int[] offsets = new int[16];
+        int count = 0;
+        int pos = 0;
+
+        while (true) {
+            int start = xml.indexOf("<city>", pos);
+            if (start < 0) {
+                break;
+            }
+            int end = xml.indexOf("</city>", start);
+            if (end < 0) {
+                break;
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count++] = start + "<city>".length();
+            offsets[count++] = end;
+            pos = end + "</city>".length();
         }
 
-        cm.syncNextIdFromLoadedData();
-
-        if (loaded == 0) {
+        if (count == 0) {
             throw new IllegalArgumentException("В XML не найдено ни одного элемента <city>.");
         }
+
+        return Arrays.copyOf(offsets, count);
     }
 
     /**
      * Сохраняет коллекцию в XML-файл.
+     * <p>
+     * Записывается снимок коллекции; после записи версия снимка
+     * отмечается в менеджере коллекции как сохранённая.
+     * </p>
      *
      * @param cm менеджер коллекции, данные которого нужно сохранить
      * @throws Exception если произошла ошибка записи в файл
      */
     public void saveFrom(CollectionManager cm) throws Exception {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<cities>\n");
-
-        for (City city : cm.getAll()) {
-            sb.append("  <city>\n");
-            sb.append("    ").append(tag("id", String.valueOf(city.getId()))).append("\n");
-            sb.append("    ").append(tag("name", city.getName())).append("\n");
-
-            sb.append("    <coordinates>\n");
-            sb.append("      ").append(tag("x", String.valueOf(city.getCoordinates().getX()))).append("\n");
-            sb.append("      ").append(tag("y", String.valueOf(city.getCoordinates().getY()))).append("\n");
-            sb.append("    </coordinates>\n");
-
-            sb.append("    ").append(tag("creationDate", String.valueOf(city.getCreationDate()))).append("\n");
-            sb.append("    ").append(tag("area", String.valueOf(city.getArea()))).append("\n");
-            sb.append("    ").append(tag("population", String.valueOf(city.getPopulation()))).append("\n");
-            sb.append("    ").append(tag("metersAboveSeaLevel", String.valueOf(city.getMetersAboveSeaLevel()))).append("\n");
-            sb.append("    ").append(tag("climate", String.valueOf(city.getClimate()))).append("\n");
-            sb.append("    ").append(tag("government", String.valueOf(city.getGovernment()))).append("\n");
-            sb.append("    ").append(tag("standardOfLiving", String.valueOf(city.getStandardOfLiving()))).append("\n");
-
-            if (city.getGovernor() != null) {
-                sb.append("    <governor>\n");
-                sb.append("      ").append(tag("name", city.getGovernor().getName())).append("\n");
-                sb.append("      ").append(tag("height", String.valueOf(city.getGovernor().getHeight()))).append("\n");
-                sb.append("      ").append(tag("birthday", String.valueOf(city.getGovernor().getBirthday()))).append("\n");
-                sb.append("    </governor>\n");
-            }
+        long version = cm.version();
+        save(cm.snapshot());
+        cm.markSaved(version);
+    }
 
-            sb.append("  </city>\n");
+    /**
+     * Сохраняет переданные элементы в XML-файл.
+     * <p>
+     * XML-фрагмент каждого города берётся из кэша, если с прошлого сохранения
+     * в коллекции лежит тот же объект, иначе формируется заново.
+     * Метод синхронизирован, чтобы ручное и фоновое сохранение не писали файл одновременно.
+     * </p>
+     *
+     * <p>Данные записываются во временный файл {@code <имя>.tmp} рядом с основным, сбрасываются
+     * на диск и только затем атомарно заменяют основной файл. Если процесс завершится или запись
+     * прервётся посередине, в основном файле останется прежняя полная версия коллекции.</p>
+     *
+     * @param cities сохраняемые элементы
+     * @throws Exception если произошла ошибка записи в файл
+     */
+    public synchronized void save(List<City> cities) throws Exception {
+        XmlSaveEvent event = new XmlSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long generation = ++saveGeneration;
+        long bytes = HEADER.length + FOOTER.length;
+        int serialized = 0;
+
+        Path target = Path.of(filePath).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 OutputStream out = new BufferedOutputStream(file, 1 << 16)) {
+                out.write(HEADER);
+                for (City city : cities) {
+                    CachedFragment fragment = fragments.get(city.getId());
+                    if (fragment == null || fragment.city != city) {
+                        fragment = new CachedFragment(city, serialize(city));
+                        fragments.put(city.getId(), fragment);
+                        serialized++;
+                    }
+                    fragment.generation = generation;
+                    out.write(fragment.bytes);
+                    bytes += fragment.bytes.length;
+                }
+                out.write(FOOTER);
+                out.flush();
+                file.getFD().sync();
+            }
+            replace(temp, target);
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        lastSaveNanos = System.nanoTime() - start;
+        lastSaveBytes = bytes;
+        lastSaveCities = cities.size();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = filePath;
+            event.bytesWritten = bytes;
+            event.cities = cities.size();
+            event.serialized = serialized;
+            event.commit();
         }
 
-        sb.append("</cities>\n");
+        if (fragments.size() > cities.size()) {
+            fragments.values().removeIf(fragment -> fragment.generation != generation);
+        }
+    }
 
-        Files.writeString(new File(filePath).toPath(), sb.toString(), StandardCharsets.UTF_8);
+    /**
+     * Заменяет файл записанным временным файлом. Если файловая система не поддерживает
+     * атомарное перемещение, файл заменяется обычным перемещением.
+     */
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /**
-     * Преобразует XML-блок одного города в объект {@link City}.
+     * Формирует XML-фрагмент одного города.
+     * <p>
+     * Используется общий буфер {@link #writer}; вызывается только из синхронизированного
+     * метода {@link #save(List)}.
+     * </p>
      *
-     * @param block XML-фрагмент, содержащий данные одного города
-     * @return объект города, созданный на основе XML-данных
-     * @throws Exception если обязательные данные отсутствуют или не могут быть преобразованы
+     * @param city город
+     * @return фрагмент {@code <city>...</city>} в кодировке UTF-8
      */
-    private City parseCity(String block) throws Exception {
-        City city = new City();
-
-        city.setId(Long.parseLong(text(block, "id")));
-        city.setName(text(block, "name"));
-
-        String coordinatesBlock = inner(block, "coordinates");
-        Coordinates coordinates = new Coordinates();
-        coordinates.setX(Integer.parseInt(text(coordinatesBlock, "x")));
-
-        String yText = text(coordinatesBlock, "y");
-        coordinates.setY(yText == null || yText.isBlank() ? null : Integer.valueOf(yText));
-
-        city.setCoordinates(coordinates);
-
-        String creationDateText = text(block, "creationDate");
-        city.setCreationDate(
-                creationDateText == null || creationDateText.isBlank()
-                        ? LocalDateTime.now()
-                        : LocalDateTime.parse(creationDateText)
-        );
-
-        String areaText = text(block, "area");
-        city.setArea(areaText == null || areaText.isBlank() ? null : Double.valueOf(areaText));
-
-        String populationText = text(block, "population");
-        city.setPopulation(populationText == null || populationText.isBlank() ? null : Long.valueOf(populationText));
-
-        city.setMetersAboveSeaLevel(Long.parseLong(text(block, "metersAboveSeaLevel")));
-
-        String climateText = text(block, "climate");
-        city.setClimate(climateText == null || climateText.isBlank() ? null : Climate.valueOf(climateText));
-
-        String governmentText = text(block, "government");
-        city.setGovernment(governmentText == null || governmentText.isBlank() ? null : Government.valueOf(governmentText));
-
-        String standardOfLivingText = text(block, "standardOfLiving");
-        city.setStandardOfLiving(
-                standardOfLivingText == null || standardOfLivingText.isBlank()
-                        ? null
-                        : StandardOfLiving.valueOf(standardOfLivingText)
-        );
-
-        String governorBlock = inner(block, "governor");
-        if (governorBlock != null && !governorBlock.isBlank()) {
-            Human governor = new Human();
-            governor.setName(text(governorBlock, "name"));
-
-            String heightText = text(governorBlock, "height");
-            governor.setHeight(heightText == null || heightText.isBlank() ? null : Float.valueOf(heightText));
+    private byte[] serialize(City city) {
+        writeCity(writer, city);
+        return writer.toByteArray();
+    }
 
-            String birthdayText = text(governorBlock, "birthday");
-            governor.setBirthday(
-                    birthdayText == null || birthdayText.isBlank()
-                            ? null
-                            : LocalDateTime.parse(birthdayText)
-            );
+    /**
+     * Записывает фрагмент {@code <city>...</city>} в очищенный буфер.
+     *
+     * @param w буфер
+     * @param city город
+     */
+    private static void writeCity(XmlWriter w, City city) {
+        w.reset();
+        w.indent(2).open("city").newline();
+        w.element(4, "id", city.getId());
+        w.element(4, "name", city.getName());
+
+        w.indent(4).open("coordinates").newline();
+        w.element(6, "x", city.getCoordinates().getX());
+        w.indent(6).open("y");
+        if (city.getCoordinates().getY() != null) {
+            w.number(city.getCoordinates().getY());
+        }
+        w.close("y").newline();
+        w.indent(4).close("coordinates").newline();
 
-            city.setGovernor(governor);
+        w.indent(4).open("creationDate").dateTime(city.getCreationDate()).close("creationDate").newline();
+        w.indent(4).open("area");
+        if (city.getArea() != null) {
+            w.number(city.getArea().doubleValue());
+        }
+        w.close("area").newline();
+        w.indent(4).open("population");
+        if (city.getPopulation() != null) {
+            w.number(city.getPopulation().longValue());
+        }
+        w.close("population").newline();
+        w.element(4, "metersAboveSeaLevel", city.getMetersAboveSeaLevel());
+        w.element(4, "climate", city.getClimate() == null ? null : city.getClimate().name());
+        w.element(4, "government", city.getGovernment() == null ? null : city.getGovernment().name());
+        w.element(4, "standardOfLiving", city.getStandardOfLiving() == null ? null : city.getStandardOfLiving().name());
+
+        Human governor = city.getGovernor();
+        if (governor != null) {
+            w.indent(4).open("governor").newline();
+            w.element(6, "name", governor.getName());
+            w.indent(6).open("height");
+            if (governor.getHeight() != null) {
+                w.number(governor.getHeight().floatValue());
+            }
+            w.close("height").newline();
+            w.indent(6).open("birthday").dateTime(governor.getBirthday()).close("birthday").newline();
+            w.indent(4).close("governor").newline();
         }
 
-        return city;
+        w.indent(2).close("city").newline();
     }
 
     /**
-     * Формирует XML-тег с указанным именем и значением.
+     * Возвращает длительность последней завершённой загрузки.
      *
-     * @param name имя XML-тега
-     * @param value значение внутри тега
-     * @return строка вида {@code <name>value</name>}
+     * @return длительность, нс, или 0, если загрузок не было
      */
-    private static String tag(String name, String value) {
-        return "<" + name + ">" + escape(value) + "</" + name + ">";
+    public long lastLoadNanos() {
+        return lastLoadNanos;
     }
 
     /**
-     * Извлекает текстовое содержимое первого найденного XML-тега.
+     * Возвращает размер файла при последней завершённой загрузке.
      *
-     * @param src исходная строка, содержащая XML
-     * @param tag имя XML-тега
-     * @return текст внутри тега или {@code null}, если тег не найден
+     * @return размер, байт
      */
-    private static String text(String src, String tag) {
-        if (src == null) {
-            return null;
-        }
-
-        Pattern p = Pattern.compile("<" + tag + ">(.*?)</" + tag + ">", Pattern.DOTALL);
-        Matcher m = p.matcher(src);
-
-        if (!m.find()) {
-            return null;
-        }
+    public long lastLoadBytes() {
+        return lastLoadBytes;
+    }
 
-        return unescape(m.group(1).trim());
+    public int lastLoadCities() {
+        return lastLoadCities;
     }
 
     /**
-     * Извлекает внутреннее содержимое первого найденного XML-тега,
-     * включая вложенные теги.
+     * Возвращает длительность последнего сохранения.
      *
-     * @param src исходная строка, содержащая XML
-     * @param tag имя XML-тега
-     * @return содержимое внутри тега или {@code null}, если тег не найден
+     * @return длительность, нс, или 0, если сохранений не было
      */
-    private static String inner(String src, String tag) {
-        if (src == null) {
-            return null;
-        }
-
-        Pattern p = Pattern.compile("<" + tag + ">(.*?)</" + tag + ">", Pattern.DOTALL);
-        Matcher m = p.matcher(src);
+    public long lastSaveNanos() {
+        return lastSaveNanos;
+    }
 
-        if (!m.find()) {
-            return null;
-        }
+    /**
+     * Возвращает количество байтов, записанных при последнем сохранении.
+     *
+     * @return размер, байт
+     */
+    public long lastSaveBytes() {
+        return lastSaveBytes;
+    }
 
-        return m.group(1).trim();
+    public int lastSaveCities() {
+        return lastSaveCities;
     }
 
     /**
-     * Экранирует специальные символы для безопасной записи в XML.
+     * Открывает потоковую запись XML-документа: города записываются по одному
+     * и не накапливаются в памяти. Используется для больших наборов данных
+     * (см. {@link DatasetGenerator}).
      *
-     * @param s исходная строка
-     * @return строка с заменёнными XML-спецсимволами
+     * @param out поток, в который записывается документ; закрывается вместе с записью
+     * @return запись городов
+     * @throws IOException если произошла ошибка записи
+     */
+    public static CityWriter openWriter(OutputStream out) throws IOException {
+        return new StreamWriter(out);
+    }
+
+    /**
+     * Потоковая запись XML-документа.
      */
-    private static String escape(String s) {
-        if (s == null) {
-            return "";
+    private static final class StreamWriter implements CityWriter {
+        private final OutputStream out;
+        private final XmlWriter w = new XmlWriter(1024);
+
+        StreamWriter(OutputStream out) throws IOException {
+            this.out = new BufferedOutputStream(out, 1 << 16);
+            this.out.write(HEADER);
+        }
+
+        @Override
+        public void write(City city) throws IOException {
+            writeCity(w, city);
+            w.writeTo(out);
         }
 
-        return s.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;");
+        @Override
+        public void close() throws IOException {
+            try {
+                out.write(FOOTER);
+            } finally {
+                out.close();
+            }
+        }
     }
 
     /**
-     * Выполняет обратное преобразование XML-сущностей в обычные символы.
+     * Преобразует XML-блок одного города в объект {@link City}.
+     * <p>
+     * Блок разбирается за один проход; порядок вложенных элементов не важен,
+     * неизвестные элементы пропускаются.
+     * </p>
      *
-     * @param s строка с XML-сущностями
-     * @return строка после декодирования XML-сущностей
+     * @param xml XML-документ
+     * @param from начало содержимого блока {@code <city>}
+     * @param to конец содержимого блока
+     * @return объект города, созданный на основе XML-данных
+     * @throws Exception если обязательные данные отсутствуют или не могут быть преобразованы
      */
-    private static String unescape(String s) {
-        if (s == null) {
-            return null;
+    private static City parseCity(String xml, int from, int to) throws Exception {
+        XmlReader r = new XmlReader(xml, from, to);
+        City city = new City();
+        boolean hasId = false;
+        boolean hasX = false;
+        boolean hasMeters = false;
+
+        String tag;
+        while ((tag = r.nextTag()) != null) {
+            switch (tag) {
+                case "id" -> {
+                    r.readText(tag);
+                    city.setId(r.parseLong());
+                    hasId = true;
+                }
+                case "name" -> {
+                    r.readText(tag);
+                    city.setName(r.text());
+                }
+                case "coordinates" -> {
+                    Coordinates coordinates = new Coordinates();
+                    String inner;
+                    while ((inner = r.nextTag()) != null) {
+                        if (inner.equals("x")) {
+                            r.readText(inner);
+                            coordinates.setX(r.parseInt());
+                            hasX = true;
+                        } else if (inner.equals("y")) {
+                            r.readText(inner);
+                            coordinates.setY(r.isBlank() ? null : r.parseInt());
+                        } else {
+                            r.skipElement(inner);
+                        }
+                    }
+                    r.closeTag(tag);
+                    city.setCoordinates(coordinates);
+                }
+                case "creationDate" -> {
+                    r.readText(tag);
+                    city.setCreationDate(r.isBlank() ? LocalDateTime.now() : DateTimeCodec.parse(r.rawText()));
+                }
+                case "area" -> {
+                    r.readText(tag);
+                    city.setArea(r.isBlank() ? null : r.parseDouble());
+                }
+                case "population" -> {
+                    r.readText(tag);
+                    city.setPopulation(r.isBlank() ? null : r.parseLong());
+                }
+                case "metersAboveSeaLevel" -> {
+                    r.readText(tag);
+                    city.setMetersAboveSeaLevel(r.parseLong());
+                    hasMeters = true;
+                }
+                case "climate" -> {
+                    r.readText(tag);
+                    city.setClimate(r.isBlank() ? null : r.parseEnum(CLIMATES));
+                }
+                case "government" -> {
+                    r.readText(tag);
+                    city.setGovernment(r.isBlank() ? null : r.parseEnum(GOVERNMENTS));
+                }
+                case "standardOfLiving" -> {
+                    r.readText(tag);
+                    city.setStandardOfLiving(r.isBlank() ? null : r.parseEnum(STANDARDS_OF_LIVING));
+                }
+                case "governor" -> {
+                    Human governor = new Human();
+                    boolean empty = true;
+                    String inner;
+                    while ((inner = r.nextTag()) != null) {
+                        empty = false;
+                        switch (inner) {
+                            case "name" -> {
+                                r.readText(inner);
+                                governor.setName(r.text());
+                            }
+                            case "height" -> {
+                                r.readText(inner);
+                                governor.setHeight(r.isBlank() ? null : r.parseFloat());
+                            }
+                            case "birthday" -> {
+                                r.readText(inner);
+                                governor.setBirthday(r.isBlank() ? null : DateTimeCodec.parse(r.rawText()));
+                            }
+                            default -> r.skipElement(inner);
+                        }
+                    }
+                    r.closeTag(tag);
+                    if (!empty) {
+                        city.setGovernor(governor);
+                    }
+                }
+                default -> r.skipElement(tag);
+            }
         }
 
-        return s.replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&amp;", "&");
+        if (!hasId || city.getCoordinates() == null || !hasX || !hasMeters) {
+            throw new IllegalArgumentException("В элементе <city> нет обязательного поля id, coordinates.x "
+                    + "или metersAboveSeaLevel.");
+        }
+        if (city.getCreationDate() == null) {
+            city.setCreationDate(LocalDateTime.now());
+        }
+
+        return city;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR: загрузка коллекции из XML-файла. Длительность события — вся загрузка,
+ * включая чтение файла; отдельно указывается время разбора городов.
+ */
+@Name("citycollection.XmlLoad")
+@Label("XML Load")
+@Category({"City Collection", "Persistence"})
+@Description("Загрузка коллекции из XML-файла")
+public class XmlLoadEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String path;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Cities")
+    public int cities;
+
+    @Label("Parse Time")
+    @Timespan
+    public long parseTime;
+
+    @Label("Background")
+    @Description("Загрузка выполнялась в фоне (--async-load)")
+    public boolean background;
+}
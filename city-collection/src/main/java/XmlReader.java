@@ -0,0 +1,290 @@
+/**
+ * Последовательный разбор простого XML без атрибутов.
+ * <p>
+ * Читатель движется по строке с документом в заданных границах и выдаёт
+ * открывающие теги и текстовые значения элементов. Значения обрезаются по пробелам;
+ * XML-сущности декодируются во время чтения текста, без промежуточных строк.
+ * Числа и перечисления можно разбирать прямо из документа, не создавая подстрок.
+ * </p>
+ *
+ * <p>Объект не потокобезопасен.</p>
+ */
+public class XmlReader {
+    private final String src;
+    private int pos;
+    private final int end;
+
+    /**
+     * Начало и конец текста последнего прочитанного элемента.
+     */
+    private int textStart;
+    private int textEnd;
+
+    /**
+     * Буфер для декодирования текста с XML-сущностями.
+     */
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * Создаёт читатель фрагмента документа.
+     *
+     * @param src документ
+     * @param from начало фрагмента
+     * @param to конец фрагмента (не включительно)
+     */
+    public XmlReader(String src, int from, int to) {
+        this.src = src;
+        this.pos = from;
+        this.end = to;
+    }
+
+    /**
+     * Переходит к следующему открывающему тегу текущего уровня.
+     *
+     * @return имя тега или {@code null}, если встретился закрывающий тег или конец фрагмента
+     */
+    public String nextTag() {
+        skipWhitespace();
+        if (pos >= end || src.charAt(pos) != '<') {
+            if (pos < end) {
+                throw new IllegalArgumentException("Ожидался тег в позиции " + pos);
+            }
+            return null;
+        }
+        if (pos + 1 < end && src.charAt(pos + 1) == '/') {
+            return null;
+        }
+        int close = src.indexOf('>', pos);
+        if (close < 0 || close >= end) {
+            throw new IllegalArgumentException("Незакрытый тег в позиции " + pos);
+        }
+        String name = tagName(pos + 1, close);
+        pos = close + 1;
+        return name;
+    }
+
+    /**
+     * Пропускает закрывающий тег с указанным именем.
+     *
+     * @param name имя тега
+     */
+    public void closeTag(String name) {
+        skipWhitespace();
+        int len = name.length();
+        if (pos + len + 3 > end
+                || src.charAt(pos) != '<' || src.charAt(pos + 1) != '/'
+                || !src.regionMatches(pos + 2, name, 0, len)
+                || src.charAt(pos + 2 + len) != '>') {
+            throw new IllegalArgumentException("Ожидался тег </" + name + "> в позиции " + pos);
+        }
+        pos += len + 3;
+    }
+
+    /**
+     * Читает текст элемента до его закрывающего тега и пропускает этот тег.
+     * После вызова границы текста доступны методам {@code text*} и {@code parse*}.
+     *
+     * @param name имя элемента
+     */
+    public void readText(String name) {
+        int lt = src.indexOf('<', pos);
+        if (lt < 0 || lt >= end) {
+            throw new IllegalArgumentException("Не найден тег </" + name + ">");
+        }
+        textStart = pos;
+        textEnd = lt;
+        while (textStart < textEnd && Character.isWhitespace(src.charAt(textStart))) {
+            textStart++;
+        }
+        while (textEnd > textStart && Character.isWhitespace(src.charAt(textEnd - 1))) {
+            textEnd--;
+        }
+        pos = lt;
+        closeTag(name);
+    }
+
+    /**
+     * Пропускает элемент, открывающий тег которого уже прочитан, вместе с вложенными элементами.
+     *
+     * @param name имя элемента
+     */
+    public void skipElement(String name) {
+        int depth = 1;
+        while (depth > 0) {
+            int lt = src.indexOf('<', pos);
+            if (lt < 0 || lt >= end) {
+                throw new IllegalArgumentException("Не найден тег </" + name + ">");
+            }
+            int gt = src.indexOf('>', lt);
+            if (gt < 0 || gt >= end) {
+                throw new IllegalArgumentException("Незакрытый тег в позиции " + lt);
+            }
+            depth += src.charAt(lt + 1) == '/' ? -1 : 1;
+            pos = gt + 1;
+        }
+    }
+
+    /**
+     * Проверяет, пуст ли текст последнего прочитанного элемента.
+     *
+     * @return {@code true}, если текст пуст или состоит из пробелов
+     */
+    public boolean isBlank() {
+        return textStart == textEnd;
+    }
+
+    /**
+     * Возвращает текст последнего прочитанного элемента с декодированными XML-сущностями.
+     *
+     * @return текст элемента
+     */
+    public String text() {
+        int amp = textStart;
+        while (amp < textEnd && src.charAt(amp) != '&') {
+            amp++;
+        }
+        if (amp == textEnd) {
+            return src.substring(textStart, textEnd);
+        }
+
+        sb.setLength(0);
+        sb.append(src, textStart, amp);
+        int i = amp;
+        while (i < textEnd) {
+            char c = src.charAt(i);
+            if (c == '&') {
+                int semi = i + 1;
+                while (semi < textEnd && semi - i <= 5 && src.charAt(semi) != ';') {
+                    semi++;
+                }
+                if (semi < textEnd && src.charAt(semi) == ';') {
+                    char decoded = entity(i + 1, semi);
+                    if (decoded != 0) {
+                        sb.append(decoded);
+                        i = semi + 1;
+                        continue;
+                    }
+                }
+            }
+            sb.append(c);
+            i++;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Возвращает текст последнего элемента как последовательность символов документа.
+     * Сущности не декодируются; метод предназначен для разбора чисел и дат.
+     *
+     * @return текст элемента
+     */
+    public CharSequence rawText() {
+        return src.subSequence(textStart, textEnd);
+    }
+
+    /**
+     * Разбирает текст последнего элемента как {@code long}.
+     *
+     * @return число
+     */
+    public long parseLong() {
+        return Long.parseLong(src, textStart, textEnd, 10);
+    }
+
+    /**
+     * Разбирает текст последнего элемента как {@code int}.
+     *
+     * @return число
+     */
+    public int parseInt() {
+        return Integer.parseInt(src, textStart, textEnd, 10);
+    }
+
+    /**
+     * Разбирает текст последнего элемента как {@code double}.
+     *
+     * @return число
+     */
+    public double parseDouble() {
+        return Double.parseDouble(src.substring(textStart, textEnd));
+    }
+
+    /**
+     * Разбирает текст последнего элемента как {@code float}.
+     *
+     * @return число
+     */
+    public float parseFloat() {
+        return Float.parseFloat(src.substring(textStart, textEnd));
+    }
+
+    /**
+     * Разбирает текст последнего элемента как константу перечисления,
+     * сравнивая его с именами констант без создания строк.
+     *
+     * @param values константы перечисления
+     * @param <E> тип перечисления
+     * @return найденная константа
+     * @throws IllegalArgumentException если константы с таким именем нет
+     */
+    public <E extends Enum<E>> E parseEnum(E[] values) {
+        int len = textEnd - textStart;
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == len && src.regionMatches(textStart, name, 0, len)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Недопустимое значение: " + src.substring(textStart, textEnd));
+    }
+
+    private String tagName(int from, int to) {
+        return switch (to - from) {
+            case 1 -> single(from, to, "x", "y");
+            case 2 -> single(from, to, "id", null);
+            case 4 -> single(from, to, "name", "area");
+            default -> src.substring(from, to);
+        };
+    }
+
+    /**
+     * Возвращает одну из известных констант, если имя тега с ней совпадает,
+     * чтобы не создавать строку для частых коротких тегов.
+     */
+    private String single(int from, int to, String a, String b) {
+        int len = to - from;
+        if (src.regionMatches(from, a, 0, len)) {
+            return a;
+        }
+        if (b != null && src.regionMatches(from, b, 0, len)) {
+            return b;
+        }
+        return src.substring(from, to);
+    }
+
+    private char entity(int from, int to) {
+        int len = to - from;
+        if (len == 2 && src.regionMatches(from, "lt", 0, 2)) {
+            return '<';
+        }
+        if (len == 2 && src.regionMatches(from, "gt", 0, 2)) {
+            return '>';
+        }
+        if (len == 3 && src.regionMatches(from, "amp", 0, 3)) {
+            return '&';
+        }
+        if (len == 4 && src.regionMatches(from, "quot", 0, 4)) {
+            return '"';
+        }
+        if (len == 4 && src.regionMatches(from, "apos", 0, 4)) {
+            return '\'';
+        }
+        return 0;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && Character.isWhitespace(src.charAt(pos))) {
+            pos++;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: запись коллекции в XML-файл.
+ */
+@Name("citycollection.XmlSave")
+@Label("XML Save")
+@Category({"City Collection", "Persistence"})
+@Description("Сохранение коллекции в XML-файл")
+public class XmlSaveEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String path;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+
+    @Label("Cities")
+    public int cities;
+
+    @Label("Serialized Cities")
+    @Description("Города, XML-фрагмент которых не нашёлся в кэше и был сформирован заново")
+    public int serialized;
+}
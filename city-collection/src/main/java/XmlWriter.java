@@ -0,0 +1,303 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Потоковая запись XML в байтовый буфер.
+ * <p>
+ * Символы строк экранируются и кодируются в UTF-8 за один проход прямо в буфер,
+ * целые числа записываются цифрами без промежуточных строк. Буфер переиспользуется
+ * между записями ({@link #reset()}), поэтому запись поля не создаёт новых объектов.
+ * </p>
+ *
+ * <p>Объект не потокобезопасен.</p>
+ */
+public class XmlWriter {
+    private byte[] buf;
+    private int size;
+
+    /**
+     * Вспомогательный буфер для форматирования дат и дробных чисел.
+     */
+    private final StringBuilder scratch = new StringBuilder(32);
+
+    /**
+     * Создаёт объект записи с указанной начальной ёмкостью буфера.
+     *
+     * @param capacity начальная ёмкость в байтах
+     */
+    public XmlWriter(int capacity) {
+        this.buf = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Очищает буфер, сохраняя выделенную память.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Возвращает количество записанных байтов.
+     *
+     * @return размер содержимого буфера
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает копию записанных байтов.
+     *
+     * @return содержимое буфера
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    /**
+     * Записывает содержимое буфера в поток.
+     *
+     * @param out выходной поток
+     * @throws IOException если произошла ошибка записи
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, size);
+    }
+
+    /**
+     * Записывает отступ из пробелов.
+     *
+     * @param indent количество пробелов
+     * @return этот объект
+     */
+    public XmlWriter indent(int indent) {
+        ensure(indent);
+        for (int i = 0; i < indent; i++) {
+            buf[size++] = ' ';
+        }
+        return this;
+    }
+
+    /**
+     * Записывает открывающий тег.
+     *
+     * @param name имя тега (ASCII)
+     * @return этот объект
+     */
+    public XmlWriter open(String name) {
+        ensure(name.length() + 2);
+        buf[size++] = '<';
+        ascii(name);
+        buf[size++] = '>';
+        return this;
+    }
+
+    /**
+     * Записывает закрывающий тег.
+     *
+     * @param name имя тега (ASCII)
+     * @return этот объект
+     */
+    public XmlWriter close(String name) {
+        ensure(name.length() + 3);
+        buf[size++] = '<';
+        buf[size++] = '/';
+        ascii(name);
+        buf[size++] = '>';
+        return this;
+    }
+
+    /**
+     * Записывает перевод строки.
+     *
+     * @return этот объект
+     */
+    public XmlWriter newline() {
+        ensure(1);
+        buf[size++] = '\n';
+        return this;
+    }
+
+    /**
+     * Записывает строку с экранированием {@code &}, {@code <} и {@code >} в кодировке UTF-8.
+     * Значение {@code null} записывается как пустая строка.
+     *
+     * @param s строка
+     * @return этот объект
+     */
+    public XmlWriter text(String s) {
+        if (s == null) {
+            return this;
+        }
+        int len = s.length();
+        ensure(len);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&' -> raw("&amp;");
+                    case '<' -> raw("&lt;");
+                    case '>' -> raw("&gt;");
+                    default -> {
+                        ensure(1);
+                        buf[size++] = (byte) c;
+                    }
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buf[size++] = (byte) (0xC0 | (c >> 6));
+                buf[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buf[size++] = (byte) (0xF0 | (cp >> 18));
+                buf[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[size++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                buf[size++] = '?';
+            } else {
+                ensure(3);
+                buf[size++] = (byte) (0xE0 | (c >> 12));
+                buf[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Записывает целое число в десятичной записи.
+     *
+     * @param v число
+     * @return этот объект
+     */
+    public XmlWriter number(long v) {
+        ensure(20);
+        if (v == Long.MIN_VALUE) {
+            raw("-9223372036854775808");
+            return this;
+        }
+        if (v < 0) {
+            buf[size++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        size += digits;
+        return this;
+    }
+
+    /**
+     * Записывает дробное число в том же виде, что и {@link Double#toString(double)}.
+     *
+     * @param v число
+     * @return этот объект
+     */
+    public XmlWriter number(double v) {
+        if (v == (long) v && Math.abs(v) < 1e7 && (v != 0 || 1 / v > 0)) {
+            return number((long) v).raw(".0");
+        }
+        scratch.setLength(0);
+        scratch.append(v);
+        return chars(scratch);
+    }
+
+    /**
+     * Записывает число с плавающей точкой в том же виде, что и {@link Float#toString(float)}.
+     *
+     * @param v число
+     * @return этот объект
+     */
+    public XmlWriter number(float v) {
+        if (v == (long) v && Math.abs(v) < 1e7f && (v != 0 || 1 / v > 0)) {
+            return number((long) v).raw(".0");
+        }
+        scratch.setLength(0);
+        scratch.append(v);
+        return chars(scratch);
+    }
+
+    /**
+     * Записывает дату-время через {@link DateTimeCodec}.
+     * Значение {@code null} записывается как пустая строка.
+     *
+     * @param dateTime дата-время
+     * @return этот объект
+     */
+    public XmlWriter dateTime(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return this;
+        }
+        scratch.setLength(0);
+        DateTimeCodec.format(dateTime, scratch);
+        return chars(scratch);
+    }
+
+    /**
+     * Записывает строку из ASCII-символов без экранирования.
+     *
+     * @param s строка
+     * @return этот объект
+     */
+    public XmlWriter raw(String s) {
+        ensure(s.length());
+        ascii(s);
+        return this;
+    }
+
+    /**
+     * Записывает строковый элемент {@code <name>value</name>} с отступом и переводом строки.
+     *
+     * @param indent отступ
+     * @param name имя тега
+     * @param value значение (может быть {@code null})
+     * @return этот объект
+     */
+    public XmlWriter element(int indent, String name, String value) {
+        return indent(indent).open(name).text(value).close(name).newline();
+    }
+
+    /**
+     * Записывает целочисленный элемент с отступом и переводом строки.
+     *
+     * @param indent отступ
+     * @param name имя тега
+     * @param value значение
+     * @return этот объект
+     */
+    public XmlWriter element(int indent, String name, long value) {
+        return indent(indent).open(name).number(value).close(name).newline();
+    }
+
+    private XmlWriter chars(CharSequence cs) {
+        int len = cs.length();
+        ensure(len);
+        for (int i = 0; i < len; i++) {
+            buf[size++] = (byte) cs.charAt(i);
+        }
+        return this;
+    }
+
+    private void ascii(String s) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            buf[size++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Разбор и запись городов в построчных форматах ({@link CityLineFormat}).
+ */
+class CityLineFormatTest {
+
+    @Test
+    void writtenLinesParseBack() throws IOException {
+        for (CityLineFormat format : CityLineFormat.values()) {
+            List<City> cities = generated(500);
+            String[] lines = write(format, cities).split("\n");
+
+            int first = 0;
+            if (format == CityLineFormat.CSV) {
+                assertTrue(format.isHeader(lines[0]));
+                first = 1;
+            }
+            assertEquals(cities.size(), lines.length - first);
+            for (int i = 0; i < cities.size(); i++) {
+                assertEquals(cities.get(i).toString(), format.parse(lines[first + i]).toString(), lines[first + i]);
+            }
+        }
+    }
+
+    @Test
+    void csvQuotedValues() {
+        City city = CityLineFormat.CSV.parse(
+                "\"Нижний, \"\"Новгород\"\"\",1,,,,5,STEPPE,IDEOCRACY,,\"Иван, младший\",,");
+        assertEquals("Нижний, \"Новгород\"", city.getName());
+        assertEquals("Иван, младший", city.getGovernor().getName());
+        assertNull(city.getGovernor().getHeight());
+        assertNull(city.getCoordinates().getY());
+        assertNull(city.getStandardOfLiving());
+    }
+
+    @Test
+    void csvRejectsInvalidRecords() {
+        String[] lines = {
+                "Omsk,1,2,3.5,4,5,STEPPE,IDEOCRACY,,Ivan,180.0",
+                "Omsk,,2,3.5,4,5,STEPPE,IDEOCRACY,,,,",
+                "Omsk,1.5,2,3.5,4,5,STEPPE,IDEOCRACY,,,,",
+                "Omsk,1,2,3.5,4,,STEPPE,IDEOCRACY,,,,",
+                "Omsk,1,2,много,4,5,STEPPE,IDEOCRACY,,,,",
+                "Omsk,1,2,3.5,4,5,TROPICAL,IDEOCRACY,,,,",
+                "Omsk,1,2,3.5,4,5,STEPPE,IDEOCRACY,,Ivan,180.0,вчера",
+                "\"Omsk,1,2,3.5,4,5,STEPPE,IDEOCRACY,,,,",
+        };
+        for (String line : lines) {
+            assertThrows(IllegalArgumentException.class, () -> CityLineFormat.CSV.parse(line), line);
+        }
+    }
+
+    @Test
+    void jsonlRejectsInvalidRecords() {
+        String valid = "{\"name\":\"Omsk\",\"coordinates\":{\"x\":1,\"y\":2},\"metersAboveSeaLevel\":5,"
+                + "\"climate\":\"STEPPE\",\"government\":\"IDEOCRACY\"}";
+        assertEquals("Omsk", CityLineFormat.JSONL.parse(valid).getName());
+
+        String[] lines = {
+                valid.replace("\"metersAboveSeaLevel\":5,", ""),
+                valid.replace("\"metersAboveSeaLevel\":5", "\"metersAboveSeaLevel\":null"),
+                valid.replace("{\"x\":1,\"y\":2}", "{\"y\":2}"),
+                valid.replace("\"coordinates\":{\"x\":1,\"y\":2},", ""),
+                valid.replace("\"x\":1", "\"x\":1.5"),
+                valid.replace("\"x\":1", "\"x\":\"1\""),
+                valid.replace("\"x\":1", "\"x\":10000000000"),
+                valid.replace("STEPPE", "TROPICAL"),
+                valid.replace("}", "},"),
+                valid.substring(0, valid.length() - 1),
+                "[" + valid + "]",
+        };
+        for (String line : lines) {
+            assertThrows(RuntimeException.class, () -> CityLineFormat.JSONL.parse(line), line);
+        }
+    }
+
+    @Test
+    void formatByNameAndExtension() {
+        assertEquals(CityLineFormat.CSV, CityLineFormat.of("csv"));
+        assertEquals(CityLineFormat.JSONL, CityLineFormat.of("jsonl"));
+        assertEquals(CityLineFormat.CSV, CityLineFormat.forFile("cities.csv"));
+        assertEquals(CityLineFormat.JSONL, CityLineFormat.forFile("cities.jsonl"));
+        assertNull(CityLineFormat.forFile("cities.txt"));
+        assertThrows(IllegalArgumentException.class, () -> CityLineFormat.of("xml"));
+    }
+
+    static List<City> generated(int count) {
+        DatasetGenerator generator = new DatasetGenerator(50).governorRate(0.5).standardOfLivingRate(0.5);
+        List<City> cities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            City city = generator.next();
+            city.setId(0);
+            city.setCreationDate(null);
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    static String write(CityLineFormat format, List<City> cities) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CityWriter writer = format.openWriter(bytes)) {
+            for (City city : cities) {
+                writer.write(city);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
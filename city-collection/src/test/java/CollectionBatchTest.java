@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пакетный режим {@link CollectionManager}: после согласования ({@code syncBatch})
+ * порядок и содержимое коллекции должны совпадать с результатом тех же операций
+ * вне пакетного режима.
+ */
+class CollectionBatchTest {
+    private static final int SIZE = 200;
+
+    @Test
+    void updatesAndRemovalsKeepPositions() {
+        CollectionManager plain = filled();
+        CollectionManager batched = filled();
+
+        batched.beginBatch();
+        for (CollectionManager cm : List.of(plain, batched)) {
+            cm.update(10, city("обновлённый 10"));
+            cm.removeById(20);
+            cm.update(30, city("обновлённый 30"));
+            cm.update(30, city("снова 30"));
+            cm.removeById(40);
+            cm.update(SIZE, city("последний"));
+        }
+        batched.endBatch();
+
+        assertEquals(describe(plain.getAll()), describe(batched.getAll()));
+    }
+
+    @Test
+    void readdedElementsMoveToEndInReaddOrder() {
+        CollectionManager plain = filled();
+        CollectionManager batched = filled();
+
+        batched.beginBatch();
+        for (CollectionManager cm : List.of(plain, batched)) {
+            cm.removeById(3);
+            cm.removeById(7);
+            cm.add(city(7, "снова 7"));
+            cm.add(city(0, "новый"));
+            cm.add(city(3, "снова 3"));
+            cm.update(7, city("обновлённый 7"));
+            cm.removeById(5);
+            cm.add(city(5, "снова 5"));
+            cm.removeById(5);
+            cm.add(city(5, "ещё раз 5"));
+        }
+        batched.endBatch();
+
+        assertEquals(describe(plain.getAll()), describe(batched.getAll()));
+    }
+
+    @Test
+    void randomOperationsMatchPlainMode() {
+        Random random = new Random(49);
+        for (int round = 0; round < 200; round++) {
+            CollectionManager plain = filled();
+            CollectionManager batched = filled();
+            batched.beginBatch();
+            long seed = random.nextLong();
+            apply(plain, new Random(seed));
+            apply(batched, new Random(seed));
+
+            assertEquals(describe(plain.snapshot()), describe(snapshotFromOtherThread(batched)), "seed " + seed);
+            batched.endBatch();
+            assertEquals(describe(plain.getAll()), describe(batched.getAll()), "seed " + seed);
+        }
+    }
+
+    /**
+     * Случайные update, remove_by_id, добавление удалённого id и новые элементы.
+     */
+    private static void apply(CollectionManager cm, Random random) {
+        List<Long> removed = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long id = 1 + random.nextInt(SIZE);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                cm.update(id, city("обновлённый " + id + "/" + i));
+            } else if (op < 7) {
+                if (cm.removeById(id)) {
+                    removed.add(id);
+                }
+            } else if (op < 9 && !removed.isEmpty()) {
+                long readd = removed.remove(random.nextInt(removed.size()));
+                cm.add(city(readd, "снова " + readd + "/" + i));
+            } else {
+                cm.add(city(0, "новый " + i));
+            }
+        }
+    }
+
+    private static List<City> snapshotFromOtherThread(CollectionManager cm) {
+        AtomicReference<List<City>> result = new AtomicReference<>();
+        Thread t = new Thread(() -> result.set(cm.snapshot()));
+        t.start();
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return result.get();
+    }
+
+    private static CollectionManager filled() {
+        CollectionManager cm = new CollectionManager();
+        for (int i = 1; i <= SIZE; i++) {
+            cm.addLoaded(city(i, "город " + i));
+        }
+        cm.syncNextIdFromLoadedData();
+        return cm;
+    }
+
+    private static City city(String name) {
+        return city(0, name);
+    }
+
+    private static City city(long id, String name) {
+        City city = new City();
+        city.setId(id);
+        city.setName(name);
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(1);
+        city.setCoordinates(coordinates);
+        city.setCreationDate(LocalDateTime.of(2026, 1, 1, 0, 0));
+        city.setMetersAboveSeaLevel(1);
+        return city;
+    }
+
+    private static List<String> describe(List<City> cities) {
+        List<String> result = new ArrayList<>(cities.size());
+        for (City city : cities) {
+            result.add(city.getId() + ":" + city.getName());
+        }
+        return result;
+    }
+}
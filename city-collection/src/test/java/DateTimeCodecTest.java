@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Сравнение {@link DateTimeCodec} со стандартным разбором и форматированием {@link LocalDateTime}.
+ */
+class DateTimeCodecTest {
+    /**
+     * Шаги дробной части: без неё, миллисекунды, микросекунды, наносекунды.
+     */
+    private static final int[] NANO_STEPS = {1_000_000_000, 1_000_000, 1_000, 1};
+
+    @Test
+    void roundTripsRandomValues() {
+        Random random = new Random(29);
+        for (int i = 0; i < 100_000; i++) {
+            int step = NANO_STEPS[random.nextInt(NANO_STEPS.length)];
+            LocalDateTime value = LocalDateTime.of(
+                    random.nextInt(10_000), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    random.nextInt(1_000_000_000) / step * step);
+
+            String formatted = DateTimeCodec.format(value);
+            assertEquals(value, LocalDateTime.parse(formatted), formatted);
+            assertEquals(value, DateTimeCodec.parse(formatted), formatted);
+            assertEquals(value, DateTimeCodec.parse(value.toString()), value.toString());
+        }
+    }
+
+    @Test
+    void formatMatchesJdkWhenSecondsArePresent() {
+        LocalDateTime[] values = {
+                LocalDateTime.of(2026, 2, 27, 10, 0, 1),
+                LocalDateTime.of(2026, 2, 27, 10, 0, 1, 100_000_000),
+                LocalDateTime.of(2026, 2, 27, 10, 0, 1, 120_000),
+                LocalDateTime.of(2026, 2, 27, 10, 0, 0, 7),
+                LocalDateTime.of(1, 1, 1, 0, 0, 59),
+        };
+        for (LocalDateTime value : values) {
+            assertEquals(value.toString(), DateTimeCodec.format(value));
+        }
+        assertEquals("2026-02-27T10:00:00", DateTimeCodec.format(LocalDateTime.of(2026, 2, 27, 10, 0)));
+        assertEquals("", DateTimeCodec.format(null));
+    }
+
+    @Test
+    void formatsYearsOutsideFixedWidthLikeJdk() {
+        for (LocalDateTime value : new LocalDateTime[]{
+                LocalDateTime.of(10_000, 1, 1, 0, 0, 1), LocalDateTime.of(-1, 12, 31, 23, 59, 59)}) {
+            assertEquals(value.toString(), DateTimeCodec.format(value));
+            assertEquals(value, DateTimeCodec.parse(DateTimeCodec.format(value)));
+        }
+    }
+
+    @Test
+    void parsesLikeJdk() {
+        String[] inputs = {
+                "2024-02-29T12:30", "2024-02-29T12:30:45", "0000-01-01T00:00", "9999-12-31T23:59:59.999999999",
+                "2024-01-01T10:15:30.1", "2024-01-01T10:15:30.12", "2024-01-01T10:15:30.123456",
+                "2024-01-01T10:15:30.", "+10000-01-01T00:00", "-0001-01-01T00:00",
+                "2023-02-29T12:30", "2024-13-01T00:00", "2024-00-10T00:00", "2024-01-32T00:00",
+                "2024-01-01T24:00", "2024-01-01T23:60", "2024-01-01T23:59:60",
+                "2024-01-01T10:15:30.1234567890", "2024-01-01T10:15:3a", "2024-01-01T10:15:30.12a",
+                "2024-01-01T10:15:30.-1", "2024-1-01T00:00", "2024-01-01 00:00", "2024-01-01T10:15:30Z",
+                "2024-01-01T10:15:30,5", "2024-01-01T", "",
+        };
+        for (String input : inputs) {
+            LocalDateTime expected;
+            try {
+                expected = LocalDateTime.parse(input);
+            } catch (DateTimeException e) {
+                assertThrows(DateTimeException.class, () -> DateTimeCodec.parse(input), input);
+                continue;
+            }
+            assertEquals(expected, DateTimeCodec.parse(input), input);
+        }
+    }
+}
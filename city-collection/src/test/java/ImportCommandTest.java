@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Импорт городов командой {@link ImportCommand}: проверка записей, отчёт об ошибках
+ * и запрет чтения файлов сервера в сетевом сеансе.
+ */
+class ImportCommandTest {
+    @TempDir
+    Path dir;
+
+    private CollectionManager cm;
+    private CommandManager manager;
+    private ByteArrayOutputStream output;
+    private CommandContext local;
+    private CommandContext remote;
+
+    @BeforeEach
+    void setUp() {
+        cm = new CollectionManager();
+        manager = new CommandManager(cm, new XmlIO(dir.resolve("data.xml").toString()));
+        output = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        local = manager.newSession(out);
+        remote = manager.newRemoteSession(out);
+    }
+
+    @Test
+    void importsValidRecordsAndReportsInvalidOnes() throws IOException {
+        List<City> cities = CityLineFormatTest.generated(5000);
+        String csv = CityLineFormatTest.write(CityLineFormat.CSV, cities)
+                + "Omsk,1,2,3.5,4,,STEPPE,IDEOCRACY,,,,\n"
+                + "Omsk,-300,2,3.5,4,5,STEPPE,IDEOCRACY,,,,\n"
+                + "\n"
+                + "Omsk,1,2,3.5,4,5,STEPPE,IDEOCRACY,,,\n";
+        Path file = dir.resolve("cities.csv");
+        Files.writeString(file, csv);
+
+        manager.handleRequest("import " + file, local);
+
+        assertEquals(cities.size(), cm.size());
+        String text = output();
+        assertTrue(text.contains("Строка 5002: metersAboveSeaLevel"), text);
+        assertTrue(text.contains("Строка 5003: x"), text);
+        assertTrue(text.contains("Строка 5005: ожидается 12 значений"), text);
+        assertTrue(text.contains("Импортировано элементов: 5000, строк с ошибками: 3."), text);
+    }
+
+    @Test
+    void assignsIdsAndCreationDates() throws IOException {
+        Path file = dir.resolve("cities.jsonl");
+        Files.writeString(file, CityLineFormatTest.write(CityLineFormat.JSONL, CityLineFormatTest.generated(10)));
+
+        manager.handleRequest("import " + file, local);
+
+        List<City> imported = cm.snapshot();
+        assertEquals(10, imported.size());
+        for (City city : imported) {
+            assertTrue(city.getId() > 0);
+            assertNotNull(city.getCreationDate());
+        }
+    }
+
+    @Test
+    void limitsDetailedErrors() throws IOException {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, "Omsk,x,2,3.5,4,5,STEPPE,IDEOCRACY,,,,\n".repeat(25));
+
+        manager.handleRequest("import " + file, local);
+
+        String text = output();
+        assertTrue(text.contains("Строка 20: x"), text);
+        assertFalse(text.contains("Строка 21:"), text);
+        assertTrue(text.contains("... и ещё ошибок: 5"), text);
+        assertEquals(0, cm.size());
+    }
+
+    @Test
+    void readsRecordsFromRequestInRemoteSession() {
+        manager.handleRequest("import - csv|Omsk,1,2,3.5,4,5,STEPPE,IDEOCRACY,,,,|.", remote);
+
+        assertEquals(1, cm.size());
+        assertTrue(output().contains("Импортировано элементов: 1, строк с ошибками: 0."));
+    }
+
+    @Test
+    void refusesServerFilesInRemoteSession() throws IOException {
+        Path file = dir.resolve("secret.csv");
+        Files.writeString(file, "секрет,1,2,3.5,4,5,STEPPE,IDEOCRACY,,,,\n");
+
+        manager.handleRequest("import " + file, remote);
+
+        assertEquals(0, cm.size());
+        String text = output();
+        assertTrue(text.contains("недоступна сетевым клиентам"), text);
+        assertFalse(text.contains("секрет"), text);
+    }
+
+    private String output() {
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Кодирование и декодирование кадров двоичного протокола ({@link ProtocolEncoder},
+ * {@link ProtocolDecoder}).
+ */
+class ProtocolCodecTest {
+
+    @Test
+    void citiesRoundTrip() throws IOException {
+        List<City> cities = generated(200);
+        cities.add(minimal(1000));
+
+        ProtocolResponse decoded = decodeResponse(ProtocolEncoder.encodeResponse(ProtocolResponse.cities(cities)));
+
+        assertTrue(decoded.ok);
+        assertEquals(ProtocolResponse.Kind.CITIES, decoded.kind);
+        assertEquals(text(cities), text(decoded.cities));
+    }
+
+    @Test
+    void pageKeepsMoreFlag() throws IOException {
+        List<City> page = generated(3);
+
+        assertTrue(decodeResponse(ProtocolEncoder.encodeResponse(ProtocolResponse.page(page, true))).hasMore());
+        ProtocolResponse last = decodeResponse(ProtocolEncoder.encodeResponse(ProtocolResponse.page(page, false)));
+        assertFalse(last.hasMore());
+        assertEquals(text(page), text(last.cities));
+    }
+
+    @Test
+    void requestsRoundTripThroughFrames() throws IOException {
+        City city = generated(1).get(0);
+        Human governor = new Human();
+        governor.setName("Губернатор");
+        governor.setHeight(1.75f);
+        governor.setBirthday(LocalDateTime.of(1970, 1, 1, 0, 0));
+        List<ProtocolRequest> requests = List.of(
+                ProtocolRequest.of(Opcode.INFO),
+                new ProtocolRequest(Opcode.ADD, 0, city, null, null),
+                new ProtocolRequest(Opcode.UPDATE, 42, city, null, null),
+                new ProtocolRequest(Opcode.REMOVE_BY_ID, 7, null, null, null),
+                ProtocolRequest.page(Opcode.SHOW_PAGE, 10, 50),
+                new ProtocolRequest(Opcode.REMOVE_ALL_BY_GOVERNOR, 0, null, governor, null),
+                new ProtocolRequest(Opcode.REMOVE_ALL_BY_GOVERNOR, 0, null, null, null),
+                new ProtocolRequest(Opcode.EXECUTE_SCRIPT, 0, null, null, "скрипт.txt"));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ProtocolEncoder encoder = new ProtocolEncoder(stream);
+        for (ProtocolRequest request : requests) {
+            encoder.writeRequest(request);
+        }
+
+        ProtocolDecoder decoder = new ProtocolDecoder(new ByteArrayInputStream(stream.toByteArray()));
+        for (ProtocolRequest expected : requests) {
+            ProtocolRequest actual = decoder.readRequest();
+            assertEquals(expected.op, actual.op);
+            assertEquals(expected.id, actual.id);
+            assertEquals(expected.limit, actual.limit);
+            assertEquals(expected.text, actual.text);
+            assertEquals(expected.governor, actual.governor);
+            assertEquals(String.valueOf(expected.city), String.valueOf(actual.city));
+        }
+        assertNull(decoder.readRequest());
+    }
+
+    @Test
+    void corruptedRequestBodyKeepsStreamUsable() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(1);
+        out.writeByte(0xFF);
+        new ProtocolEncoder(out).writeRequest(ProtocolRequest.of(Opcode.INFO));
+
+        ProtocolDecoder decoder = new ProtocolDecoder(new ByteArrayInputStream(stream.toByteArray()));
+        assertThrows(ProtocolException.class, decoder::readRequest);
+        assertEquals(Opcode.INFO, decoder.readRequest().op);
+    }
+
+    @Test
+    void rejectsInvalidFrameLength() {
+        for (int length : new int[]{-1, Protocol.MAX_FRAME + 1}) {
+            byte[] frame = ByteBuffer.allocate(4).putInt(length).array();
+            ProtocolDecoder decoder = new ProtocolDecoder(new ByteArrayInputStream(frame));
+            IOException e = assertThrows(IOException.class, decoder::readRequest);
+            assertFalse(e instanceof ProtocolException);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] frame = ByteBuffer.allocate(6).putInt(100).put((byte) 1).put((byte) 2).array();
+        ProtocolDecoder decoder = new ProtocolDecoder(new ByteArrayInputStream(frame));
+        assertThrows(EOFException.class, decoder::readRequest);
+    }
+
+    @Test
+    void rejectsStringLongerThanBody() {
+        ByteBuffer body = ByteBuffer.allocate(9);
+        body.put((byte) Opcode.EXECUTE_SCRIPT.code()).putInt(Integer.MAX_VALUE).putInt(0);
+        assertThrows(IOException.class, () -> decodeRequest(body.array()));
+
+        ByteBuffer shortBody = ByteBuffer.allocate(7);
+        shortBody.put((byte) Opcode.EXECUTE_SCRIPT.code()).putInt(100).put((byte) 'a').put((byte) 'b');
+        assertThrows(EOFException.class, () -> decodeRequest(shortBody.array()));
+    }
+
+    @Test
+    void rejectsEnumOrdinalOutOfRange() {
+        City city = minimal(1);
+        city.setClimate(Climate.values()[0]);
+        byte[] body = ProtocolEncoder.encodeRequest(new ProtocolRequest(Opcode.ADD, 0, city, null, null));
+        // из необязательных полей задан только climate, и его порядковый номер — последний байт
+        body[body.length - 1] = (byte) Climate.values().length;
+
+        IOException e = assertThrows(IOException.class, () -> decodeRequest(body));
+        assertTrue(e.getMessage().contains("climate"));
+    }
+
+    @Test
+    void rejectsUnknownResponseKind() {
+        byte[] body = {1, (byte) ProtocolResponse.Kind.values().length};
+        assertThrows(IOException.class, () -> decodeResponse(body));
+    }
+
+    private static ProtocolRequest decodeRequest(byte[] body) throws IOException {
+        return ProtocolDecoder.decodeRequest(new DataInputStream(new ByteArrayInputStream(body)));
+    }
+
+    private static ProtocolResponse decodeResponse(byte[] body) throws IOException {
+        return ProtocolDecoder.decodeResponse(new DataInputStream(new ByteArrayInputStream(body)));
+    }
+
+    private static List<City> generated(int count) {
+        DatasetGenerator generator = new DatasetGenerator(7).governorRate(0.5).standardOfLivingRate(0.5);
+        List<City> cities = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            City city = generator.next();
+            city.setId(i);
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * Город только с обязательными полями.
+     */
+    private static City minimal(long id) {
+        City city = new City();
+        city.setId(id);
+        city.setName("Минимальный");
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(-5);
+        city.setCoordinates(coordinates);
+        city.setCreationDate(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 999_999_999));
+        city.setMetersAboveSeaLevel(0);
+        return city;
+    }
+
+    private static String text(List<City> cities) {
+        StringBuilder sb = new StringBuilder();
+        for (City city : cities) {
+            sb.append(city).append('\n');
+        }
+        return sb.toString();
+    }
+}
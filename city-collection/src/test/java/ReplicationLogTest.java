@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Журнал репликации ({@link ReplicationLog}): ведомый, догнавший ведущего по записям
+ * журнала, должен получить ту же коллекцию, что и при загрузке полного снимка.
+ */
+class ReplicationLogTest {
+
+    @Test
+    void catchUpMatchesFullSnapshot() throws Exception {
+        Random random = new Random(39);
+        DatasetGenerator generator = new DatasetGenerator(39).governorRate(0.5).governorDuplicateRate(0.5);
+        CollectionManager primary = new CollectionManager();
+        for (int i = 0; i < 300; i++) {
+            primary.addLoaded(fresh(generator));
+        }
+        primary.syncNextIdFromLoadedData();
+        ReplicationLog log = new ReplicationLog(100_000);
+        primary.setMutationListener(log);
+
+        CollectionManager follower = fromSnapshot(primary);
+        long appliedSeq = log.lastSeq();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                mutate(primary, generator, random);
+            }
+            appliedSeq = catchUp(log, appliedSeq, follower);
+
+            assertEquals(log.lastSeq(), appliedSeq);
+            assertEquals(text(fromSnapshot(primary).snapshot()), text(follower.snapshot()), "round " + round);
+        }
+        assertTrue(primary.size() > 0);
+    }
+
+    @Test
+    void evictedOrFutureEntriesRequireSnapshot() throws InterruptedException {
+        ReplicationLog log = new ReplicationLog(4);
+        for (int i = 1; i <= 10; i++) {
+            log.onMutation(new Mutation(Mutation.Type.REMOVE, i, null, null));
+        }
+
+        assertNull(log.after(5, 100, 0));
+        assertNull(log.after(11, 100, 0));
+        List<ReplicationEntry> entries = log.after(6, 100, 0);
+        assertEquals(List.of(7L, 8L, 9L, 10L), seqs(entries));
+        assertEquals(List.of(7L, 8L), seqs(log.after(6, 2, 0)));
+        assertEquals(7, entries.get(0).mutation.id);
+        assertTrue(log.after(10, 100, 0).isEmpty());
+    }
+
+    @Test
+    void waitsForNextEntry() throws Exception {
+        ReplicationLog log = new ReplicationLog(16);
+        AtomicReference<List<ReplicationEntry>> result = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                result.set(log.after(0, 10, 10_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reader.start();
+        Thread.sleep(100);
+        log.onMutation(Mutation.of(Mutation.Type.CLEAR));
+        reader.join(10_000);
+
+        assertEquals(List.of(1L), seqs(result.get()));
+    }
+
+    /**
+     * Применяет к ведомому записи журнала после {@code afterSeq}, как {@link ReplicationFollower},
+     * передавая каждое изменение через {@link ReplicationProtocol}.
+     */
+    private static long catchUp(ReplicationLog log, long afterSeq, CollectionManager follower)
+            throws Exception {
+        while (true) {
+            List<ReplicationEntry> entries = log.after(afterSeq, 64, 0);
+            assertTrue(entries != null, "записи вытеснены из журнала");
+            if (entries.isEmpty()) {
+                return afterSeq;
+            }
+            for (ReplicationEntry entry : entries) {
+                assertEquals(afterSeq + 1, entry.seq);
+                ReplicationFollower.apply(follower, transfer(entry.mutation));
+                afterSeq = entry.seq;
+            }
+        }
+    }
+
+    /**
+     * Случайное изменение коллекции ведущего.
+     */
+    private static void mutate(CollectionManager cm, DatasetGenerator generator, Random random) {
+        List<City> cities = cm.snapshot();
+        City some = cities.isEmpty() ? null : cities.get(random.nextInt(cities.size()));
+        int op = random.nextInt(100);
+        if (op < 35 || some == null) {
+            cm.add(fresh(generator));
+        } else if (op < 60) {
+            cm.update(some.getId(), fresh(generator));
+        } else if (op < 85) {
+            cm.removeById(some.getId());
+        } else if (op < 90) {
+            cm.reorder();
+        } else if (op < 94) {
+            cm.sortDefault();
+        } else if (op < 97) {
+            cm.removeLower(some);
+        } else {
+            cm.removeAllByGovernor(some.getGovernor());
+        }
+    }
+
+    /**
+     * Полный снимок коллекции так, как его загружает ведомый.
+     */
+    private static CollectionManager fromSnapshot(CollectionManager primary) throws IOException {
+        CollectionManager copy = new CollectionManager();
+        for (City city : primary.snapshot()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ProtocolEncoder.writeCity(new DataOutputStream(bytes), city);
+            copy.addLoaded(ProtocolDecoder.readCity(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+        copy.syncNextIdFromLoadedData();
+        return copy;
+    }
+
+    private static Mutation transfer(Mutation mutation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplicationProtocol.writeMutation(new DataOutputStream(bytes), mutation);
+        return ReplicationProtocol.readMutation(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static City fresh(DatasetGenerator generator) {
+        City city = generator.next();
+        city.setId(0);
+        return city;
+    }
+
+    private static List<Long> seqs(List<ReplicationEntry> entries) {
+        List<Long> result = new ArrayList<>(entries.size());
+        for (ReplicationEntry entry : entries) {
+            result.add(entry.seq);
+        }
+        return result;
+    }
+
+    private static String text(List<City> cities) {
+        StringBuilder sb = new StringBuilder();
+        for (City city : cities) {
+            sb.append(city).append('\n');
+        }
+        return sb.toString();
+    }
+}